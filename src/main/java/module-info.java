@@ -14,6 +14,9 @@ module no.ssb.dc.api {
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.annotation;
     requires com.fasterxml.jackson.dataformat.yaml;
+    requires org.yaml.snakeyaml;
+    requires com.fasterxml.jackson.dataformat.smile;
+    requires com.fasterxml.jackson.dataformat.cbor;
     requires java.xml;
     requires dapla.secrets.client.api;
 
@@ -4,6 +4,7 @@ import no.ssb.dc.api.node.builder.AddContentBuilder;
 import no.ssb.dc.api.node.builder.BodyBuilder;
 import no.ssb.dc.api.node.builder.BodyContainsBuilder;
 import no.ssb.dc.api.node.builder.BodyPublisherBuilder;
+import no.ssb.dc.api.node.builder.ConnectionPoolBuilder;
 import no.ssb.dc.api.node.builder.ConsoleBuilder;
 import no.ssb.dc.api.node.builder.DeleteBuilder;
 import no.ssb.dc.api.node.builder.EvalBuilder;
@@ -23,6 +24,7 @@ import no.ssb.dc.api.node.builder.PaginateBuilder;
 import no.ssb.dc.api.node.builder.ParallelBuilder;
 import no.ssb.dc.api.node.builder.PostBuilder;
 import no.ssb.dc.api.node.builder.ProcessBuilder;
+import no.ssb.dc.api.node.builder.RateLimitBuilder;
 import no.ssb.dc.api.node.builder.PublishBuilder;
 import no.ssb.dc.api.node.builder.PutBuilder;
 import no.ssb.dc.api.node.builder.QueryBuilder;
@@ -44,6 +46,14 @@ public class Builders {
         return new SecurityBuilder();
     }
 
+    public static RateLimitBuilder rateLimit() {
+        return new RateLimitBuilder();
+    }
+
+    public static ConnectionPoolBuilder connectionPool() {
+        return new ConnectionPoolBuilder();
+    }
+
     public static JwtIdentityBuilder jwt(String id, JwtHeaderClaims headerClaims, JwtClaims claims) {
         return new JwtIdentityBuilder(id, headerClaims, claims);
     }
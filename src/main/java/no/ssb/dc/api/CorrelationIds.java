@@ -1,5 +1,6 @@
 package no.ssb.dc.api;
 
+import de.huxhorn.sulky.ulid.ULID;
 import no.ssb.dc.api.context.ExecutionContext;
 import no.ssb.dc.api.ulid.ULIDGenerator;
 
@@ -42,6 +43,15 @@ public class CorrelationIds {
         return uuid;
     }
 
+    public List<UUID> add(int count) {
+        List<UUID> uuids = new ArrayList<>(count);
+        for (ULID.Value ulid : ULIDGenerator.generate(count)) {
+            uuids.add(ULIDGenerator.toUUID(ulid));
+        }
+        correlationIds.addAll(uuids);
+        return uuids;
+    }
+
     public void tail(CorrelationIds correlationIds) {
         this.correlationIds.add(correlationIds.last());
     }
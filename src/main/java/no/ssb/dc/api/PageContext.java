@@ -1,13 +1,21 @@
 package no.ssb.dc.api;
 
 import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.node.Parallel;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -18,19 +26,32 @@ public class PageContext {
     private final List<String> expectedPositions;
     private final List<String> nextPositionVariableNames;
     private final Map<String, String> nextPositionMap; // variableName, positionValue
-    private final List<Entry> parallelFutures = new ArrayList<>();
+    private final List<Entry> parallelFutures = Collections.synchronizedList(new ArrayList<>());
+    private final List<Entry> completedEntries = Collections.synchronizedList(new ArrayList<>());
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
     private final CompletionInfo completionInfo = new CompletionInfo();
     private final AtomicBoolean endOfStream = new AtomicBoolean(false);
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
     private final AtomicReference<Throwable> failureCause = new AtomicReference<>();
-
-    private PageContext(List<String> expectedPositions, List<String> nextPositionVariableNames, Map<String, String> nextPositionMap) {
+    private final int maxConcurrency;
+    private final boolean ordered;
+    private final Parallel.FailureMode failureMode;
+    private final Deque<Entry> queuedEntries = new ArrayDeque<>(); // guarded by queuedEntries
+    private int runningEntries; // guarded by queuedEntries
+    private volatile Runnable terminationRegistration;
+
+    private PageContext(List<String> expectedPositions, List<String> nextPositionVariableNames, Map<String, String> nextPositionMap,
+                        int maxConcurrency, boolean ordered, Parallel.FailureMode failureMode) {
         this.expectedPositions = expectedPositions;
         this.nextPositionVariableNames = nextPositionVariableNames;
         this.nextPositionMap = nextPositionMap;
+        this.maxConcurrency = maxConcurrency;
+        this.ordered = ordered;
+        this.failureMode = failureMode;
     }
 
     public static PageContext createEndOfStream() {
-        PageContext pageContext = new PageContext(new LinkedList<>(), new LinkedList<>(), new LinkedHashMap<>());
+        PageContext pageContext = new PageContext(new LinkedList<>(), new LinkedList<>(), new LinkedHashMap<>(), 0, true, Parallel.FailureMode.FAIL_FAST);
         pageContext.endOfStream.set(true);
         return pageContext;
     }
@@ -47,16 +68,193 @@ public class PageContext {
         return nextPositionMap;
     }
 
+    /**
+     * Add an entry that is run by the caller. It is published in completion order if the page is unordered, but a
+     * failure is only recorded when the caller calls {@link #failure(Throwable)}, and does not cancel its siblings.
+     */
     public void addFuture(CompletableFuture<ExecutionContext> future) {
-        parallelFutures.add(new Entry(future));
+        Entry entry = new Entry(new CompletableFuture<>(), null);
+        entry.taskFuture = future;
+        parallelFutures.add(entry);
+        // the entry future completes after the entry is added, so allOf() stages see every completed entry
+        future.whenComplete((context, throwable) -> {
+            completedEntries.add(entry);
+            if (throwable == null) {
+                entry.future.complete(context);
+            } else {
+                entry.future.completeExceptionally(unwrap(throwable));
+            }
+        });
+    }
+
+    /**
+     * Schedule a parallel entry. The task is started at once if fewer than maxConcurrency entries are in flight, or
+     * else when a running entry completes. A failed entry cancels its siblings in fail fast mode.
+     *
+     * @return a future that completes with the entry, or is cancelled if the page is cancelled first
+     */
+    public CompletableFuture<ExecutionContext> submit(Supplier<CompletableFuture<ExecutionContext>> task) {
+        Entry entry = new Entry(new CompletableFuture<>(), task);
+        parallelFutures.add(entry);
+        if (cancelled.get()) {
+            entry.future.cancel(false);
+            return entry.future;
+        }
+        synchronized (queuedEntries) {
+            if (maxConcurrency > 0 && runningEntries >= maxConcurrency) {
+                queuedEntries.add(entry);
+                return entry.future;
+            }
+            runningEntries++;
+        }
+        run(entry);
+        return entry.future;
+    }
+
+    /*
+     * Entries that complete synchronously are run in a loop rather than from their completion callbacks, so a long
+     * queue does not grow the stack
+     */
+    private void run(Entry entry) {
+        while (entry != null) {
+            Entry startedEntry = entry;
+            CompletableFuture<ExecutionContext> taskFuture = start(startedEntry);
+            if (!taskFuture.isDone()) {
+                taskFuture.whenComplete((context, throwable) -> {
+                    complete(startedEntry, context, throwable);
+                    run(nextQueuedEntry());
+                });
+                return;
+            }
+            taskFuture.whenComplete((context, throwable) -> complete(startedEntry, context, throwable));
+            entry = nextQueuedEntry();
+        }
+    }
+
+    private CompletableFuture<ExecutionContext> start(Entry entry) {
+        if (entry.future.isDone()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            entry.taskFuture = entry.task.get();
+        } catch (RuntimeException | Error e) {
+            entry.taskFuture = CompletableFuture.failedFuture(e);
+        }
+        if (cancelled.get()) {
+            entry.taskFuture.cancel(true);
+        }
+        return entry.taskFuture;
+    }
+
+    private void complete(Entry entry, ExecutionContext context, Throwable throwable) {
+        if (entry.future.isDone()) {
+            return;
+        }
+        // added before the future is completed, since allOf() stages run when it completes
+        completedEntries.add(entry);
+        if (throwable == null) {
+            entry.future.complete(context);
+            return;
+        }
+        Throwable cause = unwrap(throwable);
+        entry.future.completeExceptionally(cause);
+        if (!(cause instanceof CancellationException)) {
+            failure(cause);
+            if (failureMode == Parallel.FailureMode.FAIL_FAST) {
+                cancel();
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    private Entry nextQueuedEntry() {
+        synchronized (queuedEntries) {
+            Entry entry = queuedEntries.poll();
+            if (entry == null) {
+                runningEntries--;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Cancel queued and in-flight entries. Entries submitted afterwards are cancelled at once.
+     */
+    public void cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        List<Entry> entries;
+        synchronized (parallelFutures) {
+            entries = new ArrayList<>(parallelFutures);
+        }
+        for (Entry entry : entries) {
+            if (entry.taskFuture != null) {
+                entry.taskFuture.cancel(true);
+            }
+            entry.future.cancel(false);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Cancel the page when the worker is terminated. The registration is removed by {@link #allOf()}.
+     */
+    public PageContext cancelOn(Termination termination) {
+        terminationRegistration = termination.onTerminate(this::cancel);
+        return this;
+    }
+
+    /**
+     * @return a future that completes when every submitted entry has completed, failed or been cancelled
+     */
+    public CompletableFuture<Void> allOf() {
+        CompletableFuture<?>[] futures;
+        synchronized (parallelFutures) {
+            futures = parallelFutures.stream().map(Entry::future).toArray(CompletableFuture[]::new);
+        }
+        return CompletableFuture.allOf(futures).handle((result, throwable) -> {
+            Runnable registration = terminationRegistration;
+            if (registration != null) {
+                registration.run();
+            }
+            return null;
+        });
     }
 
     public List<Entry> parallelPageEntries() {
         return parallelFutures;
     }
 
+    /**
+     * @return entries in split order if ordered, or else in completion order
+     */
+    public List<Entry> publishOrderedPageEntries() {
+        return ordered ? parallelFutures : completedEntries;
+    }
+
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public Parallel.FailureMode failureMode() {
+        return failureMode;
+    }
+
     public List<CompletableFuture<ExecutionContext>> parallelFutures() {
-        return parallelFutures.stream().map(Entry::future).collect(Collectors.toList());
+        synchronized (parallelFutures) {
+            return parallelFutures.stream().map(Entry::future).collect(Collectors.toList());
+        }
     }
 
     public CompletionInfo completionInfo() {
@@ -87,20 +285,40 @@ public class PageContext {
         return failureCause.get() != null;
     }
 
+    /**
+     * Record a failure. The first failure is the failure cause. Siblings are cancelled by entries that fail in
+     * fail fast mode, not by this method.
+     */
     public PageContext failure(Throwable cause) {
-        failureCause.set(cause);
+        failures.add(cause);
+        failureCause.compareAndSet(null, cause);
         return this;
     }
 
+    /**
+     * @return every recorded failure, which is more than one only when errors are collected
+     */
+    public List<Throwable> failures() {
+        return failures;
+    }
+
     public Throwable getFailureCause() {
         return failureCause.get();
     }
 
     public static class Entry {
-        private CompletableFuture<ExecutionContext> future;
+        private final CompletableFuture<ExecutionContext> future;
+        private final Supplier<CompletableFuture<ExecutionContext>> task;
+        private volatile CompletableFuture<ExecutionContext> taskFuture;
 
         public Entry(CompletableFuture<ExecutionContext> future) {
+            this(future, null);
+            this.taskFuture = future;
+        }
+
+        Entry(CompletableFuture<ExecutionContext> future, Supplier<CompletableFuture<ExecutionContext>> task) {
             this.future = future;
+            this.task = task;
         }
 
         public CompletableFuture<ExecutionContext> future() {
@@ -125,6 +343,9 @@ public class PageContext {
         private List<String> expectedPositions;
         private Map<String, String> nextPositionMap = new LinkedHashMap<>();
         private List<String> nextPositionVariableNames;
+        private int maxConcurrency;
+        private boolean ordered = true;
+        private Parallel.FailureMode failureMode = Parallel.FailureMode.FAIL_FAST;
 
         public Builder expectedPositions(List<String> expectedPositions) {
             this.expectedPositions = expectedPositions;
@@ -145,8 +366,30 @@ public class PageContext {
             return this;
         }
 
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        public Builder failureMode(Parallel.FailureMode failureMode) {
+            this.failureMode = failureMode;
+            return this;
+        }
+
+        /**
+         * Take max concurrency, ordering and failure mode from the parallel node
+         */
+        public Builder parallel(Parallel parallel) {
+            return maxConcurrency(parallel.maxConcurrency()).ordered(parallel.isOrdered()).failureMode(parallel.failureMode());
+        }
+
         public PageContext build() {
-            return new PageContext(expectedPositions, nextPositionVariableNames, nextPositionMap);
+            return new PageContext(expectedPositions, nextPositionVariableNames, nextPositionMap, maxConcurrency, ordered, failureMode);
         }
     }
 }
@@ -1,18 +1,14 @@
 package no.ssb.dc.api;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
 import no.ssb.dc.api.node.Configurations;
+import no.ssb.dc.api.node.ExecutionPlan;
 import no.ssb.dc.api.node.Node;
 import no.ssb.dc.api.node.builder.AbstractBuilder;
 import no.ssb.dc.api.node.builder.BuildContext;
-import no.ssb.dc.api.node.builder.NodeBuilderDeserializer;
 import no.ssb.dc.api.node.builder.SpecificationBuilder;
 import no.ssb.dc.api.node.builder.SpecificationContextBuilder;
-import no.ssb.dc.api.util.JsonParser;
+import no.ssb.dc.api.node.builder.SpecificationMapper;
 
-import java.io.IOException;
 import java.util.Map;
 
 public class Specification {
@@ -22,17 +18,19 @@ public class Specification {
     final Configurations configurations;
     final Node startFunction;
     final Map<String, Node> nodeById;
+    final ExecutionPlan executionPlan;
 
     private Specification(String specificationId, String name, Node startFunction, Map<String, Node> nodeById) {
-        this(specificationId, name, new Configurations.Builder().add(new SpecificationContextBuilder().build(BuildContext.empty())).build(), startFunction, nodeById);
+        this(specificationId, name, new Configurations.Builder().add(new SpecificationContextBuilder().build(BuildContext.empty())).build(), startFunction, nodeById, null);
     }
 
-    private Specification(String specificationId, String name, Configurations configurations, Node startFunction, Map<String, Node> nodeById) {
+    private Specification(String specificationId, String name, Configurations configurations, Node startFunction, Map<String, Node> nodeById, ExecutionPlan executionPlan) {
         this.specificationId = specificationId;
         this.name = name;
         this.configurations = configurations;
         this.startFunction = startFunction;
         this.nodeById = nodeById;
+        this.executionPlan = executionPlan;
     }
 
     public static SpecificationBuilder start(String specificationId, String name, String startFunction) {
@@ -44,16 +42,7 @@ public class Specification {
     }
 
     public static <R extends AbstractBuilder> R deserialize(String source, Class<R> builderClass) {
-        try {
-            ObjectMapper mapper = JsonParser.createYamlParser().mapper();
-            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-            SimpleModule module = new SimpleModule();
-            module.addDeserializer(AbstractBuilder.class, new NodeBuilderDeserializer());
-            mapper.registerModule(module);
-            return mapper.readValue(source, builderClass);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return SpecificationMapper.deserialize(source, builderClass);
     }
 
     public static Specification create(String specificationId, String name, Node startFunction, Map<String, Node> nodeById) {
@@ -61,7 +50,11 @@ public class Specification {
     }
 
     public static Specification create(String specificationId, String name, Configurations configurations, Node startFunction, Map<String, Node> nodeById) {
-        return new Specification(specificationId, name, configurations, startFunction, nodeById);
+        return new Specification(specificationId, name, configurations, startFunction, nodeById, null);
+    }
+
+    public static Specification create(String specificationId, String name, Configurations configurations, Node startFunction, Map<String, Node> nodeById, ExecutionPlan executionPlan) {
+        return new Specification(specificationId, name, configurations, startFunction, nodeById, executionPlan);
     }
 
     public String id() {
@@ -76,4 +69,11 @@ public class Specification {
         return startFunction;
     }
 
+    /**
+     * @return the compiled plan, or null if the specification was not built by {@link SpecificationBuilder#end()}
+     */
+    public ExecutionPlan executionPlan() {
+        return executionPlan;
+    }
+
 }
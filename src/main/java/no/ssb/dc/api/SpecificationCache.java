@@ -0,0 +1,213 @@
+package no.ssb.dc.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import no.ssb.dc.api.node.builder.SpecificationBuilder;
+import no.ssb.dc.api.util.CryptoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Built specifications keyed by the SHA-256 hash of their source, so a specification that is scheduled repeatedly is
+ * deserialized and built once.
+ * <p>
+ * The least recently used specification is evicted when maxEntries is exceeded. With a directory, the deserialized
+ * builder is also stored as Smile, which is read much faster than the YAML source after a restart. The file name
+ * holds the format version, so files written by an incompatible version are ignored.
+ * <p>
+ * Every caller gets the same specification instance, so a run should start from
+ * {@link no.ssb.dc.api.node.FlowContext#newRunContext()} rather than write to the shared global context.
+ */
+public class SpecificationCache {
+
+    public static final String CACHE_MAX_ENTRIES_KEY = "specification.cache.max-entries";
+    public static final String CACHE_DIRECTORY_KEY = "specification.cache.directory";
+
+    static final int DEFAULT_MAX_ENTRIES = 64;
+    static final String FORMAT_VERSION = "1";
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpecificationCache.class);
+
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+
+    private final int maxEntries;
+    private final Path directory;
+    private final Map<String, CompletableFuture<Specification>> specifications; // guarded by this
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong diskHitCount = new AtomicLong();
+
+    public SpecificationCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * @param directory where built specifications are stored, or null to keep them in memory only
+     */
+    public SpecificationCache(int maxEntries, Path directory) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.directory = directory;
+        this.specifications = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Specification>> eldest) {
+                return size() > SpecificationCache.this.maxEntries;
+            }
+        };
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public static SpecificationCache of(ConfigurationMap configuration) {
+        int maxEntries = configuration != null && configuration.contains(CACHE_MAX_ENTRIES_KEY) ?
+                Integer.parseInt(configuration.get(CACHE_MAX_ENTRIES_KEY)) : DEFAULT_MAX_ENTRIES;
+        Path directory = configuration != null && configuration.contains(CACHE_DIRECTORY_KEY) ?
+                Path.of(configuration.get(CACHE_DIRECTORY_KEY)) : null;
+        return new SpecificationCache(maxEntries, directory);
+    }
+
+    public static String key(String source) {
+        return CryptoUtils.sha256Hex(source);
+    }
+
+    /**
+     * Get the built specification for the source. Concurrent callers with the same source wait for one build.
+     */
+    public Specification get(String source) {
+        String key = key(source);
+        CompletableFuture<Specification> future;
+        boolean owner = false;
+        synchronized (this) {
+            future = specifications.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                specifications.put(key, future);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            hitCount.incrementAndGet();
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        missCount.incrementAndGet();
+        try {
+            Specification specification = load(key, source).end();
+            future.complete(specification);
+            return specification;
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                specifications.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private SpecificationBuilder load(String key, String source) {
+        if (directory == null) {
+            return Specification.deserialize(source);
+        }
+        Path file = file(key);
+        Optional<SpecificationBuilder> stored = read(file);
+        if (stored.isPresent()) {
+            diskHitCount.incrementAndGet();
+            return stored.get();
+        }
+        SpecificationBuilder builder = Specification.deserialize(source);
+        write(file, builder);
+        return builder;
+    }
+
+    private Optional<SpecificationBuilder> read(Path file) {
+        try {
+            return Optional.of(SMILE_MAPPER.readValue(Files.readAllBytes(file), SpecificationBuilder.class));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to read cached specification: {}. The source will be deserialized.", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private void write(Path file, SpecificationBuilder builder) {
+        Path tempFile = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            Files.write(tempFile, SMILE_MAPPER.writeValueAsBytes(builder));
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to store cached specification: {}", file, e);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    Path file(String key) {
+        return directory.resolve(key + ".v" + FORMAT_VERSION + ".smile");
+    }
+
+    public synchronized void invalidate(String source) {
+        specifications.remove(key(source));
+    }
+
+    public synchronized void clear() {
+        specifications.clear();
+    }
+
+    public synchronized int size() {
+        return specifications.size();
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    public long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return misses that were served from the directory rather than the source
+     */
+    public long diskHitCount() {
+        return diskHitCount.get();
+    }
+}
@@ -1,22 +1,44 @@
 package no.ssb.dc.api;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Termination {
 
     private final AtomicBoolean terminated = new AtomicBoolean(false);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
 
     private Termination() {
     }
 
     public void terminate() {
-        terminated.set(true);
+        if (terminated.compareAndSet(false, true)) {
+            for (Runnable listener : listeners) {
+                if (listeners.remove(listener)) {
+                    listener.run();
+                }
+            }
+        }
     }
 
     public boolean isTerminated() {
         return terminated.get();
     }
 
+    /**
+     * Run the listener on terminate, or at once if already terminated.
+     *
+     * @return a handle that removes the listener
+     */
+    public Runnable onTerminate(Runnable listener) {
+        listeners.add(listener);
+        if (terminated.get() && listeners.remove(listener)) {
+            listener.run();
+        }
+        return () -> listeners.remove(listener);
+    }
+
     public static Termination create() {
         return new Termination();
     }
@@ -0,0 +1,292 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.rawdata.api.RawdataMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A content store that records the last published position of every topic in a {@link PositionCheckpointIndex}, and
+ * resolves lastPosition from the index before falling back to the underlying store.
+ */
+public class CheckpointedContentStore implements ContentStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckpointedContentStore.class);
+
+    private final ContentStore delegate;
+    private final PositionCheckpointIndex index;
+    private final List<Consumer<String>> publishListeners = new CopyOnWriteArrayList<>();
+
+    public CheckpointedContentStore(ContentStore delegate, PositionCheckpointIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    public ContentStore delegate() {
+        return delegate;
+    }
+
+    @Override
+    public void lock(String topic) {
+        delegate.lock(topic);
+    }
+
+    @Override
+    public void unlock(String topic) {
+        delegate.unlock(topic);
+    }
+
+    @Override
+    public ContentStream contentStream() {
+        ContentStream contentStream = delegate.contentStream();
+        return contentStream == null ? null : new CheckpointedContentStream(contentStream, index, this::published);
+    }
+
+    @Override
+    public String lastPosition(String topic) {
+        return index.lastPosition(topic, delegate::lastPosition);
+    }
+
+    @Override
+    public Set<String> contentKeys(String topic, String position) {
+        return delegate.contentKeys(topic, position);
+    }
+
+    @Override
+    public void addPaginationDocument(String topic, String position, String contentKey, byte[] content, HttpRequestInfo httpRequestInfo) {
+        delegate.addPaginationDocument(topic, position, contentKey, content, httpRequestInfo);
+    }
+
+    @Override
+    public void addPaginationDocument(String topic, String position, String contentKey, ByteBuffer content, HttpRequestInfo httpRequestInfo) {
+        delegate.addPaginationDocument(topic, position, contentKey, content, httpRequestInfo);
+    }
+
+    @Override
+    public void bufferPaginationEntryDocument(String topic, String position, String contentKey, byte[] content, HttpRequestInfo httpRequestInfo, Map<String, Object> state) {
+        delegate.bufferPaginationEntryDocument(topic, position, contentKey, content, httpRequestInfo, state);
+    }
+
+    @Override
+    public void bufferPaginationEntryDocument(String topic, String position, String contentKey, ByteBuffer content, HttpRequestInfo httpRequestInfo, Map<String, Object> state) {
+        delegate.bufferPaginationEntryDocument(topic, position, contentKey, content, httpRequestInfo, state);
+    }
+
+    @Override
+    public void bufferDocument(String topic, String position, String contentKey, byte[] content, HttpRequestInfo httpRequestInfo) {
+        delegate.bufferDocument(topic, position, contentKey, content, httpRequestInfo);
+    }
+
+    @Override
+    public void bufferDocument(String topic, String position, String contentKey, ByteBuffer content, HttpRequestInfo httpRequestInfo) {
+        delegate.bufferDocument(topic, position, contentKey, content, httpRequestInfo);
+    }
+
+    @Override
+    public void publish(String topic, String... position) {
+        try {
+            if (position.length == 0) {
+                delegate.publish(topic, position);
+                return;
+            }
+            String lastPosition = position[position.length - 1];
+            prepare(topic, lastPosition);
+            delegate.publish(topic, position);
+            commit(topic, lastPosition);
+        } finally {
+            published(topic);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> publishAsync(String topic, String... position) {
+        if (position.length == 0) {
+            return delegate.publishAsync(topic, position).whenComplete((result, throwable) -> published(topic));
+        }
+        String lastPosition = position[position.length - 1];
+        prepare(topic, lastPosition);
+        return delegate.publishAsync(topic, position)
+                .thenRun(() -> commit(topic, lastPosition))
+                .whenComplete((result, throwable) -> published(topic));
+    }
+
+    /**
+     * Publishes made through this store and through producers of its content stream are notified
+     */
+    @Override
+    public Runnable onPublish(Consumer<String> listener) {
+        publishListeners.add(listener);
+        return () -> publishListeners.remove(listener);
+    }
+
+    private void published(String topic) {
+        for (Consumer<String> listener : publishListeners) {
+            listener.accept(topic);
+        }
+    }
+
+    private void prepare(String topic, String position) {
+        try {
+            index.prepare(topic, position);
+        } catch (UncheckedIOException e) {
+            LOG.warn("Unable to prepare position checkpoint for topic: {}. lastPosition will be resolved by scan.", topic, e);
+        }
+    }
+
+    private void commit(String topic, String position) {
+        try {
+            index.commit(topic, position);
+        } catch (UncheckedIOException e) {
+            LOG.warn("Unable to commit position checkpoint for topic: {}. lastPosition will be resolved by scan.", topic, e);
+        }
+    }
+
+    /*
+     * A checkpoint that cannot be removed is held as stale by the index, so lastPosition is resolved by scan
+     */
+    static void invalidate(PositionCheckpointIndex index, String topic) {
+        try {
+            index.invalidate(topic);
+        } catch (UncheckedIOException e) {
+            LOG.warn("Unable to invalidate position checkpoint for topic: {}. lastPosition will be resolved by scan.", topic, e);
+        }
+    }
+
+    @Override
+    public HealthContentStreamMonitor monitor() {
+        return delegate.monitor();
+    }
+
+    @Override
+    public ContentStoreCapacity capacity() {
+        return delegate.capacity();
+    }
+
+    @Override
+    public ManifestCodec manifestCodec() {
+        return delegate.manifestCodec();
+    }
+
+    @Override
+    public void closeTopic(String topic) {
+        delegate.closeTopic(topic);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+
+    static class CheckpointedContentStream implements ContentStream {
+
+        private final ContentStream delegate;
+        private final PositionCheckpointIndex index;
+        private final Consumer<String> published;
+
+        CheckpointedContentStream(ContentStream delegate, PositionCheckpointIndex index, Consumer<String> published) {
+            this.delegate = delegate;
+            this.index = index;
+            this.published = published;
+        }
+
+        @Override
+        public String lastPosition(String topic) {
+            return index.lastPosition(topic, delegate::lastPosition);
+        }
+
+        @Override
+        public ContentStreamBuffer lastMessage(String topic) {
+            return delegate.lastMessage(topic);
+        }
+
+        /**
+         * Messages published directly to a producer bypass the index, so the checkpoint of the topic is invalidated
+         */
+        @Override
+        public ContentStreamProducer producer(String topic) {
+            return new CheckpointInvalidatingProducer(delegate.producer(topic), () -> invalidate(index, topic), () -> published.accept(topic));
+        }
+
+        @Override
+        public ContentStreamConsumer consumer(String topic, ContentStreamCursor cursor) {
+            return delegate.consumer(topic, cursor);
+        }
+
+        @Override
+        public void closeAndRemoveProducer(String topic) {
+            delegate.closeAndRemoveProducer(topic);
+        }
+
+        @Override
+        public void closeAndRemoveConsumer(String topic) {
+            delegate.closeAndRemoveConsumer(topic);
+        }
+
+        @Override
+        public void close() throws Exception {
+            delegate.close();
+        }
+    }
+
+    static class CheckpointInvalidatingProducer implements ContentStreamProducer {
+
+        private final ContentStreamProducer delegate;
+        private final Runnable invalidate;
+        private final Runnable published;
+
+        CheckpointInvalidatingProducer(ContentStreamProducer delegate, Runnable invalidate, Runnable published) {
+            this.delegate = delegate;
+            this.invalidate = invalidate;
+            this.published = published;
+        }
+
+        @Override
+        public ContentStreamBuffer.Builder builder() {
+            return delegate.builder();
+        }
+
+        @Override
+        public RawdataMessage copy(ContentStreamBuffer buffer) {
+            return delegate.copy(buffer);
+        }
+
+        @Override
+        public RawdataMessage produce(ContentStreamBuffer.Builder bufferBuilder) {
+            return delegate.produce(bufferBuilder);
+        }
+
+        @Override
+        public void publish(RawdataMessage... rawdataMessages) {
+            invalidate.run();
+            try {
+                delegate.publish(rawdataMessages);
+            } finally {
+                published.run();
+            }
+        }
+
+        @Override
+        public CompletableFuture<Void> publishAsync(RawdataMessage... rawdataMessages) {
+            invalidate.run();
+            return delegate.publishAsync(rawdataMessages).whenComplete((result, throwable) -> published.run());
+        }
+
+        @Override
+        public void close() throws Exception {
+            delegate.close();
+        }
+    }
+}
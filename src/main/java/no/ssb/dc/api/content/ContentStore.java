@@ -1,7 +1,12 @@
 package no.ssb.dc.api.content;
 
+import no.ssb.dc.api.util.ByteBufferUtils;
+
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface ContentStore extends AutoCloseable {
 
@@ -17,14 +22,69 @@ public interface ContentStore extends AutoCloseable {
 
     void addPaginationDocument(String topic, String position, String contentKey, byte[] content, HttpRequestInfo httpRequestInfo);
 
+    default void addPaginationDocument(String topic, String position, String contentKey, ByteBuffer content, HttpRequestInfo httpRequestInfo) {
+        addPaginationDocument(topic, position, contentKey, ByteBufferUtils.toByteArray(content), httpRequestInfo);
+    }
+
     void bufferPaginationEntryDocument(String topic, String position, String contentKey, byte[] content, HttpRequestInfo httpRequestInfo, Map<String, Object> state);
 
+    /**
+     * Buffer the remaining bytes of content. Implementations that hold buffered content off-heap, see
+     * {@link DirectBufferPool}, override this to avoid the heap copy made by the default.
+     */
+    default void bufferPaginationEntryDocument(String topic, String position, String contentKey, ByteBuffer content, HttpRequestInfo httpRequestInfo, Map<String, Object> state) {
+        bufferPaginationEntryDocument(topic, position, contentKey, ByteBufferUtils.toByteArray(content), httpRequestInfo, state);
+    }
+
     void bufferDocument(String topic, String position, String contentKey, byte[] content, HttpRequestInfo httpRequestInfo);
 
+    default void bufferDocument(String topic, String position, String contentKey, ByteBuffer content, HttpRequestInfo httpRequestInfo) {
+        bufferDocument(topic, position, contentKey, ByteBufferUtils.toByteArray(content), httpRequestInfo);
+    }
+
     void publish(String topic, String... position);
 
+    /**
+     * Publish positions without blocking the caller. The future completes when every position is durable, and
+     * completes exceptionally if any of them could not be written. Implementations may coalesce positions from many
+     * calls into one backend write, see {@link GroupCommitPublisher}. The default publishes synchronously.
+     */
+    default CompletableFuture<Void> publishAsync(String topic, String... position) {
+        try {
+            publish(topic, position);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Call listener with the topic of every publish when it has completed, see {@link LastPositionResolver}. The
+     * default does not notify publishes.
+     *
+     * @return a runnable that removes the listener, or null if publishes are not notified
+     */
+    default Runnable onPublish(Consumer<String> listener) {
+        return null;
+    }
+
     HealthContentStreamMonitor monitor();
 
+    /**
+     * Capacity for in-flight positions and buffered bytes, see {@link WatermarkCapacity}. The default is unbounded.
+     */
+    default ContentStoreCapacity capacity() {
+        return ContentStoreCapacity.unbounded();
+    }
+
+    /**
+     * Codec used to store the manifest of buffered content, see {@link ManifestCodec#of(no.ssb.dc.api.ConfigurationMap)}.
+     * The default is json.
+     */
+    default ManifestCodec manifestCodec() {
+        return ManifestCodec.json();
+    }
+
     void closeTopic(String topic);
 
     boolean isClosed();
@@ -0,0 +1,99 @@
+package no.ssb.dc.api.content;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Backpressure contract between pagination and a content store.
+ * <p>
+ * A permit is acquired for every position before it is buffered, bytes are added to the permit as documents are
+ * buffered, and the permit is released when the position has been published. Acquire blocks, or the returned future
+ * is delayed, while the store holds more than it can take.
+ */
+public interface ContentStoreCapacity {
+
+    /**
+     * Acquire a permit for a new position, blocking while the store is at capacity
+     */
+    Permit acquire() throws InterruptedException;
+
+    /**
+     * Acquire a permit for a new position if the store is below capacity
+     */
+    Optional<Permit> tryAcquire();
+
+    /**
+     * @return a future that completes with a permit when the store has capacity for a new position
+     */
+    CompletableFuture<Permit> acquireAsync();
+
+    /**
+     * @return true if new positions are currently held back
+     */
+    boolean isPaused();
+
+    /**
+     * Adjust a configured prefetch threshold to the current capacity. Pagination should not prefetch more than the
+     * returned number of positions, and not prefetch at all when zero is returned.
+     */
+    int prefetchThreshold(int configuredThreshold);
+
+    interface Permit {
+
+        void addBytes(long bytes);
+
+        long bytes();
+
+        void release();
+    }
+
+    static ContentStoreCapacity unbounded() {
+        return Unbounded.INSTANCE;
+    }
+
+    final class Unbounded implements ContentStoreCapacity, Permit {
+
+        static final Unbounded INSTANCE = new Unbounded();
+
+        private Unbounded() {
+        }
+
+        @Override
+        public Permit acquire() {
+            return this;
+        }
+
+        @Override
+        public Optional<Permit> tryAcquire() {
+            return Optional.of(this);
+        }
+
+        @Override
+        public CompletableFuture<Permit> acquireAsync() {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public boolean isPaused() {
+            return false;
+        }
+
+        @Override
+        public int prefetchThreshold(int configuredThreshold) {
+            return configuredThreshold;
+        }
+
+        @Override
+        public void addBytes(long bytes) {
+        }
+
+        @Override
+        public long bytes() {
+            return 0;
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+}
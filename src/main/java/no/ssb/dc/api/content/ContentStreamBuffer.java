@@ -1,7 +1,9 @@
 package no.ssb.dc.api.content;
 
 import de.huxhorn.sulky.ulid.ULID;
+import no.ssb.dc.api.util.ByteBufferUtils;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -20,6 +22,14 @@ public interface ContentStreamBuffer {
 
     byte[] get(String contentKey);
 
+    /**
+     * @return a read-only view of the content, or null if there is no content for the key
+     */
+    default ByteBuffer getByteBuffer(String contentKey) {
+        byte[] content = get(contentKey);
+        return content == null ? null : ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+
     Map<String, byte[]> data();
 
     List<MetadataContent> manifest();
@@ -34,10 +44,26 @@ public interface ContentStreamBuffer {
 
         ContentStreamBuffer.Builder put(String key, byte[] payload);
 
+        /**
+         * Put the remaining bytes of the payload. The default copies them to the heap, see {@link PooledContentStreamBuffer}.
+         */
+        default ContentStreamBuffer.Builder put(String key, ByteBuffer payload) {
+            return put(key, ByteBufferUtils.toByteArray(payload));
+        }
+
         Builder buffer(String contentKey, byte[] content, MetadataContent manifest);
 
+        default Builder buffer(String contentKey, ByteBuffer content, MetadataContent manifest) {
+            return buffer(contentKey, ByteBufferUtils.toByteArray(content), manifest);
+        }
+
         byte[] get(String contentKey);
 
+        default ByteBuffer getByteBuffer(String contentKey) {
+            byte[] content = get(contentKey);
+            return content == null ? null : ByteBuffer.wrap(content).asReadOnlyBuffer();
+        }
+
         Set<String> keys();
 
         List<MetadataContent> manifest();
@@ -3,6 +3,7 @@ package no.ssb.dc.api.content;
 import no.ssb.rawdata.api.RawdataMessage;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface ContentStreamProducer extends AutoCloseable {
 
@@ -24,4 +25,17 @@ public interface ContentStreamProducer extends AutoCloseable {
 
     void publish(RawdataMessage... rawdataMessages);
 
+    /**
+     * Publish messages without blocking the caller. The future completes when every message is durable. The default
+     * publishes synchronously.
+     */
+    default CompletableFuture<Void> publishAsync(RawdataMessage... rawdataMessages) {
+        try {
+            publish(rawdataMessages);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
 }
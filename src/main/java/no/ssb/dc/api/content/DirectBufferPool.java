@@ -0,0 +1,323 @@
+package no.ssb.dc.api.content;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A pool of direct memory used to hold buffered content until its position is published.
+ * <p>
+ * Direct memory is allocated lazily in slabs of fixed size chunks. A payload is held in a run of adjacent chunks
+ * of one slab, so it can always be viewed as one contiguous buffer. A payload larger than a slab gets a dedicated
+ * direct buffer, which counts towards maxDirectBytes until it is released. When no run is available within
+ * maxDirectBytes, payloads are written to a spill file and read back through a mapping that is created once per
+ * payload. The space of released spilled payloads is reused first fit, and the spill file is deleted when all its
+ * payloads are released, so the file does not outgrow the spilled payloads in flight. Neither direct nor spilled
+ * payloads are retained on the heap.
+ */
+public class DirectBufferPool implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+    public static final long DEFAULT_MAX_DIRECT_BYTES = 256L * 1024 * 1024;
+
+    private final int chunkSize;
+    private final int slabSize;
+    private final long maxDirectBytes;
+    private final Path spillDirectory;
+    private final int chunksPerSlab;
+    private final List<Slab> slabs = new ArrayList<>();
+    private long allocatedDirectBytes;
+    private long directBytesInUse;
+    private SpillFile spillFile;
+    private boolean closed;
+
+    public DirectBufferPool() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_SLAB_SIZE, DEFAULT_MAX_DIRECT_BYTES, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    public DirectBufferPool(int chunkSize, int slabSize, long maxDirectBytes, Path spillDirectory) {
+        if (chunkSize < 1 || slabSize < chunkSize || slabSize % chunkSize != 0) {
+            throw new IllegalArgumentException("slabSize must be a positive multiple of chunkSize: " + slabSize + "/" + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.slabSize = slabSize;
+        this.chunksPerSlab = slabSize / chunkSize;
+        this.maxDirectBytes = maxDirectBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public PooledPayload allocate(byte[] content) {
+        return allocate(ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Copies the remaining bytes of content into the pool without moving its position
+     */
+    public PooledPayload allocate(ByteBuffer content) {
+        ByteBuffer source = content.duplicate();
+        int length = source.remaining();
+        Allocation allocation = take(length);
+        if (allocation == null) {
+            return new PooledPayload(this, length, null, spill(source, length));
+        }
+        allocation.buffer.put(source);
+        allocation.buffer.flip();
+        return new PooledPayload(this, length, allocation, null);
+    }
+
+    private synchronized Allocation take(int length) {
+        if (closed) {
+            throw new ClosedContentStreamException("Buffer pool is closed");
+        }
+        int chunkCount = Math.max(1, (length + chunkSize - 1) / chunkSize);
+        long requiredBytes = (long) chunkCount * chunkSize;
+        if (chunkCount > chunksPerSlab) {
+            if (allocatedDirectBytes + requiredBytes > maxDirectBytes) {
+                return null;
+            }
+            allocatedDirectBytes += requiredBytes;
+            directBytesInUse += requiredBytes;
+            return new Allocation(null, 0, chunkCount, ByteBuffer.allocateDirect(length));
+        }
+        for (Slab slab : slabs) {
+            Allocation allocation = slab.take(chunkCount, length);
+            if (allocation != null) {
+                directBytesInUse += requiredBytes;
+                return allocation;
+            }
+        }
+        if (allocatedDirectBytes + slabSize > maxDirectBytes) {
+            return null;
+        }
+        Slab slab = new Slab(ByteBuffer.allocateDirect(slabSize));
+        slabs.add(slab);
+        allocatedDirectBytes += slabSize;
+        directBytesInUse += requiredBytes;
+        return slab.take(chunkCount, length);
+    }
+
+    synchronized void release(Allocation allocation) {
+        if (closed) {
+            return;
+        }
+        long releasedBytes = (long) allocation.chunkCount * chunkSize;
+        if (allocation.slab == null) {
+            // the dedicated buffer is freed when it is collected
+            allocatedDirectBytes -= releasedBytes;
+        } else {
+            allocation.slab.used.clear(allocation.firstChunk, allocation.firstChunk + allocation.chunkCount);
+        }
+        directBytesInUse -= releasedBytes;
+    }
+
+    private SpillRegion spill(ByteBuffer source, int length) {
+        SpillFile file;
+        long offset;
+        synchronized (this) {
+            if (spillFile == null) {
+                spillFile = new SpillFile(openSpillChannel());
+            }
+            file = spillFile;
+            offset = file.reserve(length);
+        }
+        try {
+            long position = offset;
+            while (source.hasRemaining()) {
+                position += file.channel.write(source, position);
+            }
+            return new SpillRegion(file, offset, length, file.channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+        } catch (IOException e) {
+            releaseSpilled(file, offset, length);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private FileChannel openSpillChannel() {
+        try {
+            Path file = Files.createTempFile(spillDirectory, "content-buffer-", ".spill");
+            return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void release(SpillRegion region) {
+        releaseSpilled(region.file, region.offset, region.length);
+    }
+
+    /*
+     * A spill file without payloads is closed, which deletes it. Mappings of its payloads stay valid until they are
+     * collected.
+     */
+    private synchronized void releaseSpilled(SpillFile file, long offset, int length) {
+        if (closed) {
+            return;
+        }
+        file.free(offset, length);
+        if (file.liveBytes == 0) {
+            if (spillFile == file) {
+                spillFile = null;
+            }
+            try {
+                file.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public synchronized long allocatedDirectBytes() {
+        return allocatedDirectBytes;
+    }
+
+    public synchronized long directBytesInUse() {
+        return directBytesInUse;
+    }
+
+    /**
+     * @return bytes of spilled payloads that have not been released
+     */
+    public synchronized long spilledBytes() {
+        return spillFile == null ? 0 : spillFile.liveBytes;
+    }
+
+    /**
+     * @return the size of the current spill file
+     */
+    public synchronized long spillFileBytes() {
+        return spillFile == null ? 0 : spillFile.end;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        slabs.clear();
+        if (spillFile != null) {
+            try {
+                spillFile.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spillFile = null;
+        }
+    }
+
+    class Slab {
+        final ByteBuffer memory;
+        final BitSet used = new BitSet(chunksPerSlab);
+
+        Slab(ByteBuffer memory) {
+            this.memory = memory;
+        }
+
+        /*
+         * First fit of a run of free chunks
+         */
+        Allocation take(int chunkCount, int length) {
+            int first = used.nextClearBit(0);
+            while (first + chunkCount <= chunksPerSlab) {
+                int nextUsed = used.nextSetBit(first);
+                if (nextUsed == -1 || nextUsed - first >= chunkCount) {
+                    used.set(first, first + chunkCount);
+                    ByteBuffer buffer = memory.duplicate();
+                    buffer.limit(first * chunkSize + length).position(first * chunkSize);
+                    return new Allocation(this, first, chunkCount, buffer.slice());
+                }
+                first = used.nextClearBit(nextUsed);
+            }
+            return null;
+        }
+    }
+
+    static class SpillFile {
+        final FileChannel channel;
+        final TreeMap<Long, Long> freeExtents = new TreeMap<>();
+        long end;
+        long liveBytes;
+
+        SpillFile(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long reserve(int length) {
+            liveBytes += length;
+            for (Map.Entry<Long, Long> extent : freeExtents.entrySet()) {
+                if (extent.getValue() >= length) {
+                    long offset = extent.getKey();
+                    freeExtents.remove(offset);
+                    if (extent.getValue() > length) {
+                        freeExtents.put(offset + length, extent.getValue() - length);
+                    }
+                    return offset;
+                }
+            }
+            long offset = end;
+            end += length;
+            return offset;
+        }
+
+        void free(long offset, long length) {
+            liveBytes -= length;
+            Map.Entry<Long, Long> before = freeExtents.floorEntry(offset);
+            if (before != null && before.getKey() + before.getValue() == offset) {
+                freeExtents.remove(before.getKey());
+                offset = before.getKey();
+                length += before.getValue();
+            }
+            Long after = freeExtents.remove(offset + length);
+            if (after != null) {
+                length += after;
+            }
+            if (offset + length == end) {
+                end = offset;
+            } else {
+                freeExtents.put(offset, length);
+            }
+        }
+    }
+
+    static class SpillRegion {
+        final SpillFile file;
+        final long offset;
+        final int length;
+        final ByteBuffer mapping;
+
+        SpillRegion(SpillFile file, long offset, int length, ByteBuffer mapping) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.mapping = mapping;
+        }
+    }
+
+    static class Allocation {
+        final Slab slab;
+        final int firstChunk;
+        final int chunkCount;
+        final ByteBuffer buffer;
+
+        Allocation(Slab slab, int firstChunk, int chunkCount, ByteBuffer buffer) {
+            this.slab = slab;
+            this.firstChunk = firstChunk;
+            this.chunkCount = chunkCount;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -43,11 +43,13 @@ public class EvaluateLastContentStreamPosition {
             /*
              * This call will trigger content-store to seek for lastPosition the first time.
              * The GCS Provider scans all avro segments in bucket in order to resolves lastPosition, which takes unkown amount of time.
-             * It is i,portant that we only invoke get lastPosition once during initialization.
+             * It is i,portant that we only invoke get lastPosition once during initialization, so positions are memoized
+             * per topic by the LastPositionResolver of the worker until the next publish.
+             * A content-store wrapped by CheckpointedContentStore resolves lastPosition from its PositionCheckpointIndex
+             * and only scans when the checkpoint is missing or stale.
              */
-            String lastPosition = contentStore.lastPosition(topic);
-
-            HealthResourceUtils.updateMonitorLastPosition(context, lastPosition);
+            String lastPosition = LastPositionResolver.of(context.services(), contentStore)
+                    .lastPosition(topic, resolvedPosition -> HealthResourceUtils.updateMonitorLastPosition(context, resolvedPosition));
 
             return lastPosition;
 
@@ -0,0 +1,185 @@
+package no.ssb.dc.api.content;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces elements published from many pages into batched backend writes.
+ * <p>
+ * A batch is written when it holds maxBatchSize elements, or when maxLinger has elapsed since its first element was
+ * enqueued. Elements are written in the order they were published. The future of an element completes after the
+ * write that contains it has returned, and completes exceptionally if that write fails, so durability is reported
+ * per element even though writes are shared.
+ * <p>
+ * Content store implementations keep one publisher per topic and use it to back
+ * {@link ContentStore#publishAsync(String, String...)} and {@link ContentStreamProducer#publishAsync(no.ssb.rawdata.api.RawdataMessage...)}.
+ */
+public class GroupCommitPublisher<T> implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    public static final Duration DEFAULT_MAX_LINGER = Duration.ofMillis(5);
+
+    private static final Logger LOG = LoggerFactory.getLogger(GroupCommitPublisher.class);
+
+    private final Pending<T> closeMarker = new Pending<>(null, 0);
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final BatchWriter<T> writer;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final HealthContentStreamMonitor monitor;
+    private final Thread committer;
+    private volatile boolean closed;
+
+    public GroupCommitPublisher(String name, BatchWriter<T> writer, HealthContentStreamMonitor monitor) {
+        this(name, writer, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER, monitor);
+    }
+
+    public GroupCommitPublisher(String name, BatchWriter<T> writer, int maxBatchSize, Duration maxLinger, HealthContentStreamMonitor monitor) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.monitor = monitor;
+        this.committer = new Thread(this::commitLoop, "group-commit-" + name);
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    public CompletableFuture<T> publishAsync(T element) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new ClosedContentStreamException("Publisher is closed"));
+        }
+        Pending<T> pending = new Pending<>(element, System.nanoTime());
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            pending.future.completeExceptionally(new ClosedContentStreamException("Publisher is closed"));
+        }
+        return pending.future;
+    }
+
+    /**
+     * @return a future that completes when every element has been written
+     */
+    @SafeVarargs
+    public final CompletableFuture<Void> publishAsync(T... elements) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            futures[i] = publishAsync(elements[i]);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration maxLinger() {
+        return Duration.ofNanos(maxLingerNanos);
+    }
+
+    private void commitLoop() {
+        List<Pending<T>> batch = new ArrayList<>(Math.min(maxBatchSize, 1024));
+        try {
+            while (true) {
+                Pending<T> first = queue.take();
+                if (first == closeMarker) {
+                    return;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + maxLingerNanos;
+                boolean closing = false;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == closeMarker) {
+                        closing = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+                batch.clear();
+                if (closing) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(batch, new ClosedContentStreamException("Publisher was interrupted", e));
+        } finally {
+            List<Pending<T>> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            remaining.remove(closeMarker);
+            fail(remaining, new ClosedContentStreamException("Publisher is closed"));
+        }
+    }
+
+    private void commit(List<Pending<T>> batch) {
+        List<T> elements = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            elements.add(pending.element);
+        }
+        try {
+            writer.write(elements);
+        } catch (Throwable e) {
+            LOG.error("Group commit of {} elements failed", elements.size(), e);
+            fail(batch, e);
+            return;
+        }
+        if (monitor != null) {
+            long latencyNanos = System.nanoTime() - batch.get(0).enqueuedNanos;
+            monitor.updateLastPublishBatch(batch.size(), TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+        for (Pending<T> pending : batch) {
+            pending.future.complete(pending.element);
+        }
+    }
+
+    private static <T> void fail(List<Pending<T>> batch, Throwable cause) {
+        for (Pending<T> pending : batch) {
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Writes the elements that have been published so far and stops the publisher
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(closeMarker);
+        committer.join();
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    static class Pending<T> {
+        final T element;
+        final long enqueuedNanos;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Pending(T element, long enqueuedNanos) {
+            this.element = element;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
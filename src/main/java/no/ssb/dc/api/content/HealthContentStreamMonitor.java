@@ -38,6 +38,12 @@ public class HealthContentStreamMonitor {
     final AtomicLong lastPublishWriteDurationRef = new AtomicLong(0);
     final AtomicLong aggregatedPublishWriteDurationRef = new AtomicLong(0);
 
+    final AtomicLong publishBatchCountRef = new AtomicLong(0);
+    final AtomicLong lastPublishBatchSizeRef = new AtomicLong(0);
+    final AtomicLong aggregatedPublishBatchSizeRef = new AtomicLong(0);
+    final AtomicLong lastPublishBatchLatencyRef = new AtomicLong(0);
+    final AtomicLong aggregatedPublishBatchLatencyRef = new AtomicLong(0);
+
     public HealthContentStreamMonitor(Supplier<Boolean> contentStreamClosedCallback, Supplier<Integer> activePositionCountSupplier, Supplier<Integer> activeBufferCountSupplier) {
         this.contentStreamClosedCallback = contentStreamClosedCallback;
         this.activePositionCountSupplier = activePositionCountSupplier;
@@ -109,6 +115,18 @@ public class HealthContentStreamMonitor {
         aggregatedPublishWriteDurationRef.addAndGet(durationInMillis);
     }
 
+    public long publishedCount() {
+        return publishedCountRef.get();
+    }
+
+    public void updateLastPublishBatch(int batchSize, long latencyInMillis) {
+        publishBatchCountRef.incrementAndGet();
+        lastPublishBatchSizeRef.set(batchSize);
+        aggregatedPublishBatchSizeRef.addAndGet(batchSize);
+        lastPublishBatchLatencyRef.set(latencyInMillis);
+        aggregatedPublishBatchLatencyRef.addAndGet(latencyInMillis);
+    }
+
     public ContentStreamInfo build() {
         return new ContentStreamInfo(
                 lastSeenTimestampRef.get() == 0L ? null : Instant.ofEpochMilli(lastSeenTimestampRef.get()).toString(),
@@ -130,7 +148,12 @@ public class HealthContentStreamMonitor {
                 lastPublishedBufferCountRef.get(),
                 publishedPositionCountRef.get(),
                 lastPublishWriteDurationRef.get(),
-                Math.round(HealthResourceUtils.divide(aggregatedPublishWriteDurationRef.get(), publishedCountRef.get())));
+                Math.round(HealthResourceUtils.divide(aggregatedPublishWriteDurationRef.get(), publishedCountRef.get())),
+                publishBatchCountRef.get(),
+                lastPublishBatchSizeRef.get(),
+                Math.round(HealthResourceUtils.divide(aggregatedPublishBatchSizeRef.get(), publishBatchCountRef.get())),
+                lastPublishBatchLatencyRef.get(),
+                Math.round(HealthResourceUtils.divide(aggregatedPublishBatchLatencyRef.get(), publishBatchCountRef.get())));
     }
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -161,6 +184,12 @@ public class HealthContentStreamMonitor {
         @JsonProperty("last-published-position-write-duration-millis") public final Long lastPublishWriteDuration;
         @JsonProperty("avg-published-position-write-duration-millis") public final Integer averagePublishWriteDuration;
 
+        @JsonProperty("publish-batch-count") public final Long publishBatchCount;
+        @JsonProperty("last-publish-batch-size") public final Long lastPublishBatchSize;
+        @JsonProperty("avg-publish-batch-size") public final Integer averagePublishBatchSize;
+        @JsonProperty("last-publish-batch-latency-millis") public final Long lastPublishBatchLatency;
+        @JsonProperty("avg-publish-batch-latency-millis") public final Integer averagePublishBatchLatency;
+
         ContentStreamInfo(String lastSeenTimestamp,
                           Long paginationDocumentCount,
                           Integer averagePaginationDocumentSize,
@@ -180,7 +209,12 @@ public class HealthContentStreamMonitor {
                           Long lastPublishedBufferCount,
                           Long publishedPositionCount,
                           Long lastPublishWriteDuration,
-                          Integer averagePublishWriteDuration
+                          Integer averagePublishWriteDuration,
+                          Long publishBatchCount,
+                          Long lastPublishBatchSize,
+                          Integer averagePublishBatchSize,
+                          Long lastPublishBatchLatency,
+                          Integer averagePublishBatchLatency
         ) {
             this.lastSeenTimestamp = lastSeenTimestamp;
             this.activePositionCount = activePositionCount;
@@ -202,6 +236,11 @@ public class HealthContentStreamMonitor {
             this.publishedPositionCount = publishedPositionCount;
             this.lastPublishWriteDuration = lastPublishWriteDuration;
             this.averagePublishWriteDuration = averagePublishWriteDuration;
+            this.publishBatchCount = publishBatchCount;
+            this.lastPublishBatchSize = lastPublishBatchSize;
+            this.averagePublishBatchSize = averagePublishBatchSize;
+            this.lastPublishBatchLatency = lastPublishBatchLatency;
+            this.averagePublishBatchLatency = averagePublishBatchLatency;
         }
     }
 }
@@ -0,0 +1,92 @@
+package no.ssb.dc.api.content;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+class JacksonManifestCodec implements ManifestCodec {
+
+    static final JacksonManifestCodec JSON = new JacksonManifestCodec("json", "application/json", MetadataContent.JSON_FACTORY);
+    static final JacksonManifestCodec SMILE = new JacksonManifestCodec("smile", "application/x-jackson-smile", SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+    static final JacksonManifestCodec CBOR = new JacksonManifestCodec("cbor", "application/cbor", new CBORFactory());
+
+    private final String name;
+    private final String contentType;
+    private final JsonFactory factory;
+    private final ObjectMapper mapper;
+
+    JacksonManifestCodec(String name, String contentType, JsonFactory factory) {
+        this.name = name;
+        this.contentType = contentType;
+        this.factory = factory;
+        this.mapper = new ObjectMapper(factory);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] encode(List<MetadataContent> manifest) {
+        try (ByteArrayBuilder buffer = new ByteArrayBuilder(manifest.size() * 256)) {
+            try (JsonGenerator generator = factory.createGenerator(buffer, JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                for (MetadataContent metadataContent : manifest) {
+                    if (metadataContent == null) {
+                        generator.writeNull();
+                    } else {
+                        metadataContent.writeTo(generator);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<MetadataContent> decode(byte[] encoded) {
+        JsonNode arrayNode;
+        try {
+            arrayNode = mapper.readTree(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (arrayNode == null || !arrayNode.isArray()) {
+            throw new IllegalArgumentException("Encoded manifest is not an array");
+        }
+        List<MetadataContent> manifest = new ArrayList<>(arrayNode.size());
+        for (JsonNode elementNode : arrayNode) {
+            manifest.add(elementNode.isNull() ? null : new MetadataContent((ObjectNode) elementNode));
+        }
+        return manifest;
+    }
+
+    @Override
+    public String toString() {
+        return "ManifestCodec{" + name + '}';
+    }
+}
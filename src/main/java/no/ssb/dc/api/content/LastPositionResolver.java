@@ -0,0 +1,100 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.dc.api.services.Services;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Memoizes the last position of each topic for a worker, so that repeated lastPosition lookups made by expression
+ * evaluation resolve the position from the content store only once.
+ * <p>
+ * The resolver is registered in the worker services and shared by every ExpressionLanguage instance of the worker.
+ * Memoized positions of a topic are invalidated when the content store notifies a publish of the topic, see
+ * {@link ContentStore#onPublish(java.util.function.Consumer)}, or explicitly through {@link #invalidate(String)}.
+ * A content store that does not notify publishes must report every publish to its monitor, which invalidates every
+ * memoized position. Positions are not memoized for a content store that does neither.
+ */
+public class LastPositionResolver {
+
+    private final ContentStore contentStore;
+    private final Map<String, Optional<String>> positions = new ConcurrentHashMap<>();
+    private final Runnable publishRegistration;
+    private volatile long publishedCount;
+
+    public LastPositionResolver(ContentStore contentStore) {
+        this.contentStore = contentStore;
+        this.publishRegistration = contentStore.onPublish(this::invalidate);
+        HealthContentStreamMonitor monitor = contentStore.monitor();
+        this.publishedCount = monitor == null ? 0 : monitor.publishedCount();
+    }
+
+    /**
+     * Returns the resolver registered in services for the content store, or registers a new one
+     */
+    public static LastPositionResolver of(Services services, ContentStore contentStore) {
+        LastPositionResolver resolver = services.get(LastPositionResolver.class);
+        if (resolver != null && resolver.contentStore == contentStore) {
+            return resolver;
+        }
+        synchronized (services) {
+            resolver = services.get(LastPositionResolver.class);
+            if (resolver == null || resolver.contentStore != contentStore) {
+                if (resolver != null) {
+                    resolver.close();
+                }
+                resolver = new LastPositionResolver(contentStore);
+                services.register(LastPositionResolver.class, resolver);
+            }
+            return resolver;
+        }
+    }
+
+    /**
+     * @param onResolve called with the position when it has been resolved from the content store
+     */
+    public String lastPosition(String topic, Consumer<String> onResolve) {
+        if (publishRegistration == null) {
+            HealthContentStreamMonitor monitor = contentStore.monitor();
+            if (monitor == null) {
+                String lastPosition = contentStore.lastPosition(topic);
+                onResolve.accept(lastPosition);
+                return lastPosition;
+            }
+            invalidateIfPublished(monitor);
+        }
+        return positions.computeIfAbsent(topic, key -> {
+            String lastPosition = contentStore.lastPosition(key);
+            onResolve.accept(lastPosition);
+            return Optional.ofNullable(lastPosition);
+        }).orElse(null);
+    }
+
+    public void invalidate(String topic) {
+        positions.remove(topic);
+    }
+
+    public void invalidateAll() {
+        positions.clear();
+    }
+
+    /**
+     * Stop listening for publishes to the content store
+     */
+    public void close() {
+        if (publishRegistration != null) {
+            publishRegistration.run();
+        }
+        positions.clear();
+    }
+
+    private void invalidateIfPublished(HealthContentStreamMonitor monitor) {
+        long count = monitor.publishedCount();
+        if (count != publishedCount) {
+            publishedCount = count;
+            positions.clear();
+        }
+    }
+}
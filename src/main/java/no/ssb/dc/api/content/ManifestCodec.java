@@ -0,0 +1,63 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.dc.api.ConfigurationMap;
+
+import java.util.List;
+
+/**
+ * Encodes the manifest of a content stream buffer, see {@link ContentStreamBuffer#manifest()}, for storage and reads it
+ * back into {@link MetadataContent}.
+ * <p>
+ * The binary codecs write the same document structure as JSON. Smile back-references repeated field names and short
+ * values within a message, so the header names and metadata keys that every entry repeats are written once.
+ */
+public interface ManifestCodec {
+
+    String MANIFEST_CODEC_KEY = "content.stream.manifest.codec";
+
+    /**
+     * @return the codec name, which a content store may record alongside the encoded manifest
+     */
+    String name();
+
+    String contentType();
+
+    byte[] encode(List<MetadataContent> manifest);
+
+    List<MetadataContent> decode(byte[] encoded);
+
+    static ManifestCodec json() {
+        return JacksonManifestCodec.JSON;
+    }
+
+    static ManifestCodec smile() {
+        return JacksonManifestCodec.SMILE;
+    }
+
+    static ManifestCodec cbor() {
+        return JacksonManifestCodec.CBOR;
+    }
+
+    static ManifestCodec of(String name) {
+        switch (name.toLowerCase()) {
+            case "json":
+                return json();
+            case "smile":
+                return smile();
+            case "cbor":
+                return cbor();
+            default:
+                throw new IllegalArgumentException("Unknown manifest codec: " + name);
+        }
+    }
+
+    /**
+     * @return the codec configured by {@link #MANIFEST_CODEC_KEY}, or json when not configured
+     */
+    static ManifestCodec of(ConfigurationMap configuration) {
+        if (configuration == null || !configuration.contains(MANIFEST_CODEC_KEY)) {
+            return json();
+        }
+        return of(configuration.get(MANIFEST_CODEC_KEY));
+    }
+}
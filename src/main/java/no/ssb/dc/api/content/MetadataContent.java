@@ -1,7 +1,13 @@
 package no.ssb.dc.api.content;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.fasterxml.jackson.databind.node.ValueNode;
@@ -9,24 +15,84 @@ import no.ssb.dc.api.CorrelationIds;
 import no.ssb.dc.api.http.Headers;
 import no.ssb.dc.api.util.JsonParser;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+/**
+ * The manifest entry of a buffered content.
+ * <p>
+ * A manifest built by {@link Builder} keeps its fields as plain values and is streamed with a {@link JsonGenerator}
+ * straight to bytes. The tree returned by {@link #getElementNode()} is only materialized on request, and from then on
+ * the tree is what gets serialized, so that changes made to it are preserved.
+ */
 public class MetadataContent {
 
-    private final ObjectNode elementNode;
+    static final JsonFactory JSON_FACTORY = JsonParser.createJsonParser().mapper().getFactory();
+    static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    static final ThreadLocal<ByteArrayBuilder> BUFFER = ThreadLocal.withInitial(ByteArrayBuilder::new);
+
+    private final Builder fields;
+    private ObjectNode elementNode;
 
     public MetadataContent(ObjectNode elementNode) {
+        this.fields = null;
         this.elementNode = elementNode;
     }
 
-    public ObjectNode getElementNode() {
+    MetadataContent(Builder fields) {
+        this.fields = fields;
+    }
+
+    public synchronized ObjectNode getElementNode() {
+        if (elementNode == null) {
+            elementNode = fields.toElementNode();
+        }
         return elementNode;
     }
 
     public String toJSON() {
-        return JsonParser.createJsonParser().toJSON(elementNode);
+        return new String(toJSONBytes(), StandardCharsets.UTF_8);
+    }
+
+    public byte[] toJSONBytes() {
+        if (isTree()) {
+            return JsonParser.createJsonParser().toJSON(getElementNode()).getBytes(StandardCharsets.UTF_8);
+        }
+        ByteArrayBuilder buffer = BUFFER.get();
+        try {
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8)) {
+                fields.writeTo(generator);
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+                BUFFER.remove();
+            } else {
+                buffer.reset();
+            }
+        }
+    }
+
+    /**
+     * Write this manifest entry as a JSON object to the given generator, e.g. when streaming a list of entries.
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        if (isTree()) {
+            generator.writeTree(getElementNode());
+        } else {
+            fields.writeTo(generator);
+        }
+    }
+
+    private synchronized boolean isTree() {
+        return elementNode != null;
     }
 
     public enum ResourceType {
@@ -37,69 +103,80 @@ public class MetadataContent {
 
     public static class Builder {
 
-        private ObjectNode metadataNode = JsonParser.createJsonParser().createObjectNode();
-        private ObjectNode requestHeaderNode = JsonParser.createJsonParser().createObjectNode();
-        private ObjectNode responseHeaderNode = JsonParser.createJsonParser().createObjectNode();
-        private ObjectNode httpInfoNode = JsonParser.createJsonParser().createObjectNode();
-        private ObjectNode stateNode = JsonParser.createJsonParser().createObjectNode();
+        private final Map<String, Object> metadata = new LinkedHashMap<>();
+        private final Map<String, String> requestHeaders = new LinkedHashMap<>();
+        private final Map<String, String> responseHeaders = new LinkedHashMap<>();
+        private final Map<String, Object> state = new LinkedHashMap<>();
+        private Integer statusCode;
 
         public Builder correlationId(CorrelationIds correlationIds) {
-            metadataNode.put("correlation-id", (correlationIds == null ? null : correlationIds.get().stream().map(UUID::toString).collect(Collectors.joining(","))));
+            metadata.put("correlation-id", correlationIds == null ? null : join(correlationIds.get()));
             return this;
         }
 
+        static String join(List<UUID> ids) {
+            StringBuilder joined = new StringBuilder(ids.size() * 37);
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) {
+                    joined.append(',');
+                }
+                joined.append(ids.get(i));
+            }
+            return joined.toString();
+        }
+
         public Builder topic(String topic) {
-            metadataNode.put("topic", topic);
+            metadata.put("topic", topic);
             return this;
         }
 
         public Builder position(String position) {
-            metadataNode.put("position", position);
+            metadata.put("position", position);
             return this;
         }
 
         public Builder contentKey(String contentKey) {
-            metadataNode.put("content-key", contentKey);
+            metadata.put("content-key", contentKey);
             return this;
         }
 
         public Builder resourceType(ResourceType resourceType) {
-            metadataNode.put("resource-type", resourceType.name().toLowerCase());
+            metadata.put("resource-type", resourceType.name().toLowerCase());
             return this;
         }
 
         public Builder contentType(String contentType) {
-            metadataNode.put("content-type", contentType);
+            metadata.put("content-type", contentType);
             return this;
         }
 
         public Builder contentLength(int contentLength) {
-            metadataNode.put("content-length", contentLength);
+            metadata.put("content-length", contentLength);
             return this;
         }
 
         public Builder requestDurationNanoTime(long requestDurationNanoTime) {
-            metadataNode.put("request-duration-nano-time", requestDurationNanoTime);
+            metadata.put("request-duration-nano-time", requestDurationNanoTime);
             return this;
         }
 
         public Builder url(String url) {
-            metadataNode.put("url", url);
+            metadata.put("url", url);
             return this;
         }
 
         public Builder statusCode(int statusCode) {
-            httpInfoNode.put("statusCode", statusCode);
+            this.statusCode = statusCode;
             return this;
         }
 
         public Builder requestHeaders(Headers requestHeaders) {
-            requestHeaders.asMap().forEach((key, value) -> requestHeaderNode.put(key, String.join(",", value)));
+            requestHeaders.asMap().forEach((key, value) -> this.requestHeaders.put(key, String.join(",", value)));
             return this;
         }
 
         public Builder responseHeaders(Headers responseHeaders) {
-            responseHeaders.asMap().forEach((key, value) -> responseHeaderNode.put(key, String.join(",", value)));
+            responseHeaders.asMap().forEach((key, value) -> this.responseHeaders.put(key, String.join(",", value)));
             return this;
         }
 
@@ -107,37 +184,99 @@ public class MetadataContent {
             if (stateMap == null) {
                 return this;
             }
-            stateMap.entrySet().forEach(entry -> {
-                Object value = entry.getValue();
-                ValueNode valueNode;
-                if (value instanceof String) {
-                    valueNode = new TextNode((String) value);
-
-                } else if (value instanceof Integer) {
-                    valueNode = new IntNode((Integer) value);
-
-                } else if (value instanceof Boolean) {
-                    valueNode = BooleanNode.valueOf((Boolean) value);
-
-                } else {
+            stateMap.forEach((key, value) -> {
+                if (!(value instanceof String) && !(value instanceof Integer) && !(value instanceof Boolean)) {
                     throw new IllegalStateException("Unsupported state type!");
                 }
-                stateNode.set(entry.getKey(), valueNode);
+                state.put(key, value);
             });
             return this;
         }
 
+        /**
+         * The builder must not be used after build, as the manifest holds on to its fields
+         */
         public MetadataContent build() {
+            return new MetadataContent(this);
+        }
+
+        void writeTo(JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("metadata");
+            writeFields(generator, metadata);
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("http-info");
+            if (statusCode != null) {
+                generator.writeNumberField("statusCode", statusCode);
+            }
+            generator.writeObjectFieldStart("request-headers");
+            writeFields(generator, requestHeaders);
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("response-headers");
+            writeFields(generator, responseHeaders);
+            generator.writeEndObject();
+            generator.writeEndObject();
+            if (!state.isEmpty()) {
+                generator.writeObjectFieldStart("state");
+                writeFields(generator, state);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+
+        static void writeFields(JsonGenerator generator, Map<String, ?> fields) throws IOException {
+            for (Map.Entry<String, ?> entry : fields.entrySet()) {
+                Object value = entry.getValue();
+                generator.writeFieldName(entry.getKey());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof String) {
+                    generator.writeString((String) value);
+                } else if (value instanceof Integer) {
+                    generator.writeNumber((Integer) value);
+                } else if (value instanceof Long) {
+                    generator.writeNumber((Long) value);
+                } else if (value instanceof Boolean) {
+                    generator.writeBoolean((Boolean) value);
+                } else {
+                    throw new IllegalStateException("Unsupported type: " + value.getClass());
+                }
+            }
+        }
+
+        ObjectNode toElementNode() {
             JsonParser jsonParser = JsonParser.createJsonParser();
             ObjectNode elementNode = jsonParser.createObjectNode();
-            elementNode.set("metadata", metadataNode);
-            httpInfoNode.set("request-headers", requestHeaderNode);
-            httpInfoNode.set("response-headers", responseHeaderNode);
-            elementNode.set("http-info", httpInfoNode);
-            if (!stateNode.isEmpty()) {
-                elementNode.set("state", stateNode);
+            ObjectNode metadataNode = elementNode.putObject("metadata");
+            metadata.forEach((key, value) -> metadataNode.set(key, toValueNode(value)));
+            ObjectNode httpInfoNode = elementNode.putObject("http-info");
+            if (statusCode != null) {
+                httpInfoNode.put("statusCode", statusCode);
+            }
+            ObjectNode requestHeaderNode = httpInfoNode.putObject("request-headers");
+            requestHeaders.forEach(requestHeaderNode::put);
+            ObjectNode responseHeaderNode = httpInfoNode.putObject("response-headers");
+            responseHeaders.forEach(responseHeaderNode::put);
+            if (!state.isEmpty()) {
+                ObjectNode stateNode = elementNode.putObject("state");
+                state.forEach((key, value) -> stateNode.set(key, toValueNode(value)));
+            }
+            return elementNode;
+        }
+
+        static ValueNode toValueNode(Object value) {
+            if (value == null) {
+                return NullNode.getInstance();
+            } else if (value instanceof String) {
+                return new TextNode((String) value);
+            } else if (value instanceof Integer) {
+                return new IntNode((Integer) value);
+            } else if (value instanceof Long) {
+                return new LongNode((Long) value);
+            } else if (value instanceof Boolean) {
+                return BooleanNode.valueOf((Boolean) value);
             }
-            return new MetadataContent(elementNode);
+            throw new IllegalStateException("Unsupported type: " + value.getClass());
         }
     }
 }
@@ -0,0 +1,172 @@
+package no.ssb.dc.api.content;
+
+import de.huxhorn.sulky.ulid.ULID;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A content stream buffer that holds its payloads in a {@link DirectBufferPool} instead of on the heap.
+ * <p>
+ * Payloads are owned by the buffer and must be released after the buffer has been published.
+ */
+public class PooledContentStreamBuffer implements ContentStreamBuffer {
+
+    private final ULID.Value ulid;
+    private final String position;
+    private final Map<String, PooledPayload> data;
+    private final List<MetadataContent> manifest;
+
+    PooledContentStreamBuffer(ULID.Value ulid, String position, Map<String, PooledPayload> data, List<MetadataContent> manifest) {
+        this.ulid = ulid;
+        this.position = position;
+        this.data = data;
+        this.manifest = manifest;
+    }
+
+    @Override
+    public ULID.Value ulid() {
+        return ulid;
+    }
+
+    @Override
+    public String position() {
+        return position;
+    }
+
+    @Override
+    public Set<String> keys() {
+        return data.keySet();
+    }
+
+    @Override
+    public byte[] get(String contentKey) {
+        PooledPayload payload = data.get(contentKey);
+        return payload == null ? null : payload.toByteArray();
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer(String contentKey) {
+        PooledPayload payload = data.get(contentKey);
+        return payload == null ? null : payload.asReadOnlyByteBuffer();
+    }
+
+    /**
+     * @return the pooled payload, which can be viewed without copying, see {@link PooledPayload#asReadOnlyByteBuffer()}
+     */
+    public PooledPayload payload(String contentKey) {
+        return data.get(contentKey);
+    }
+
+    @Override
+    public Map<String, byte[]> data() {
+        Map<String, byte[]> copy = new LinkedHashMap<>();
+        data.forEach((key, payload) -> copy.put(key, payload.toByteArray()));
+        return copy;
+    }
+
+    @Override
+    public List<MetadataContent> manifest() {
+        return manifest;
+    }
+
+    public void release() {
+        data.values().forEach(PooledPayload::release);
+    }
+
+    public static class Builder implements ContentStreamBuffer.Builder {
+
+        private final DirectBufferPool pool;
+        private final Map<String, PooledPayload> data = new LinkedHashMap<>();
+        private final List<MetadataContent> manifest = new ArrayList<>();
+        private ULID.Value ulid;
+        private String position;
+
+        public Builder(DirectBufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Builder ulid(ULID.Value ulid) {
+            this.ulid = ulid;
+            return this;
+        }
+
+        @Override
+        public Builder position(String position) {
+            this.position = position;
+            return this;
+        }
+
+        @Override
+        public String position() {
+            return position;
+        }
+
+        @Override
+        public Builder put(String key, byte[] payload) {
+            return put(key, ByteBuffer.wrap(payload));
+        }
+
+        @Override
+        public Builder put(String key, ByteBuffer payload) {
+            PooledPayload previous = data.put(key, pool.allocate(payload));
+            if (previous != null) {
+                previous.release();
+            }
+            return this;
+        }
+
+        @Override
+        public Builder buffer(String contentKey, byte[] content, MetadataContent manifest) {
+            return buffer(contentKey, ByteBuffer.wrap(content), manifest);
+        }
+
+        @Override
+        public Builder buffer(String contentKey, ByteBuffer content, MetadataContent manifest) {
+            put(contentKey, content);
+            this.manifest.add(manifest);
+            return this;
+        }
+
+        @Override
+        public byte[] get(String contentKey) {
+            PooledPayload payload = data.get(contentKey);
+            return payload == null ? null : payload.toByteArray();
+        }
+
+        @Override
+        public ByteBuffer getByteBuffer(String contentKey) {
+            PooledPayload payload = data.get(contentKey);
+            return payload == null ? null : payload.asReadOnlyByteBuffer();
+        }
+
+        @Override
+        public Set<String> keys() {
+            return data.keySet();
+        }
+
+        @Override
+        public List<MetadataContent> manifest() {
+            return manifest;
+        }
+
+        /**
+         * Releases the payloads of a builder that will not be built
+         */
+        public void release() {
+            data.values().forEach(PooledPayload::release);
+            data.clear();
+        }
+
+        @Override
+        public PooledContentStreamBuffer build() {
+            return new PooledContentStreamBuffer(ulid, position, Collections.unmodifiableMap(new LinkedHashMap<>(data)), Collections.unmodifiableList(new ArrayList<>(manifest)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package no.ssb.dc.api.content;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A payload held in contiguous direct memory or in the spill file of a {@link DirectBufferPool}.
+ * <p>
+ * The payload must be released when its position has been published, which returns the memory to the pool.
+ */
+public final class PooledPayload {
+
+    private final DirectBufferPool pool;
+    private final int length;
+    private final DirectBufferPool.Allocation allocation;
+    private final DirectBufferPool.SpillRegion spilled;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PooledPayload(DirectBufferPool pool, int length, DirectBufferPool.Allocation allocation, DirectBufferPool.SpillRegion spilled) {
+        this.pool = pool;
+        this.length = length;
+        this.allocation = allocation;
+        this.spilled = spilled;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isSpilled() {
+        return allocation == null;
+    }
+
+    /**
+     * Returns a read-only view of the payload without copying it
+     */
+    public ByteBuffer asReadOnlyByteBuffer() {
+        checkNotReleased();
+        if (allocation == null) {
+            return spilled.mapping.asReadOnlyBuffer();
+        }
+        return allocation.buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the read-only views that hold the payload, in order, for gathering writes. The payload is contiguous,
+     * so there is a single view.
+     */
+    public ByteBuffer[] asReadOnlyByteBuffers() {
+        return new ByteBuffer[]{asReadOnlyByteBuffer()};
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        asReadOnlyByteBuffer().get(bytes);
+        return bytes;
+    }
+
+    public void release() {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        if (allocation != null) {
+            pool.release(allocation);
+        } else {
+            pool.release(spilled);
+        }
+    }
+
+    private void checkNotReleased() {
+        if (released.get()) {
+            throw new IllegalStateException("Payload has been released");
+        }
+    }
+}
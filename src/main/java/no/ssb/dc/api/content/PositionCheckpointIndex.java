@@ -0,0 +1,241 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.dc.api.ConfigurationMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A sidecar record of the last published position per topic, so that lastPosition can be resolved without scanning
+ * the backend.
+ * <p>
+ * A checkpoint is marked pending before positions are written to the backend and committed after the write has
+ * returned. A pending checkpoint means the worker stopped between the two, and is treated as stale. Every update
+ * replaces the record file atomically, so a reader sees either the previous or the next record.
+ * <p>
+ * Publishes of a topic may overlap. The positions prepared and not yet committed are tracked per topic, and the
+ * checkpoint stays pending until all of them are committed. It is then committed with the last prepared position,
+ * so a late commit of an earlier position never replaces a pending later one.
+ */
+public class PositionCheckpointIndex {
+
+    public static final String CHECKPOINT_DIRECTORY_KEY = "content.stream.checkpoint.directory";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PositionCheckpointIndex.class);
+
+    static final String STATE_PENDING = "pending";
+    static final String STATE_COMMITTED = "committed";
+
+    private final Path directory;
+    private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+    private final Map<String, InFlight> inFlightByTopic = new HashMap<>();
+
+    public PositionCheckpointIndex(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Optional<PositionCheckpointIndex> of(ConfigurationMap configuration) {
+        if (configuration == null || !configuration.contains(CHECKPOINT_DIRECTORY_KEY)) {
+            return Optional.empty();
+        }
+        return Optional.of(new PositionCheckpointIndex(Path.of(configuration.get(CHECKPOINT_DIRECTORY_KEY))));
+    }
+
+    /**
+     * @return the committed last position, or empty if the checkpoint is missing or stale
+     */
+    public Optional<String> lastPosition(String topic) {
+        Checkpoint checkpoint = checkpoint(topic);
+        return checkpoint != null && STATE_COMMITTED.equals(checkpoint.state) ? Optional.ofNullable(checkpoint.position) : Optional.empty();
+    }
+
+    /**
+     * Resolve the last position from the checkpoint, or by scanning the backend when the checkpoint is missing or
+     * stale. A scanned position is committed to the index.
+     */
+    public String lastPosition(String topic, Function<String, String> scan) {
+        Optional<String> checkpointed = lastPosition(topic);
+        if (checkpointed.isPresent()) {
+            return checkpointed.get();
+        }
+        String lastPosition = scan.apply(topic);
+        if (lastPosition != null) {
+            commit(topic, lastPosition);
+        }
+        return lastPosition;
+    }
+
+    public synchronized void prepare(String topic, String position) {
+        InFlight inFlight = inFlightByTopic.computeIfAbsent(topic, key -> new InFlight());
+        inFlight.add(position);
+        write(topic, new Checkpoint(STATE_PENDING, position));
+    }
+
+    /**
+     * Commit a prepared position. The checkpoint is committed when no other prepared position of the topic is
+     * outstanding, and stays pending otherwise. A position that was not prepared is committed only if the topic has
+     * no outstanding positions.
+     */
+    public synchronized void commit(String topic, String position) {
+        InFlight inFlight = inFlightByTopic.get(topic);
+        String committedPosition = position;
+        if (inFlight != null) {
+            if (!inFlight.remove(position)) {
+                return;
+            }
+            if (!inFlight.isEmpty()) {
+                return;
+            }
+            committedPosition = inFlight.lastPrepared;
+            inFlightByTopic.remove(topic);
+        }
+        write(topic, new Checkpoint(STATE_COMMITTED, committedPosition));
+    }
+
+    /**
+     * Remove the checkpoint of the topic. If the record file cannot be deleted, the checkpoint is held as stale in
+     * memory so that lastPosition is resolved by scan, and the error is rethrown.
+     */
+    public synchronized void invalidate(String topic) {
+        inFlightByTopic.remove(topic);
+        markStale(topic);
+        try {
+            Files.deleteIfExists(file(topic));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkpoints.remove(topic);
+    }
+
+    private void markStale(String topic) {
+        checkpoints.put(topic, new Checkpoint(STATE_PENDING, null));
+    }
+
+    private Checkpoint checkpoint(String topic) {
+        Checkpoint checkpoint = checkpoints.get(topic);
+        if (checkpoint != null) {
+            return checkpoint;
+        }
+        checkpoint = read(topic);
+        if (checkpoint != null) {
+            checkpoints.putIfAbsent(topic, checkpoint);
+        }
+        return checkpoint;
+    }
+
+    private Checkpoint read(String topic) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file(topic))) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Unable to read position checkpoint for topic: {}", topic, e);
+            return null;
+        }
+        if (!topic.equals(properties.getProperty("topic"))) {
+            return null;
+        }
+        return new Checkpoint(properties.getProperty("state"), properties.getProperty("position"));
+    }
+
+    private synchronized void write(String topic, Checkpoint checkpoint) {
+        Properties properties = new Properties();
+        properties.setProperty("topic", topic);
+        properties.setProperty("state", checkpoint.state);
+        properties.setProperty("position", checkpoint.position);
+        Path file = file(topic);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                properties.store(out, null);
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            markStale(topic);
+            throw new UncheckedIOException(e);
+        }
+        checkpoints.put(topic, checkpoint);
+    }
+
+    private Path file(String topic) {
+        StringBuilder name = new StringBuilder(topic.length() + 9);
+        for (byte b : topic.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.') {
+                name.append(c);
+            } else {
+                name.append('%').append(String.format("%02X", (int) c));
+            }
+        }
+        return directory.resolve(name.append(".position").toString());
+    }
+
+    static class InFlight {
+        final Map<String, Integer> countByPosition = new HashMap<>();
+        String lastPrepared;
+
+        void add(String position) {
+            countByPosition.merge(position, 1, Integer::sum);
+            lastPrepared = position;
+        }
+
+        boolean remove(String position) {
+            Integer count = countByPosition.get(position);
+            if (count == null) {
+                return false;
+            }
+            if (count == 1) {
+                countByPosition.remove(position);
+            } else {
+                countByPosition.put(position, count - 1);
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return countByPosition.isEmpty();
+        }
+    }
+
+    static class Checkpoint {
+        final String state;
+        final String position;
+
+        Checkpoint(String state, String position) {
+            this.state = state;
+            this.position = position;
+        }
+    }
+}
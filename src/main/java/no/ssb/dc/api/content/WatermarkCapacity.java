@@ -0,0 +1,275 @@
+package no.ssb.dc.api.content;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Capacity bounded by high and low watermarks on in-flight positions and buffered bytes.
+ * <p>
+ * New positions are held back once either high watermark is reached, and let through again when both counts have
+ * dropped to their low watermarks. Bytes added to an acquired permit never block, so that a position that has been
+ * started can always complete and release its permit.
+ */
+public class WatermarkCapacity implements ContentStoreCapacity {
+
+    private final int highWatermarkPositions;
+    private final int lowWatermarkPositions;
+    private final long highWatermarkBytes;
+    private final long lowWatermarkBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition resumed = lock.newCondition();
+    private final Deque<CompletableFuture<Permit>> asyncWaiters = new ArrayDeque<>();
+    private int positions;
+    private long bytes;
+    private boolean paused;
+
+    WatermarkCapacity(int highWatermarkPositions, int lowWatermarkPositions, long highWatermarkBytes, long lowWatermarkBytes) {
+        if (lowWatermarkPositions > highWatermarkPositions || lowWatermarkBytes > highWatermarkBytes) {
+            throw new IllegalArgumentException("Low watermark must not exceed high watermark");
+        }
+        this.highWatermarkPositions = highWatermarkPositions;
+        this.lowWatermarkPositions = lowWatermarkPositions;
+        this.highWatermarkBytes = highWatermarkBytes;
+        this.lowWatermarkBytes = lowWatermarkBytes;
+    }
+
+    @Override
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (paused || !asyncWaiters.isEmpty()) {
+                resumed.await();
+            }
+            return newPermit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Permit> tryAcquire() {
+        lock.lock();
+        try {
+            if (paused || !asyncWaiters.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(newPermit());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Permit> acquireAsync() {
+        lock.lock();
+        try {
+            if (!paused && asyncWaiters.isEmpty()) {
+                return CompletableFuture.completedFuture(newPermit());
+            }
+            CompletableFuture<Permit> future = new CompletableFuture<>();
+            asyncWaiters.add(future);
+            return future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isPaused() {
+        lock.lock();
+        try {
+            return paused;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int prefetchThreshold(int configuredThreshold) {
+        lock.lock();
+        try {
+            if (paused) {
+                return 0;
+            }
+            return Math.max(0, Math.min(configuredThreshold, highWatermarkPositions - positions));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int positions() {
+        lock.lock();
+        try {
+            return positions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit newPermit() {
+        positions++;
+        updatePaused();
+        return new WatermarkPermit();
+    }
+
+    private void updatePaused() {
+        if (!paused && (positions >= highWatermarkPositions || bytes >= highWatermarkBytes)) {
+            paused = true;
+        } else if (paused && positions <= lowWatermarkPositions && bytes <= lowWatermarkBytes) {
+            paused = false;
+        }
+    }
+
+    /*
+     * Called with the lock held. The returned runnable completes the async waiters that were let through, and must be
+     * run after the lock is released.
+     */
+    private Runnable update(int positionDelta, long bytesDelta) {
+        positions += positionDelta;
+        bytes += bytesDelta;
+        updatePaused();
+        if (paused) {
+            return () -> {
+            };
+        }
+        resumed.signalAll();
+        List<CompletableFuture<Permit>> ready = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        while (!paused && !asyncWaiters.isEmpty()) {
+            CompletableFuture<Permit> waiter = asyncWaiters.poll();
+            if (waiter.isDone()) {
+                continue;
+            }
+            ready.add(waiter);
+            permits.add(newPermit());
+        }
+        return () -> {
+            for (int i = 0; i < ready.size(); i++) {
+                if (!ready.get(i).complete(permits.get(i))) {
+                    permits.get(i).release();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "WatermarkCapacity{" +
+                "positions=" + positions() +
+                ", bytes=" + bytes() +
+                ", paused=" + isPaused() +
+                '}';
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /*
+     * The permit is accounted under the capacity lock, so bytes added concurrently with release are either
+     * subtracted by the release or rejected
+     */
+    class WatermarkPermit implements Permit {
+
+        private long permitBytes; // guarded by lock
+        private boolean released; // guarded by lock
+
+        @Override
+        public void addBytes(long bytes) {
+            Runnable resume;
+            lock.lock();
+            try {
+                if (released) {
+                    throw new IllegalStateException("Permit has been released");
+                }
+                permitBytes += bytes;
+                resume = update(0, bytes);
+            } finally {
+                lock.unlock();
+            }
+            resume.run();
+        }
+
+        @Override
+        public long bytes() {
+            lock.lock();
+            try {
+                return permitBytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void release() {
+            Runnable resume;
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                resume = update(-1, -permitBytes);
+            } finally {
+                lock.unlock();
+            }
+            resume.run();
+        }
+    }
+
+    public static class Builder {
+
+        private int highWatermarkPositions = 1000;
+        private Integer lowWatermarkPositions;
+        private long highWatermarkBytes = 256L * 1024 * 1024;
+        private Long lowWatermarkBytes;
+
+        public Builder highWatermarkPositions(int positions) {
+            this.highWatermarkPositions = positions;
+            return this;
+        }
+
+        public Builder lowWatermarkPositions(int positions) {
+            this.lowWatermarkPositions = positions;
+            return this;
+        }
+
+        public Builder highWatermarkBytes(long bytes) {
+            this.highWatermarkBytes = bytes;
+            return this;
+        }
+
+        public Builder lowWatermarkBytes(long bytes) {
+            this.lowWatermarkBytes = bytes;
+            return this;
+        }
+
+        /**
+         * Low watermarks default to half of the high watermarks
+         */
+        public WatermarkCapacity build() {
+            return new WatermarkCapacity(
+                    highWatermarkPositions,
+                    lowWatermarkPositions != null ? lowWatermarkPositions : highWatermarkPositions / 2,
+                    highWatermarkBytes,
+                    lowWatermarkBytes != null ? lowWatermarkBytes : highWatermarkBytes / 2
+            );
+        }
+    }
+}
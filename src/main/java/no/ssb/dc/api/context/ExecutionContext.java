@@ -4,7 +4,6 @@ import no.ssb.dc.api.services.Services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,18 +35,32 @@ public class ExecutionContext {
         return new Builder().of(input).build();
     }
 
+    /**
+     * Adds the variables and state of another context that are absent in this context. When both contexts are
+     * forked from the same scope, only the keys that have changed since the fork are visited.
+     */
     public ExecutionContext join(ExecutionContext anotherContext) {
-        ExecutionContext copyOfThis = of(this);
-        ExecutionContext accumulated = of(anotherContext);
-        accumulated.variables.putAll(copyOfThis.variables);
-        accumulated.globalState.putAll(copyOfThis.globalState);
-        accumulated.state.putAll(copyOfThis.state);
-        this.variables.putAll(accumulated.variables);
-        this.globalState.putAll(accumulated.globalState);
-        this.state.putAll(accumulated.state);
+        putAllAbsent(this.variables, anotherContext.variables);
+        if (this.globalState != anotherContext.globalState) {
+            anotherContext.globalState.putAll(this.globalState);
+            this.globalState.putAll(anotherContext.globalState);
+        }
+        putAllAbsent(this.state, anotherContext.state);
         return this;
     }
 
+    static <K, V> void putAllAbsent(Map<K, V> target, Map<K, V> source) {
+        if (target instanceof ScopedMap) {
+            ((ScopedMap<K, V>) target).putAllAbsent(source);
+            return;
+        }
+        for (Map.Entry<K, V> entry : source.entrySet()) {
+            if (!target.containsKey(entry.getKey())) {
+                target.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     public Services services() {
         Objects.requireNonNull(services);
         return services;
@@ -98,6 +111,18 @@ public class ExecutionContext {
         }
     }
 
+    /**
+     * @return a context with its own global state, variables and state maps, holding the entries of this context.
+     * The entry values and services are shared.
+     */
+    public ExecutionContext copy() {
+        Map<String, Object> variablesCopy = new ScopedMap<>();
+        variablesCopy.putAll(variables);
+        Map<Object, Object> stateCopy = new ScopedMap<>();
+        stateCopy.putAll(state);
+        return new ExecutionContext(services, new ConcurrentHashMap<>(globalState), variablesCopy, stateCopy);
+    }
+
     public ExecutionContext merge(ExecutionContext context) {
         this.state.putAll(context.state);
         this.variables.putAll(context.variables);
@@ -179,13 +204,15 @@ public class ExecutionContext {
             this.services = input.services;
             this.globalState = input.globalState;
             if (this.variables == null) {
-                this.variables = new LinkedHashMap<>();
+                this.variables = ScopedMap.forkOf(input.variables);
+            } else {
+                this.variables.putAll(input.variables);
             }
-            this.variables.putAll(input.variables);
             if (this.state == null) {
-                this.state = new LinkedHashMap<>();
+                this.state = ScopedMap.forkOf(input.state);
+            } else {
+                this.state.putAll(input.state);
             }
-            this.state.putAll(input.state);
             return this;
         }
 
@@ -193,8 +220,8 @@ public class ExecutionContext {
             return new ExecutionContext(
                     ofNullable(services).orElseGet(Services::create),
                     ofNullable(globalState).orElseGet(ConcurrentHashMap::new),
-                    ofNullable(variables).orElseGet(LinkedHashMap::new),
-                    ofNullable(state).orElseGet(LinkedHashMap::new)
+                    ofNullable(variables).orElseGet(ScopedMap::new),
+                    ofNullable(state).orElseGet(ScopedMap::new)
             );
         }
     }
@@ -0,0 +1,318 @@
+package no.ssb.dc.api.context;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A layered, copy-on-write map used for execution context variables and state.
+ * <p>
+ * {@link #fork()} freezes the local writes of a map into an immutable frame that is shared with the returned child.
+ * Both maps continue to read through the shared frames and record only their own writes and removals, so a fork is
+ * O(1). Merging two maps that share a frame only visits the keys that have changed on either side since the common
+ * frame. Frame chains are flattened when they grow beyond {@link #MAX_DEPTH}.
+ * <p>
+ * Iteration follows insertion order like a LinkedHashMap. The map is not thread-safe for writes, but forks and reads
+ * of a map that is no longer written to may be made concurrently.
+ */
+public final class ScopedMap<K, V> extends AbstractMap<K, V> {
+
+    static final int MAX_DEPTH = 16;
+
+    private static final Object TOMBSTONE = new Object();
+    private static final Object NULL_VALUE = new Object();
+
+    private volatile Layer layer;
+    private int size;
+
+    public ScopedMap() {
+        this.layer = new Layer(null, new LinkedHashMap<>());
+    }
+
+    public ScopedMap(Map<? extends K, ? extends V> map) {
+        this();
+        putAll(map);
+    }
+
+    private ScopedMap(Frame base, int size) {
+        this.layer = new Layer(base, new LinkedHashMap<>());
+        this.size = size;
+    }
+
+    /**
+     * Returns a fork of the map if it is scoped, or a scoped copy of it otherwise.
+     */
+    public static <K, V> ScopedMap<K, V> forkOf(Map<K, V> map) {
+        if (map instanceof ScopedMap) {
+            return ((ScopedMap<K, V>) map).fork();
+        }
+        return new ScopedMap<>(map);
+    }
+
+    public ScopedMap<K, V> fork() {
+        Frame base;
+        synchronized (this) {
+            Layer current = layer;
+            if (current.base != null && current.base.depth >= MAX_DEPTH) {
+                base = new Frame(flatten(current), null);
+                layer = new Layer(base, new LinkedHashMap<>());
+            } else if (!current.local.isEmpty()) {
+                base = new Frame(current.local, current.base);
+                layer = new Layer(base, new LinkedHashMap<>());
+            } else {
+                base = current.base;
+            }
+        }
+        return new ScopedMap<>(base, size);
+    }
+
+    /**
+     * Copies every mapping of the given map whose key is not present in this map.
+     */
+    public void putAllAbsent(Map<? extends K, ? extends V> map) {
+        if (map instanceof ScopedMap) {
+            merge((ScopedMap<? extends K, ? extends V>) map, false);
+            return;
+        }
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            if (!containsKey(entry.getKey())) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        if (map instanceof ScopedMap) {
+            merge((ScopedMap<? extends K, ? extends V>) map, true);
+            return;
+        }
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void merge(ScopedMap<? extends K, ? extends V> other, boolean overwrite) {
+        if (other == this) {
+            return;
+        }
+        Layer thisLayer = layer;
+        Layer otherLayer = other.layer;
+        Frame common = commonFrame(thisLayer.base, otherLayer.base);
+        if (common == null) {
+            for (Map.Entry<Object, Object> entry : flatten(otherLayer).entrySet()) {
+                if (overwrite || !containsKey(entry.getKey())) {
+                    put((K) entry.getKey(), (V) unmask(entry.getValue()));
+                }
+            }
+            return;
+        }
+        Set<Object> changedKeys = new LinkedHashSet<>();
+        collectChangedKeys(otherLayer, common, changedKeys);
+        collectChangedKeys(thisLayer, common, changedKeys);
+        for (Object key : changedKeys) {
+            Object value = lookup(otherLayer, key);
+            if (value != null && (overwrite || !containsKey(key))) {
+                put((K) key, (V) unmask(value));
+            }
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        return (V) unmask(lookup(layer, key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return lookup(layer, key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Layer current = layer;
+        Object previous = lookup(current, key);
+        current.local.put(key, value == null ? NULL_VALUE : value);
+        if (previous == null) {
+            size++;
+        }
+        return (V) unmask(previous);
+    }
+
+    @Override
+    public V remove(Object key) {
+        Layer current = layer;
+        Object previous = lookup(current, key);
+        if (previous == null) {
+            return null;
+        }
+        if (lookup(current.base, key) != null) {
+            current.local.put(key, TOMBSTONE);
+        } else {
+            current.local.remove(key);
+        }
+        size--;
+        return (V) unmask(previous);
+    }
+
+    @Override
+    public void clear() {
+        layer = new Layer(null, new LinkedHashMap<>());
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    int depth() {
+        Frame base = layer.base;
+        return base == null ? 0 : base.depth;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL_VALUE ? null : value;
+    }
+
+    /**
+     * @return the stored value, NULL_VALUE for a null mapping or null if the key is absent
+     */
+    private static Object lookup(Layer layer, Object key) {
+        Object value = layer.local.get(key);
+        if (value != null) {
+            return value == TOMBSTONE ? null : value;
+        }
+        return lookup(layer.base, key);
+    }
+
+    private static Object lookup(Frame frame, Object key) {
+        for (Frame current = frame; current != null; current = current.parent) {
+            Object value = current.entries.get(key);
+            if (value != null) {
+                return value == TOMBSTONE ? null : value;
+            }
+        }
+        return null;
+    }
+
+    private static Frame commonFrame(Frame first, Frame second) {
+        while (first != null && second != null && first != second) {
+            if (first.depth >= second.depth) {
+                first = first.parent;
+            } else {
+                second = second.parent;
+            }
+        }
+        return first == second ? first : null;
+    }
+
+    private static void collectChangedKeys(Layer layer, Frame common, Set<Object> changedKeys) {
+        changedKeys.addAll(layer.local.keySet());
+        for (Frame current = layer.base; current != common; current = current.parent) {
+            changedKeys.addAll(current.entries.keySet());
+        }
+    }
+
+    /**
+     * @return the visible mappings of the layer in insertion order, with null mappings masked
+     */
+    private static Map<Object, Object> flatten(Layer layer) {
+        List<Map<Object, Object>> layers = new ArrayList<>();
+        layers.add(layer.local);
+        for (Frame current = layer.base; current != null; current = current.parent) {
+            layers.add(current.entries);
+        }
+        Map<Object, Object> flattened = new LinkedHashMap<>();
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            for (Map.Entry<Object, Object> entry : layers.get(i).entrySet()) {
+                if (entry.getValue() == TOMBSTONE) {
+                    flattened.remove(entry.getKey());
+                } else {
+                    flattened.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return flattened;
+    }
+
+    private static final class Frame {
+        final Map<Object, Object> entries;
+        final Frame parent;
+        final int depth;
+
+        Frame(Map<Object, Object> entries, Frame parent) {
+            this.entries = entries;
+            this.parent = parent;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+    }
+
+    private static final class Layer {
+        final Frame base;
+        final Map<Object, Object> local;
+
+        Layer(Frame base, Map<Object, Object> local) {
+            this.base = base;
+            this.local = local;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            Iterator<Map.Entry<Object, Object>> it = flatten(layer).entrySet().iterator();
+            return new Iterator<>() {
+                K lastKey;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    Map.Entry<Object, Object> next = it.next();
+                    lastKey = (K) next.getKey();
+                    return new ScopedEntry(lastKey, (V) unmask(next.getValue()));
+                }
+
+                @Override
+                public void remove() {
+                    it.remove();
+                    ScopedMap.this.remove(lastKey);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class ScopedEntry extends SimpleEntry<K, V> {
+
+        ScopedEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package no.ssb.dc.api.el;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlExpression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * An expression that has been stripped for its ${...} markers and compiled once by the Jexl engine.
+ * <p>
+ * Instances are immutable and keyed by the source string, so the same template is never re-matched or re-parsed
+ * across pages and workers. The cache is bounded; expressions beyond the limit are compiled on every call.
+ */
+final class CompiledExpression {
+
+    static final int MAX_CACHED_EXPRESSIONS = 4096;
+
+    private static final Map<String, CompiledExpression> CACHE = new ConcurrentHashMap<>();
+
+    final String source;
+    final String expression;
+    final JexlExpression jexlExpression;
+
+    private CompiledExpression(String source, String expression, JexlExpression jexlExpression) {
+        this.source = source;
+        this.expression = expression;
+        this.jexlExpression = jexlExpression;
+    }
+
+    static CompiledExpression of(String source, JexlEngine engine) {
+        CompiledExpression compiledExpression = CACHE.get(source);
+        if (compiledExpression != null) {
+            return compiledExpression;
+        }
+        compiledExpression = compile(source, engine);
+        if (CACHE.size() < MAX_CACHED_EXPRESSIONS) {
+            CompiledExpression previous = CACHE.putIfAbsent(source, compiledExpression);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return compiledExpression;
+    }
+
+    static String stripExpression(String source) {
+        Matcher m = ExpressionLanguage.EXPRESSION_REGEX.matcher(source);
+        return m.find() ? m.group(1) : source;
+    }
+
+    private static CompiledExpression compile(String source, JexlEngine engine) {
+        String expression = stripExpression(source);
+        return new CompiledExpression(source, expression, engine.createExpression(expression));
+    }
+
+    Object evaluate(JexlContext context) {
+        return jexlExpression.evaluate(context);
+    }
+
+    static int cacheSize() {
+        return CACHE.size();
+    }
+}
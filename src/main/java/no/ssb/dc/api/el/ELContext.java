@@ -0,0 +1,71 @@
+package no.ssb.dc.api.el;
+
+import no.ssb.dc.api.ConfigurationMap;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.MapContext;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Jexl context that resolves the EL function namespaces before falling back to the variable map.
+ * <p>
+ * The stateless namespaces are shared singletons, while ENV and contentStream are bound once per ExpressionLanguage
+ * instance. This lets a single context be reused for every evaluation made by the owning ExpressionLanguage.
+ */
+class ELContext implements JexlContext {
+
+    static final ELCast CAST = new ELCast();
+    static final ELConvert CONVERT = new ELConvert();
+    static final ELBase64 BASE64 = new ELBase64();
+    static final Gsm GSM = new Gsm();
+    static final Secret SECRET = new Secret();
+
+    private final Map<String, Object> variables;
+    private final JexlContext env;
+    private final ELContentStream contentStream;
+
+    ELContext(Map<String, Object> variables, ConfigurationMap configuration, ELContentStream contentStream) {
+        this.variables = variables;
+        // TODO dotted EL-vars not supported
+        this.env = configuration == null ? null : new MapContext(Collections.<String, Object>unmodifiableMap(configuration.asMap()));
+        this.contentStream = contentStream;
+    }
+
+    private Object namespace(String name) {
+        switch (name) {
+            case "ENV":
+                return env;
+            case "cast":
+                return CAST;
+            case "convert":
+                return CONVERT;
+            case "contentStream":
+                return contentStream;
+            case "base64":
+                return BASE64;
+            case "gsm":
+                return GSM;
+            case "secret":
+                return SECRET;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Object get(String name) {
+        Object namespace = namespace(name);
+        return namespace != null ? namespace : variables.get(name);
+    }
+
+    @Override
+    public void set(String name, Object value) {
+        variables.put(name, value);
+    }
+
+    @Override
+    public boolean has(String name) {
+        return namespace(name) != null || variables.containsKey(name);
+    }
+}
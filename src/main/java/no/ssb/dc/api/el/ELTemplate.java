@@ -0,0 +1,128 @@
+package no.ssb.dc.api.el;
+
+import org.apache.commons.jexl3.JexlEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * A string that is split once into literal and ${...} expression segments.
+ * <p>
+ * Templates are immutable after parsing and may be shared across threads and ExpressionLanguage instances. Node
+ * builders parse url, header and body templates at specification build time, so that rendering a page only evaluates
+ * the expression segments and appends them to a reused buffer. Expression segments are compiled on first render.
+ */
+public final class ELTemplate {
+
+    static final int MAX_CACHED_TEMPLATES = 4096;
+    static final int MAX_RETAINED_BUFFER_CAPACITY = 8192;
+
+    private static final Map<String, ELTemplate> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    private final String[] literals;
+    private final String[] expressions;
+    private final CompiledExpression[] compiledExpressions;
+    private final int literalLength;
+
+    private ELTemplate(String source, String[] literals, String[] expressions) {
+        this.source = source;
+        this.literals = literals;
+        this.expressions = expressions;
+        this.compiledExpressions = new CompiledExpression[expressions.length];
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Returns a cached template for the source string. The cache is bounded; sources beyond the limit are parsed
+     * on every call.
+     */
+    public static ELTemplate of(String source) {
+        ELTemplate template = CACHE.get(source);
+        if (template != null) {
+            return template;
+        }
+        template = parse(source);
+        if (CACHE.size() < MAX_CACHED_TEMPLATES) {
+            ELTemplate previous = CACHE.putIfAbsent(source, template);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return template;
+    }
+
+    public static ELTemplate parse(String source) {
+        if (source == null) {
+            return null;
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> expressions = new ArrayList<>();
+        Matcher m = ExpressionLanguage.MULTI_EXPRESSION_REGEX.matcher(source);
+        int last = 0;
+        while (m.find()) {
+            literals.add(source.substring(last, m.start()));
+            expressions.add(m.group());
+            last = m.end();
+        }
+        literals.add(source.substring(last));
+        return new ELTemplate(source, literals.toArray(new String[0]), expressions.toArray(new String[0]));
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public boolean isLiteral() {
+        return expressions.length == 0;
+    }
+
+    public int expressionCount() {
+        return expressions.length;
+    }
+
+    String expression(int index) {
+        return expressions[index];
+    }
+
+    CompiledExpression compiledExpression(int index, JexlEngine engine) {
+        CompiledExpression compiledExpression = compiledExpressions[index];
+        if (compiledExpression == null) {
+            compiledExpression = CompiledExpression.of(expressions[index], engine);
+            compiledExpressions[index] = compiledExpression;
+        }
+        return compiledExpression;
+    }
+
+    String render(ExpressionLanguage el) {
+        if (expressions.length == 0) {
+            return source;
+        }
+        StringBuilder buf = BUFFER.get();
+        buf.setLength(0);
+        buf.ensureCapacity(literalLength + expressions.length * 16);
+        for (int i = 0; i < expressions.length; i++) {
+            buf.append(literals[i]);
+            buf.append(el.evaluateSegment(this, i));
+        }
+        buf.append(literals[expressions.length]);
+        String result = buf.toString();
+        if (buf.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
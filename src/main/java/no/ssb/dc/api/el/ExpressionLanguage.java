@@ -3,21 +3,24 @@ package no.ssb.dc.api.el;
 import no.ssb.dc.api.ConfigurationMap;
 import no.ssb.dc.api.content.EvaluateLastContentStreamPosition;
 import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.context.ScopedMap;
 import no.ssb.dc.api.util.CommonUtils;
 import org.apache.commons.jexl3.JexlBuilder;
-import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
-import org.apache.commons.jexl3.JexlExpression;
-import org.apache.commons.jexl3.MapContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Evaluates ${...} expressions against a copy-on-write fork of the execution context variables.
+ * <p>
+ * Expressions are compiled once and cached by their source string (see {@link CompiledExpression}), and every
+ * evaluation made by an instance reuses the same {@link ELContext}. Strings with embedded expressions are split into
+ * segments once (see {@link ELTemplate}). An instance is not thread-safe.
+ */
 public class ExpressionLanguage {
 
     private static final Logger LOG = LoggerFactory.getLogger(ExpressionLanguage.class);
@@ -25,9 +28,8 @@ public class ExpressionLanguage {
     static final Pattern EXPRESSION_REGEX = Pattern.compile("\\$\\{([^}]+)}");
     static final Pattern MULTI_EXPRESSION_REGEX = Pattern.compile("\\$\\{(.*?)}+");
 
-    private final ConfigurationMap configuration;
     private final Map<String, Object> variables;
-    private final EvaluateLastContentStreamPosition evaluateLastContentStreamPosition;
+    private final ELContext elContext;
 
     private static class Jexl {
         private static final JexlEngine jexlEngine = new JexlBuilder()
@@ -42,22 +44,11 @@ public class ExpressionLanguage {
     }
 
     public ExpressionLanguage(ExecutionContext context) {
-        this.configuration = context.services().get(ConfigurationMap.class);
-        this.variables = new LinkedHashMap<>(context.variables());
-        this.evaluateLastContentStreamPosition = new EvaluateLastContentStreamPosition(context);
-    }
-
-    // doc: http://commons.apache.org/proper/commons-jexl/reference/examples.html
-    void initializeJexlFunctions(JexlContext jexlContext) {
-        if (configuration != null) {
-            jexlContext.set("ENV", new MapContext(new LinkedHashMap<>(configuration.asMap()))); // TODO dotted EL-vars not supported
-        }
-        jexlContext.set("cast", new ELCast());
-        jexlContext.set("convert", new ELConvert());
-        jexlContext.set("contentStream", new ELContentStream(evaluateLastContentStreamPosition));
-        jexlContext.set("base64", new ELBase64());
-        jexlContext.set("gsm", new Gsm());
-        jexlContext.set("secret",new Secret());
+        ConfigurationMap configuration = context.services().get(ConfigurationMap.class);
+        this.variables = ScopedMap.forkOf(context.variables());
+        EvaluateLastContentStreamPosition evaluateLastContentStreamPosition = new EvaluateLastContentStreamPosition(context);
+        // doc: http://commons.apache.org/proper/commons-jexl/reference/examples.html
+        this.elContext = new ELContext(variables, configuration, new ELContentStream(evaluateLastContentStreamPosition));
     }
 
     public boolean isExpression(String expr) {
@@ -67,48 +58,47 @@ public class ExpressionLanguage {
     }
 
     public String getExpression(String expr) {
-        Matcher m = EXPRESSION_REGEX.matcher(expr);
-        if (m.find()) {
-            return m.group(1);
-        }
-        return expr;
+        return CompiledExpression.stripExpression(expr);
     }
 
     public Object evaluateExpression(String expr) {
-        AtomicReference<String> expressionRef = new AtomicReference<>();
         try {
-            final String expression = (isExpression(expr) ? getExpression(expr) : expr);
-            expressionRef.set(expression);
-            JexlExpression e = Jexl.engine().createExpression(expression);
-            JexlContext jexlContext = new MapContext(variables);
-            initializeJexlFunctions(jexlContext);
-            return e.evaluate(jexlContext);
+            return CompiledExpression.of(expr, Jexl.engine()).evaluate(elContext);
         } catch (RuntimeException | Error e) {
-            LOG.error("Error evaluating expr: '{}', exprKey: '{}' in Map: {}\n{}", expr, expressionRef.get(), variables, CommonUtils.captureStackTrace(e));
+            logEvaluationError(expr, e);
             throw e;
         } catch (Exception e) {
-            LOG.error("Error evaluating expr: '{}', exprKey: '{}' in Map: {}\n{}", expr, expressionRef.get(), variables, CommonUtils.captureStackTrace(e));
+            logEvaluationError(expr, e);
             throw new EvaluationException(e);
         }
     }
 
-    public String evaluateExpressions(String expr) {
-        Matcher m = MULTI_EXPRESSION_REGEX.matcher(expr);
-
-        StringBuffer buf = new StringBuffer();
-        int last = 0;
-        while (m.find()) {
-            for (int n = 0; n < m.groupCount(); n++) {
-                String group = m.group(n);
-                int current = m.start();
-                String prev = expr.substring(last, current);
-                buf.append(prev);
-                buf.append(evaluateExpression(group));
-                last = m.end();
-            }
+    Object evaluateSegment(ELTemplate template, int index) {
+        try {
+            return template.compiledExpression(index, Jexl.engine()).evaluate(elContext);
+        } catch (RuntimeException | Error e) {
+            logEvaluationError(template.expression(index), e);
+            throw e;
+        } catch (Exception e) {
+            logEvaluationError(template.expression(index), e);
+            throw new EvaluationException(e);
         }
-        buf.append(expr.substring(last));
-        return buf.toString();
+    }
+
+    private void logEvaluationError(String expr, Throwable e) {
+        LOG.error("Error evaluating expr: '{}', exprKey: '{}' in Map: {}\n{}", expr, expressionKey(expr), variables, CommonUtils.captureStackTrace(e));
+    }
+
+    private String expressionKey(String expr) {
+        return expr == null ? null : getExpression(expr);
+    }
+
+    public String evaluateExpressions(String expr) {
+        return ELTemplate.of(expr).render(this);
+    }
+
+    public String evaluateExpressions(ELTemplate template) {
+        return template.render(this);
     }
 
 }
@@ -1,6 +1,10 @@
 package no.ssb.dc.api.handler;
 
+import no.ssb.dc.api.http.BodyHandler;
+
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public interface DocumentParserFeature {
@@ -11,4 +15,11 @@ public interface DocumentParserFeature {
 
     void tokenDeserializer(InputStream source, Consumer<Object> entryCallback);
 
+    /**
+     * @return a body handler that runs the token deserializer on the executor while the response body is received
+     */
+    default BodyHandler<CompletableFuture<Void>> tokenDeserializer(Consumer<Object> entryCallback, Executor executor) {
+        return new TokenDeserializerBodyHandler(this, entryCallback, executor);
+    }
+
 }
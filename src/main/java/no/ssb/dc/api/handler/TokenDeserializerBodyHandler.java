@@ -0,0 +1,81 @@
+package no.ssb.dc.api.handler;
+
+import no.ssb.dc.api.http.BodyHandler;
+import no.ssb.dc.api.http.InputStreamBodyHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Feeds the response body to {@link DocumentParserFeature#tokenDeserializer(InputStream, Consumer)} as it is received,
+ * so that entries are handed to the entry callback while the download is in progress.
+ * <p>
+ * The token deserializer runs on the given executor from the moment the body is subscribed. The body outcome
+ * completes when every entry has been handed over, or exceptionally if receiving or parsing the body failed.
+ */
+public class TokenDeserializerBodyHandler implements BodyHandler<CompletableFuture<Void>> {
+
+    private final DocumentParserFeature parser;
+    private final Consumer<Object> entryCallback;
+    private final Executor executor;
+    private final InputStreamBodyHandler bodyStream;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    public TokenDeserializerBodyHandler(DocumentParserFeature parser, Consumer<Object> entryCallback, Executor executor) {
+        this(parser, entryCallback, executor, new InputStreamBodyHandler());
+    }
+
+    public TokenDeserializerBodyHandler(DocumentParserFeature parser, Consumer<Object> entryCallback, Executor executor, InputStreamBodyHandler bodyStream) {
+        this.parser = parser;
+        this.entryCallback = entryCallback;
+        this.executor = executor;
+        this.bodyStream = bodyStream;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        bodyStream.onSubscribe(subscription);
+        CompletableFuture.runAsync(this::parse, executor).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(null);
+            }
+        });
+    }
+
+    private void parse() {
+        try (InputStream source = bodyStream.body()) {
+            parser.tokenDeserializer(source, entryCallback);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        bodyStream.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        bodyStream.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        bodyStream.onComplete();
+    }
+
+    @Override
+    public CompletableFuture<Void> body() {
+        return future;
+    }
+}
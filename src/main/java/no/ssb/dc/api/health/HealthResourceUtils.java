@@ -2,8 +2,8 @@ package no.ssb.dc.api.health;
 
 import no.ssb.dc.api.context.ExecutionContext;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 
 public class HealthResourceUtils {
 
@@ -44,19 +44,71 @@ public class HealthResourceUtils {
     }
 
     public static void updateMonitorLastPosition(ExecutionContext context, String lastPosition) {
-        try {
-            Method getServiceMethod = context.services().getClass().getDeclaredMethod("get", Class.class);
-            Object monitor = getServiceMethod.invoke(context.services(), Class.forName("no.ssb.dc.core.health.HealthWorkerMonitor"));
+        LastPositionMonitor lastPositionMonitor = context.services().get(LastPositionMonitor.class);
+        if (lastPositionMonitor != null) {
+            lastPositionMonitor.setLastPosition(lastPosition);
+            return;
+        }
+        WorkerMonitorHandles.updateLastPosition(context, lastPosition);
+    }
+
+    /**
+     * Resolves and caches method handles for monitor.contentStream().setLastPosition(String lastPosition) of the core
+     * HealthWorkerMonitor, which is not visible to this module.
+     */
+    static class WorkerMonitorHandles {
+
+        static final String HEALTH_WORKER_MONITOR_CLASS = "no.ssb.dc.core.health.HealthWorkerMonitor";
+
+        private static final Class<?> healthWorkerMonitorClass = loadHealthWorkerMonitorClass();
+        private static final MethodHandle contentStreamHandle = findContentStreamHandle();
+
+        private static final ClassValue<MethodHandle> setLastPositionHandles = new ClassValue<>() {
+            @Override
+            protected MethodHandle computeValue(Class<?> type) {
+                try {
+                    return MethodHandles.publicLookup().unreflect(type.getDeclaredMethod("setLastPosition", String.class));
+                } catch (NoSuchMethodException | IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        private static Class<?> loadHealthWorkerMonitorClass() {
+            try {
+                return Class.forName(HEALTH_WORKER_MONITOR_CLASS);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle findContentStreamHandle() {
+            if (healthWorkerMonitorClass == null) {
+                return null;
+            }
+            try {
+                return MethodHandles.publicLookup().unreflect(healthWorkerMonitorClass.getDeclaredMethod("contentStream"));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        static void updateLastPosition(ExecutionContext context, String lastPosition) {
+            if (healthWorkerMonitorClass == null) {
+                return;
+            }
+            Object monitor = context.services().get(healthWorkerMonitorClass);
             if (monitor == null) {
                 return;
             }
-            // monitor.contentStream().setLastPosition(String lastPosition)
-            Method contentStreamMethod = monitor.getClass().getDeclaredMethod("contentStream");
-            Object contentStream = contentStreamMethod.invoke(monitor);
-            Method setLastPositionMethod = contentStream.getClass().getDeclaredMethod("setLastPosition", String.class);
-            setLastPositionMethod.invoke(contentStream, lastPosition);
-        } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+            try {
+                Object contentStream = contentStreamHandle.invoke(monitor);
+                setLastPositionHandles.get(contentStream.getClass()).invoke(contentStream, lastPosition);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
         }
     }
 }
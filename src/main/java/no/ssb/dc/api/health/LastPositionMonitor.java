@@ -0,0 +1,11 @@
+package no.ssb.dc.api.health;
+
+/**
+ * Receives the last position resolved for the worker topic. A worker monitor that is registered in services under
+ * this interface is updated without reflection.
+ */
+public interface LastPositionMonitor {
+
+    void setLastPosition(String lastPosition);
+
+}
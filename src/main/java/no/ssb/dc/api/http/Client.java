@@ -32,6 +32,13 @@ public interface Client {
 
     Object getDelegate();
 
+    /**
+     * @return connection pool state, or {@link ConnectionMetrics#UNAVAILABLE} if the client does not report it
+     */
+    default ConnectionMetrics connectionMetrics() {
+        return ConnectionMetrics.UNAVAILABLE;
+    }
+
     enum Version {
         HTTP_1_1,
         HTTP_2
@@ -76,6 +83,36 @@ public interface Client {
 
         Builder proxy(ProxySelector proxySelector);
 
+        /**
+         * Connection and multiplexing settings are hints; a client ignores those its transport does not support.
+         */
+        default Builder maxConnectionsPerHost(int maxConnections) {
+            return this;
+        }
+
+        default Builder keepAlive(Duration keepAlive) {
+            return this;
+        }
+
+        /**
+         * Requests multiplexed over one HTTP/2 connection before another connection is opened
+         */
+        default Builder maxConcurrentStreams(int maxConcurrentStreams) {
+            return this;
+        }
+
+        /**
+         * Send HTTP/1.1 requests on a connection without waiting for earlier responses
+         */
+        default Builder pipelining(boolean enable) {
+            return this;
+        }
+
+        default Builder connectionSettings(ConnectionSettings connectionSettings) {
+            connectionSettings.applyTo(this);
+            return this;
+        }
+
         Client build();
     }
 
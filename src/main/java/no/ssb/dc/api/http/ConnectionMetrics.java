@@ -0,0 +1,49 @@
+package no.ssb.dc.api.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection pool state of a {@link Client}. A value of -1 means the client does not report it.
+ */
+public interface ConnectionMetrics {
+
+    ConnectionMetrics UNAVAILABLE = new ConnectionMetrics() {
+    };
+
+    default int openConnections() {
+        return -1;
+    }
+
+    default int idleConnections() {
+        return -1;
+    }
+
+    /**
+     * @return requests in flight over open connections, which are streams for HTTP/2
+     */
+    default int activeStreams() {
+        return -1;
+    }
+
+    /**
+     * @return requests waiting for a connection or a stream
+     */
+    default int pendingRequests() {
+        return -1;
+    }
+
+    default long connectionsCreated() {
+        return -1;
+    }
+
+    default Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("open-connections", openConnections());
+        map.put("idle-connections", idleConnections());
+        map.put("active-streams", activeStreams());
+        map.put("pending-requests", pendingRequests());
+        map.put("connections-created", connectionsCreated());
+        return map;
+    }
+}
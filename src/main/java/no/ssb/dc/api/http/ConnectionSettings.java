@@ -0,0 +1,146 @@
+package no.ssb.dc.api.http;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Connection pool and multiplexing settings for a {@link Client}. Unset values leave the client default in place.
+ * <p>
+ * With HTTP/2, requests to a host are multiplexed as streams over a few connections, so max concurrent streams times
+ * max connections per host bounds the requests in flight to a host. With HTTP/1.1, each connection carries one
+ * request at a time unless pipelining is enabled.
+ */
+public class ConnectionSettings {
+
+    private static final ConnectionSettings DEFAULTS = new ConnectionSettings(null, null, null, null, null);
+
+    private final Client.Version version;
+    private final Integer maxConnectionsPerHost;
+    private final Duration keepAlive;
+    private final Integer maxConcurrentStreams;
+    private final Boolean pipelining;
+
+    ConnectionSettings(Client.Version version, Integer maxConnectionsPerHost, Duration keepAlive, Integer maxConcurrentStreams, Boolean pipelining) {
+        this.version = version;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.keepAlive = keepAlive;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.pipelining = pipelining;
+    }
+
+    public static ConnectionSettings defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Client.Version version() {
+        return version;
+    }
+
+    public Integer maxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public Duration keepAlive() {
+        return keepAlive;
+    }
+
+    public Integer maxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public Boolean pipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Apply the settings that are set to a client builder
+     */
+    public Client.Builder applyTo(Client.Builder clientBuilder) {
+        if (version != null) {
+            clientBuilder.version(version);
+        }
+        if (maxConnectionsPerHost != null) {
+            clientBuilder.maxConnectionsPerHost(maxConnectionsPerHost);
+        }
+        if (keepAlive != null) {
+            clientBuilder.keepAlive(keepAlive);
+        }
+        if (maxConcurrentStreams != null) {
+            clientBuilder.maxConcurrentStreams(maxConcurrentStreams);
+        }
+        if (pipelining != null) {
+            clientBuilder.pipelining(pipelining);
+        }
+        return clientBuilder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConnectionSettings that = (ConnectionSettings) o;
+        return version == that.version &&
+                Objects.equals(maxConnectionsPerHost, that.maxConnectionsPerHost) &&
+                Objects.equals(keepAlive, that.keepAlive) &&
+                Objects.equals(maxConcurrentStreams, that.maxConcurrentStreams) &&
+                Objects.equals(pipelining, that.pipelining);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, maxConnectionsPerHost, keepAlive, maxConcurrentStreams, pipelining);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionSettings{" +
+                "version=" + version +
+                ", maxConnectionsPerHost=" + maxConnectionsPerHost +
+                ", keepAlive=" + keepAlive +
+                ", maxConcurrentStreams=" + maxConcurrentStreams +
+                ", pipelining=" + pipelining +
+                '}';
+    }
+
+    public static class Builder {
+
+        private Client.Version version;
+        private Integer maxConnectionsPerHost;
+        private Duration keepAlive;
+        private Integer maxConcurrentStreams;
+        private Boolean pipelining;
+
+        public Builder version(Client.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder maxConnectionsPerHost(Integer maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        public Builder maxConcurrentStreams(Integer maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            return this;
+        }
+
+        public Builder pipelining(Boolean pipelining) {
+            this.pipelining = pipelining;
+            return this;
+        }
+
+        public ConnectionSettings build() {
+            return new ConnectionSettings(version, maxConnectionsPerHost, keepAlive, maxConcurrentStreams, pipelining);
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package no.ssb.dc.api.http;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 // TODO https://en.wikipedia.org/wiki/List_of_HTTP_status_codes
 public enum HttpStatus {
@@ -56,108 +54,93 @@ public enum HttpStatus {
     HTTP_GATEWAY_TIMEOUT(504, "Gateway Timeout"),
     HTTP_VERSION(505, "HTTP Version Not Supported");
 
-    private static final Map<Integer, HttpStatus> okMap = new LinkedHashMap<>();
-    private static final Map<Integer, HttpStatus> redirectionMap = new LinkedHashMap<>();
-    private static final Map<Integer, HttpStatus> clientErrorMap = new LinkedHashMap<>();
-    private static final Map<Integer, HttpStatus> serverErrorMap = new LinkedHashMap<>();
+    static final int MAX_STATUS_CODE = 599;
 
-    private final int statusCode;
-    private final String reason;
-
-    HttpStatus(int statusCode, String reason) {
-        this.statusCode = statusCode;
-        this.reason = reason;
-    }
+    private static final HttpStatus[] STATUS_BY_CODE = new HttpStatus[MAX_STATUS_CODE + 1];
 
-    static Map<Integer, HttpStatus> rangeMap(int fromStatusCodeInclusive, int toStatusCodeInclusive) {
-        Map<Integer, HttpStatus> rangeMap = new LinkedHashMap<>();
+    static {
         for (HttpStatus value : values()) {
-            if (value.statusCode >= fromStatusCodeInclusive && value.statusCode <= toStatusCodeInclusive) {
-                rangeMap.put(value.statusCode, value);
-            }
+            STATUS_BY_CODE[value.statusCode] = value;
         }
-        return rangeMap;
     }
 
-    static void buildOkMap() {
-        if (okMap.isEmpty()) {
-            okMap.putAll(rangeMap(200, 299));
-        }
-    }
+    private static final HttpStatusSet KNOWN_CODES = HttpStatusSet.of(range(0, MAX_STATUS_CODE));
+    private static final HttpStatusSet OK_CODES = HttpStatusSet.of(range(200, 299));
+    private static final HttpStatusSet REDIRECTION_CODES = HttpStatusSet.of(range(300, 399));
+    private static final HttpStatusSet CLIENT_ERROR_CODES = HttpStatusSet.of(range(400, 499));
+    private static final HttpStatusSet SERVER_ERROR_CODES = HttpStatusSet.of(range(500, 599));
+    private static final List<HttpStatus> OK_LIST = Collections.unmodifiableList(range(200, 299));
+    private static final List<HttpStatus> REDIRECTION_LIST = Collections.unmodifiableList(range(300, 399));
+    private static final List<HttpStatus> CLIENT_ERROR_LIST = Collections.unmodifiableList(range(400, 499));
+    private static final List<HttpStatus> SERVER_ERROR_LIST = Collections.unmodifiableList(range(500, 599));
 
-    static void buildRedirectionMap() {
-        if (redirectionMap.isEmpty()) {
-            redirectionMap.putAll(rangeMap(300, 399));
-        }
-    }
-
-    static void buildClientErrorMap() {
-        if (clientErrorMap.isEmpty()) {
-            clientErrorMap.putAll(rangeMap(400, 499));
-        }
-    }
+    private final int statusCode;
+    private final String reason;
 
-    static void buildServerErrorMap() {
-        if (serverErrorMap.isEmpty()) {
-            serverErrorMap.putAll(rangeMap(500, 599));
-        }
+    HttpStatus(int statusCode, String reason) {
+        this.statusCode = statusCode;
+        this.reason = reason;
     }
 
     static public List<HttpStatus> okCodes() {
-        buildOkMap();
-        return (List<HttpStatus>) okMap.values();
+        return OK_LIST;
     }
 
     static public boolean isOk(int statusCode) {
-        buildOkMap();
-        return okMap.containsKey(statusCode);
+        return OK_CODES.contains(statusCode);
     }
 
     static public List<HttpStatus> redirectionCodes() {
-        buildRedirectionMap();
-        return (List<HttpStatus>) redirectionMap.values();
+        return REDIRECTION_LIST;
     }
 
     static public boolean isRedirection(int statusCode) {
-        buildRedirectionMap();
-        return redirectionMap.containsKey(statusCode);
+        return REDIRECTION_CODES.contains(statusCode);
     }
 
     static public List<HttpStatus> clientErrorList() {
-        buildClientErrorMap();
-        return (List<HttpStatus>) clientErrorMap.values();
+        return CLIENT_ERROR_LIST;
     }
 
     static public Integer[] clientErrorCodes() {
-        return clientErrorList().stream().map(code -> code.statusCode).collect(Collectors.toList()).toArray(new Integer[clientErrorList().size()]);
+        return CLIENT_ERROR_LIST.stream().map(code -> code.statusCode).toArray(Integer[]::new);
     }
 
     static public boolean isClientError(int statusCode) {
-        buildClientErrorMap();
-        return clientErrorMap.containsKey(statusCode);
+        return CLIENT_ERROR_CODES.contains(statusCode);
     }
 
     static public List<HttpStatus> serverErrorCodes() {
-        buildServerErrorMap();
-        return (List<HttpStatus>) serverErrorMap.values();
+        return SERVER_ERROR_LIST;
     }
 
     static public boolean isServerError(int statusCode) {
-        buildServerErrorMap();
-        return serverErrorMap.containsKey(statusCode);
+        return SERVER_ERROR_CODES.contains(statusCode);
     }
 
+    static public boolean isKnown(int statusCode) {
+        return KNOWN_CODES.contains(statusCode);
+    }
+
+    /**
+     * @return the known status codes within the range, in ascending order
+     */
     static public List<HttpStatus> range(int fromStatusCodeInclusive, int toStatusCodeInclusive) {
-        return new ArrayList<>(rangeMap(fromStatusCodeInclusive, toStatusCodeInclusive).values());
+        List<HttpStatus> range = new ArrayList<>();
+        for (int code = Math.max(0, fromStatusCodeInclusive); code <= Math.min(MAX_STATUS_CODE, toStatusCodeInclusive); code++) {
+            if (STATUS_BY_CODE[code] != null) {
+                range.add(STATUS_BY_CODE[code]);
+            }
+        }
+        return range;
     }
 
     static public HttpStatus valueOf(int statusCode) {
-        for (HttpStatus value : values()) {
-            if (value.statusCode == statusCode) {
-                return value;
-            }
+        HttpStatus value = statusCode >= 0 && statusCode <= MAX_STATUS_CODE ? STATUS_BY_CODE[statusCode] : null;
+        if (value == null) {
+            throw new IllegalStateException("HttpStatusCode is not supported: " + statusCode);
         }
-        throw new IllegalStateException("HttpStatusCode is not supported: " + statusCode);
+        return value;
     }
 
     public int code() {
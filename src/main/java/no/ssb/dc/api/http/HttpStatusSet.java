@@ -0,0 +1,143 @@
+package no.ssb.dc.api.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * An immutable set of status codes from 0 to 599, held as a bitset so that membership is tested without allocating.
+ * Any code in range may be a member, also codes that are not declared by {@link HttpStatus}.
+ */
+public final class HttpStatusSet {
+
+    private static final int WORDS = (HttpStatus.MAX_STATUS_CODE >> 6) + 1;
+
+    public static final HttpStatusSet EMPTY = new HttpStatusSet(new long[WORDS]);
+
+    private final long[] words;
+
+    private HttpStatusSet(long[] words) {
+        this.words = words;
+    }
+
+    public static HttpStatusSet of(int... statusCodes) {
+        long[] words = new long[WORDS];
+        for (int statusCode : statusCodes) {
+            set(words, statusCode);
+        }
+        return new HttpStatusSet(words);
+    }
+
+    public static HttpStatusSet of(Collection<?> statusCodes) {
+        long[] words = new long[WORDS];
+        for (Object statusCode : statusCodes) {
+            if (statusCode instanceof HttpStatus) {
+                set(words, ((HttpStatus) statusCode).code());
+            } else if (statusCode instanceof Integer) {
+                set(words, (Integer) statusCode);
+            } else {
+                throw new IllegalArgumentException("Not a status code: " + statusCode);
+            }
+        }
+        return new HttpStatusSet(words);
+    }
+
+    /**
+     * @return every code within the range, whether declared by {@link HttpStatus} or not
+     */
+    public static HttpStatusSet range(int fromStatusCodeInclusive, int toStatusCodeInclusive) {
+        long[] words = new long[WORDS];
+        for (int statusCode = fromStatusCodeInclusive; statusCode <= toStatusCodeInclusive; statusCode++) {
+            set(words, statusCode);
+        }
+        return new HttpStatusSet(words);
+    }
+
+    private static void set(long[] words, int statusCode) {
+        if (statusCode < 0 || statusCode > HttpStatus.MAX_STATUS_CODE) {
+            throw new IllegalArgumentException("Status code out of range: " + statusCode);
+        }
+        words[statusCode >> 6] |= 1L << statusCode;
+    }
+
+    public boolean contains(int statusCode) {
+        return statusCode >= 0 && statusCode <= HttpStatus.MAX_STATUS_CODE && (words[statusCode >> 6] & (1L << statusCode)) != 0;
+    }
+
+    public boolean contains(HttpStatus status) {
+        return contains(status.code());
+    }
+
+    public HttpStatusSet union(HttpStatusSet other) {
+        long[] union = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            union[i] = words[i] | other.words[i];
+        }
+        return new HttpStatusSet(union);
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the member codes in ascending order
+     */
+    public int[] codes() {
+        int[] codes = new int[size()];
+        int n = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                codes[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * @return the members that are declared by {@link HttpStatus}, in ascending order
+     */
+    public List<HttpStatus> statuses() {
+        List<HttpStatus> statuses = new ArrayList<>();
+        for (int code : codes()) {
+            if (HttpStatus.isKnown(code)) {
+                statuses.add(HttpStatus.valueOf(code));
+            }
+        }
+        return statuses;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HttpStatusSet that = (HttpStatusSet) o;
+        return Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "HttpStatusSet{", "}");
+        for (int code : codes()) {
+            joiner.add(String.valueOf(code));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package no.ssb.dc.api.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exposes the response body as an InputStream that can be read while the body is still being received.
+ * <p>
+ * Chunks are requested from the subscription only while less than maxBufferedBytes are waiting to be read, so a slow
+ * reader holds back the download instead of the body being accumulated in memory. Closing the stream before the end
+ * cancels the subscription. The received buffers are read through duplicates, so their positions are left untouched.
+ */
+public class InputStreamBodyHandler implements BodyHandler<InputStream> {
+
+    static final int DEFAULT_MAX_BUFFERED_BYTES = 64 * 1024;
+
+    private final int maxBufferedBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+    private final BodyInputStream inputStream = new BodyInputStream();
+    private Flow.Subscription subscription;
+    private long bufferedBytes;
+    private boolean requested;
+    private boolean completed;
+    private boolean closed;
+    private Throwable error;
+
+    public InputStreamBodyHandler() {
+        this(DEFAULT_MAX_BUFFERED_BYTES);
+    }
+
+    public InputStreamBodyHandler(int maxBufferedBytes) {
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        lock.lock();
+        try {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            if (closed) {
+                subscription.cancel();
+                return;
+            }
+            requestIfBelowLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        lock.lock();
+        try {
+            requested = false;
+            if (closed) {
+                return;
+            }
+            for (ByteBuffer buffer : item) {
+                if (buffer.hasRemaining()) {
+                    buffers.add(buffer.duplicate());
+                    bufferedBytes += buffer.remaining();
+                }
+            }
+            available.signalAll();
+            requestIfBelowLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        lock.lock();
+        try {
+            error = throwable;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        lock.lock();
+        try {
+            completed = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public InputStream body() {
+        return inputStream;
+    }
+
+    private void requestIfBelowLimit() {
+        if (subscription != null && !requested && !completed && !closed && error == null && bufferedBytes < maxBufferedBytes) {
+            requested = true;
+            subscription.request(1);
+        }
+    }
+
+    class BodyInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                ByteBuffer buffer = awaitBuffer();
+                if (buffer == null) {
+                    return -1;
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                bufferedBytes -= n;
+                if (!buffer.hasRemaining()) {
+                    buffers.poll();
+                }
+                requestIfBelowLimit();
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int available() {
+            lock.lock();
+            try {
+                return (int) Math.min(Integer.MAX_VALUE, bufferedBytes);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private ByteBuffer awaitBuffer() throws IOException {
+            while (buffers.isEmpty()) {
+                if (closed) {
+                    throw new IOException("Stream closed");
+                }
+                if (error != null) {
+                    throw new IOException("Error receiving body", error);
+                }
+                if (completed) {
+                    return null;
+                }
+                try {
+                    available.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for body", e);
+                }
+            }
+            return buffers.peek();
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffers.clear();
+                bufferedBytes = 0;
+                if (subscription != null && !completed) {
+                    subscription.cancel();
+                }
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package no.ssb.dc.api.http;
+
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the request rate with a {@link TokenBucket} and the number of requests in flight with a semaphore.
+ * <p>
+ * A permit is acquired before a request is sent and closed when its response has been handled. One limiter is shared
+ * by every operation of a specification, so requests made by parallel entries count against the same limits.
+ */
+public class RateLimiter {
+
+    private static final RateLimiter UNLIMITED = new RateLimiter(null, 0);
+    private static final Permit NO_OP_PERMIT = () -> {
+    };
+
+    private final TokenBucket tokenBucket;
+    private final int maxConcurrency;
+    private final Semaphore concurrency;
+
+    RateLimiter(TokenBucket tokenBucket, int maxConcurrency) {
+        this.tokenBucket = tokenBucket;
+        this.maxConcurrency = maxConcurrency;
+        this.concurrency = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+    }
+
+    /**
+     * @param requestsPerSecond sustained request rate, or zero for no rate limit
+     * @param burst             requests that may be sent at once after an idle period, at least one
+     * @param maxConcurrency    requests in flight, or zero for no limit
+     */
+    public static RateLimiter of(double requestsPerSecond, int burst, int maxConcurrency) {
+        if (requestsPerSecond <= 0 && maxConcurrency <= 0) {
+            return UNLIMITED;
+        }
+        return new RateLimiter(requestsPerSecond > 0 ? new TokenBucket(Math.max(1, burst), requestsPerSecond) : null, maxConcurrency);
+    }
+
+    public static RateLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean isUnlimited() {
+        return tokenBucket == null && concurrency == null;
+    }
+
+    /**
+     * Wait for a concurrency slot and then for the rate limit
+     */
+    public Permit acquire() throws InterruptedException {
+        if (isUnlimited()) {
+            return NO_OP_PERMIT;
+        }
+        if (concurrency != null) {
+            concurrency.acquire();
+        }
+        try {
+            if (tokenBucket != null) {
+                tokenBucket.acquire();
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            if (concurrency != null) {
+                concurrency.release();
+            }
+            throw e;
+        }
+        return concurrency != null ? new ConcurrencyPermit() : NO_OP_PERMIT;
+    }
+
+    /**
+     * @return a permit if a request may be sent now
+     */
+    public Optional<Permit> tryAcquire() {
+        if (isUnlimited()) {
+            return Optional.of(NO_OP_PERMIT);
+        }
+        if (concurrency != null && !concurrency.tryAcquire()) {
+            return Optional.empty();
+        }
+        if (tokenBucket != null && !tokenBucket.tryAcquire()) {
+            if (concurrency != null) {
+                concurrency.release();
+            }
+            return Optional.empty();
+        }
+        return Optional.of(concurrency != null ? new ConcurrencyPermit() : NO_OP_PERMIT);
+    }
+
+    /**
+     * @return requests in flight, or zero when concurrency is not limited
+     */
+    public int inFlight() {
+        return concurrency == null ? 0 : maxConcurrency - concurrency.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{" +
+                "tokenBucket=" + tokenBucket +
+                ", concurrency=" + concurrency +
+                '}';
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    class ConcurrencyPermit implements Permit {
+
+        private boolean closed;
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                concurrency.release();
+            }
+        }
+    }
+}
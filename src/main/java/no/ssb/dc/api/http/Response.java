@@ -1,5 +1,6 @@
 package no.ssb.dc.api.http;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.ServiceLoader;
 
@@ -17,6 +18,15 @@ public interface Response {
 
     byte[] body();
 
+    /**
+     * A read-only view of the body. Implementations that receive the body into buffers should return a read-only view
+     * of them. The default views {@link #body()} without copying it.
+     */
+    default ByteBuffer bodyAsByteBuffer() {
+        byte[] body = body();
+        return body == null ? null : ByteBuffer.wrap(body).asReadOnlyBuffer();
+    }
+
     /**
      * Use: Response.<TYPE>bodyHandler()
      *
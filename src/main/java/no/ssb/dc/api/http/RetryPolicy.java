@@ -0,0 +1,270 @@
+package no.ssb.dc.api.http;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides whether and when a request is retried.
+ * <p>
+ * The delay grows exponentially from the initial delay up to the max delay, and is reduced by a random fraction of
+ * up to jitter, so that clients retrying at the same time spread out. A Retry-After response header raises the delay
+ * to what the server asked for. When a retry token bucket is configured, every retry to a host takes a token from the
+ * bucket shared by all requests to that host, and waits for it when the bucket is empty, so that parallel requests
+ * back off together. The request is given up when max attempts is exceeded or the next retry would exceed the max
+ * elapsed time.
+ */
+public class RetryPolicy {
+
+    static final String RETRY_AFTER = "Retry-After";
+
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double multiplier;
+    private final double jitter;
+    private final boolean respectRetryAfter;
+    private final Duration maxElapsed;
+    private final int maxAttempts;
+    private final int tokenBucketCapacity;
+    private final double tokenBucketRefillPerSecond;
+    private final DoubleSupplier random;
+    private final Map<String, TokenBucket> tokenBuckets = new ConcurrentHashMap<>();
+
+    RetryPolicy(Duration initialDelay, Duration maxDelay, double multiplier, double jitter, boolean respectRetryAfter,
+                Duration maxElapsed, int maxAttempts, int tokenBucketCapacity, double tokenBucketRefillPerSecond, DoubleSupplier random) {
+        if (multiplier < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Multiplier must be at least 1 and jitter between 0 and 1");
+        }
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay.compareTo(initialDelay) < 0 ? initialDelay : maxDelay;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.respectRetryAfter = respectRetryAfter;
+        this.maxElapsed = maxElapsed;
+        this.maxAttempts = maxAttempts;
+        this.tokenBucketCapacity = tokenBucketCapacity;
+        this.tokenBucketRefillPerSecond = tokenBucketRefillPerSecond;
+        this.random = random;
+    }
+
+    /**
+     * The same delay before every retry, without limit
+     */
+    public static RetryPolicy fixed(Duration delay) {
+        return builder().initialDelay(delay).maxDelay(delay).multiplier(1).jitter(0).respectRetryAfter(false).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param attempt         the retry about to be made, starting at 1
+     * @param elapsed         time spent on the request so far
+     * @param host            the host the request is sent to, which selects the token bucket
+     * @param responseHeaders headers of the response that is retried, or null
+     * @return the delay before the retry, or empty if the request should be given up
+     */
+    public Optional<Duration> nextDelay(int attempt, Duration elapsed, String host, Headers responseHeaders) {
+        if (maxAttempts >= 0 && attempt > maxAttempts) {
+            return Optional.empty();
+        }
+        long delayMillis = backoffMillis(attempt);
+        if (respectRetryAfter && responseHeaders != null) {
+            OptionalLong retryAfterMillis = retryAfterMillis(responseHeaders);
+            if (retryAfterMillis.isPresent()) {
+                delayMillis = Math.max(delayMillis, retryAfterMillis.getAsLong());
+            }
+        }
+        if (maxElapsed != null && elapsed.toMillis() + delayMillis > maxElapsed.toMillis()) {
+            return Optional.empty();
+        }
+        Duration delay = Duration.ofMillis(delayMillis);
+        if (tokenBucketCapacity > 0) {
+            TokenBucket tokenBucket = tokenBucket(host);
+            delay = delay.plusNanos(tokenBucket.reserve());
+            if (maxElapsed != null && elapsed.plus(delay).compareTo(maxElapsed) > 0) {
+                tokenBucket.refund();
+                return Optional.empty();
+            }
+        }
+        return Optional.of(delay);
+    }
+
+    long backoffMillis(int attempt) {
+        double exponential = initialDelay.toMillis() * Math.pow(multiplier, Math.max(0, attempt - 1));
+        double capped = Math.min(exponential, maxDelay.toMillis());
+        return (long) (capped * (1 - jitter * random.getAsDouble()));
+    }
+
+    /**
+     * Retry-After is either a number of seconds or an HTTP date
+     */
+    static OptionalLong retryAfterMillis(Headers headers) {
+        for (Map.Entry<String, List<String>> entry : headers.asMap().entrySet()) {
+            if (!RETRY_AFTER.equalsIgnoreCase(entry.getKey()) || entry.getValue().isEmpty()) {
+                continue;
+            }
+            try {
+                OptionalLong seconds = headers.firstValueAsLong(entry.getKey());
+                return seconds.isPresent() ? OptionalLong.of(Math.max(0, seconds.getAsLong()) * 1000) : OptionalLong.empty();
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime retryAt = ZonedDateTime.parse(entry.getValue().get(0).trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return OptionalLong.of(Math.max(0, retryAt.toInstant().toEpochMilli() - System.currentTimeMillis()));
+                } catch (DateTimeParseException ignored) {
+                    return OptionalLong.empty();
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    public TokenBucket tokenBucket(String host) {
+        return tokenBuckets.computeIfAbsent(host == null ? "" : host, h -> new TokenBucket(tokenBucketCapacity, tokenBucketRefillPerSecond));
+    }
+
+    public Duration initialDelay() {
+        return initialDelay;
+    }
+
+    public Duration maxDelay() {
+        return maxDelay;
+    }
+
+    public double multiplier() {
+        return multiplier;
+    }
+
+    public double jitter() {
+        return jitter;
+    }
+
+    public boolean respectRetryAfter() {
+        return respectRetryAfter;
+    }
+
+    public Duration maxElapsed() {
+        return maxElapsed;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RetryPolicy that = (RetryPolicy) o;
+        return Double.compare(that.multiplier, multiplier) == 0 &&
+                Double.compare(that.jitter, jitter) == 0 &&
+                respectRetryAfter == that.respectRetryAfter &&
+                maxAttempts == that.maxAttempts &&
+                tokenBucketCapacity == that.tokenBucketCapacity &&
+                Double.compare(that.tokenBucketRefillPerSecond, tokenBucketRefillPerSecond) == 0 &&
+                initialDelay.equals(that.initialDelay) &&
+                maxDelay.equals(that.maxDelay) &&
+                Objects.equals(maxElapsed, that.maxElapsed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(initialDelay, maxDelay, multiplier, jitter, respectRetryAfter, maxElapsed, maxAttempts, tokenBucketCapacity, tokenBucketRefillPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "initialDelay=" + initialDelay +
+                ", maxDelay=" + maxDelay +
+                ", multiplier=" + multiplier +
+                ", jitter=" + jitter +
+                ", respectRetryAfter=" + respectRetryAfter +
+                ", maxElapsed=" + maxElapsed +
+                ", maxAttempts=" + maxAttempts +
+                ", tokenBucketCapacity=" + tokenBucketCapacity +
+                ", tokenBucketRefillPerSecond=" + tokenBucketRefillPerSecond +
+                '}';
+    }
+
+    public static class Builder {
+
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private Duration maxDelay = Duration.ofMinutes(1);
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private boolean respectRetryAfter = true;
+        private Duration maxElapsed;
+        private int maxAttempts = -1;
+        private int tokenBucketCapacity;
+        private double tokenBucketRefillPerSecond;
+        private DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+
+        public Builder initialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder multiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param jitter the largest fraction, from 0 to 1, that is randomly taken off the delay
+         */
+        public Builder jitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        public Builder respectRetryAfter(boolean respectRetryAfter) {
+            this.respectRetryAfter = respectRetryAfter;
+            return this;
+        }
+
+        public Builder maxElapsed(Duration maxElapsed) {
+            this.maxElapsed = maxElapsed;
+            return this;
+        }
+
+        /**
+         * @param maxAttempts the number of retries, or a negative number for no limit
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder tokenBucket(int capacity, double refillPerSecond) {
+            this.tokenBucketCapacity = capacity;
+            this.tokenBucketRefillPerSecond = refillPerSecond;
+            return this;
+        }
+
+        Builder random(DoubleSupplier random) {
+            this.random = random;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(initialDelay, maxDelay, multiplier, jitter, respectRetryAfter, maxElapsed, maxAttempts,
+                    tokenBucketCapacity, tokenBucketRefillPerSecond, random);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package no.ssb.dc.api.node;
 
 import no.ssb.dc.api.node.builder.BuildContext;
+import no.ssb.dc.api.node.builder.ConnectionPoolBuilder;
+import no.ssb.dc.api.node.builder.RateLimitBuilder;
 import no.ssb.dc.api.node.builder.SecurityBuilder;
 import no.ssb.dc.api.node.builder.SpecificationContextBuilder;
 
@@ -24,6 +26,14 @@ public class Configurations {
         return (Security) configurationMap.get(Security.class);
     }
 
+    public RateLimit rateLimit() {
+        return (RateLimit) configurationMap.get(RateLimit.class);
+    }
+
+    public ConnectionPool connectionPool() {
+        return (ConnectionPool) configurationMap.get(ConnectionPool.class);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -69,6 +79,14 @@ public class Configurations {
                 SecurityBuilder securityBuilder = new SecurityBuilder();
                 configurationMap.put(Security.class, securityBuilder.build(BuildContext.empty()));
             }
+
+            if (!configurationMap.containsKey(RateLimit.class)) {
+                configurationMap.put(RateLimit.class, new RateLimitBuilder().build(BuildContext.empty()));
+            }
+
+            if (!configurationMap.containsKey(ConnectionPool.class)) {
+                configurationMap.put(ConnectionPool.class, new ConnectionPoolBuilder().build(BuildContext.empty()));
+            }
         }
 
         public Configurations build() {
@@ -0,0 +1,12 @@
+package no.ssb.dc.api.node;
+
+import no.ssb.dc.api.http.ConnectionSettings;
+
+public interface ConnectionPool extends Configuration {
+
+    /**
+     * @return the settings a worker applies to the client builder of the specification
+     */
+    ConnectionSettings settings();
+
+}
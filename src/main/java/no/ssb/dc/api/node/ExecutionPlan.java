@@ -0,0 +1,164 @@
+package no.ssb.dc.api.node;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A specification compiled by {@link no.ssb.dc.api.node.builder.SpecificationBuilder#end()}.
+ * <p>
+ * Execute targets are resolved, required inputs are checked against the variables produced along the flow, and the
+ * number of requests per page is estimated before anything is collected. The plan holds every reachable node in
+ * depth-first pre-order, so an executor can run it without looking up functions by id.
+ */
+public interface ExecutionPlan {
+
+    enum Severity {
+        WARNING,
+        ERROR
+    }
+
+    Node startFunction();
+
+    /**
+     * @return every node reachable from the start function in depth-first pre-order, each node once
+     */
+    List<Node> nodes();
+
+    /**
+     * @return the position of the node in {@link #nodes()}, or -1 if the node is not part of the plan
+     */
+    int indexOf(Node node);
+
+    /**
+     * @return variables that are in scope when the node is run: global variables and variables bound or produced
+     * before it in the flow
+     */
+    Set<String> variablesInScope(Node node);
+
+    /**
+     * @return requests issued each time the node is run. A paginate node is estimated per page.
+     */
+    RequestEstimate requestEstimate(Node node);
+
+    List<Diagnostic> diagnostics();
+
+    default List<Diagnostic> diagnostics(Severity severity) {
+        return diagnostics().stream().filter(diagnostic -> diagnostic.severity() == severity).collect(Collectors.toList());
+    }
+
+    default boolean hasErrors() {
+        return diagnostics().stream().anyMatch(diagnostic -> diagnostic.severity() == Severity.ERROR);
+    }
+
+    String toPrintableExecutionPlan();
+
+    final class Diagnostic {
+
+        final Severity severity;
+        final String path;
+        final Node node;
+        final String message;
+
+        public Diagnostic(Severity severity, String path, Node node, String message) {
+            this.severity = severity;
+            this.path = path;
+            this.node = node;
+            this.message = message;
+        }
+
+        public Severity severity() {
+            return severity;
+        }
+
+        /**
+         * @return the node path from the start function, e.g. /Paginate[page-loop]/Execute[page]/Get[page]
+         */
+        public String path() {
+            return path;
+        }
+
+        public Node node() {
+            return node;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return severity + " " + path + ": " + message;
+        }
+    }
+
+    /**
+     * Requests are counted as a fixed part and a part that is repeated for every entry of a parallel or forEach
+     * fan-out, because the number of entries is only known at runtime.
+     */
+    final class RequestEstimate {
+
+        public static final RequestEstimate NONE = new RequestEstimate(0, 0, false);
+
+        final int requests;
+        final int requestsPerEntry;
+        final boolean nestedFanOut;
+
+        public RequestEstimate(int requests, int requestsPerEntry, boolean nestedFanOut) {
+            this.requests = requests;
+            this.requestsPerEntry = requestsPerEntry;
+            this.nestedFanOut = nestedFanOut;
+        }
+
+        public int requests() {
+            return requests;
+        }
+
+        public int requestsPerEntry() {
+            return requestsPerEntry;
+        }
+
+        /**
+         * @return true if a fan-out is nested in another fan-out, which makes the estimate a lower bound
+         */
+        public boolean isNestedFanOut() {
+            return nestedFanOut;
+        }
+
+        public long requests(int entries) {
+            return requests + (long) requestsPerEntry * entries;
+        }
+
+        public RequestEstimate plus(RequestEstimate other) {
+            return new RequestEstimate(requests + other.requests, requestsPerEntry + other.requestsPerEntry, nestedFanOut || other.nestedFanOut);
+        }
+
+        /**
+         * @return this estimate repeated for every entry of a fan-out
+         */
+        public RequestEstimate perEntry() {
+            return new RequestEstimate(0, requests + requestsPerEntry, nestedFanOut || requestsPerEntry > 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RequestEstimate that = (RequestEstimate) o;
+            return requests == that.requests &&
+                    requestsPerEntry == that.requestsPerEntry &&
+                    nestedFanOut == that.nestedFanOut;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(requests, requestsPerEntry, nestedFanOut);
+        }
+
+        @Override
+        public String toString() {
+            return requests + " + " + requestsPerEntry + " per entry" + (nestedFanOut ? " (nested fan-out)" : "");
+        }
+    }
+}
@@ -1,11 +1,33 @@
 package no.ssb.dc.api.node;
 
 import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.services.ExecutorFactory;
 
 public interface FlowContext extends Configuration {
 
     String topic();
 
+    /**
+     * @return the configured global state, variables and headers of the specification
+     */
     ExecutionContext globalContext();
 
+    /**
+     * @return a copy of the global context for one run. Runs of a shared specification should start from it, so that
+     * they do not share state.
+     */
+    default ExecutionContext newRunContext() {
+        return globalContext().copy();
+    }
+
+    /**
+     * @return the executor mode of the specification, or null to use the worker default
+     */
+    ExecutorFactory.Mode executorMode();
+
+    /**
+     * @return max threads of the executor, or zero for available processors
+     */
+    int executorParallelism();
+
 }
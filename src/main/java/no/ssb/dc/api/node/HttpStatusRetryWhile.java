@@ -1,15 +1,34 @@
 package no.ssb.dc.api.node;
 
+import no.ssb.dc.api.http.HttpStatusSet;
+import no.ssb.dc.api.http.RetryPolicy;
+
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 public interface HttpStatusRetryWhile extends Validator {
 
     Integer statusCode();
 
+    default HttpStatusSet statusCodes() {
+        return statusCode() == null ? HttpStatusSet.EMPTY : HttpStatusSet.of(statusCode());
+    }
+
     TimeUnit duration();
 
     Integer amount();
 
     BodyContains bodyContains();
 
+    /**
+     * @return the policy that decides when to retry, or null if no retry delay is configured. Without adaptive
+     * settings, a retry waits amount of duration.
+     */
+    default RetryPolicy retryPolicy() {
+        if (amount() == null || duration() == null) {
+            return null;
+        }
+        return RetryPolicy.fixed(Duration.of(amount(), duration().toChronoUnit()));
+    }
+
 }
@@ -1,6 +1,7 @@
 package no.ssb.dc.api.node;
 
 import no.ssb.dc.api.http.HttpStatus;
+import no.ssb.dc.api.http.HttpStatusSet;
 
 import java.util.List;
 import java.util.Map;
@@ -11,4 +12,15 @@ public interface HttpStatusValidation extends Validator {
 
     List<HttpStatus> failed();
 
+    /**
+     * @return the success codes as a set that is tested without allocating
+     */
+    default HttpStatusSet successCodes() {
+        return HttpStatusSet.of(success().keySet());
+    }
+
+    default HttpStatusSet failedCodes() {
+        return HttpStatusSet.of(failed());
+    }
+
 }
@@ -12,8 +12,23 @@ public interface Node extends Base {
 
     Iterator<? extends Node> iterator();
 
+    /**
+     * Visit this node and its descendants in depth-first pre-order. Visited nodes are tracked by the given set and
+     * ancestors are appended to the given list. Prefer {@link #traverse(NodeVisitor)}.
+     */
     void traverse(int depth, Set<Node> visitedNodeIds, List<Node> ancestors, BiConsumer<List<Node>, Node> visit);
 
+    /**
+     * @return every node reachable from this node, numbered in pre-order
+     */
+    default NodeIndex nodeIndex() {
+        return NodeIndex.of(this);
+    }
+
+    default void traverse(NodeVisitor visitor) {
+        nodeIndex().traverse(visitor);
+    }
+
     String toPrintableExecutionPlan();
 
 }
@@ -0,0 +1,160 @@
+package no.ssb.dc.api.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Every node reachable from a root, numbered in depth-first pre-order from zero.
+ * <p>
+ * Nodes are identified by reference, and each node is numbered once even if several nodes point to it. The children
+ * of every node are resolved to ids when the index is created, so traversals neither recurse nor call
+ * {@link Node#iterator()}, and track visited nodes in a BitSet.
+ */
+public final class NodeIndex {
+
+    static final int[] NO_CHILDREN = new int[0];
+
+    final Node[] nodes;
+    final int[][] children;
+    final Map<Node, Integer> idByNode;
+
+    private NodeIndex(Node[] nodes, int[][] children, Map<Node, Integer> idByNode) {
+        this.nodes = nodes;
+        this.children = children;
+        this.idByNode = idByNode;
+    }
+
+    public static NodeIndex of(Node root) {
+        Map<Node, Integer> idByNode = new IdentityHashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        List<List<Node>> childNodes = new ArrayList<>();
+
+        // number nodes in pre-order with a stack of child iterators
+        List<Iterator<? extends Node>> stack = new ArrayList<>();
+        idByNode.put(root, 0);
+        nodes.add(root);
+        childNodes.add(new ArrayList<>());
+        stack.add(root.iterator());
+        List<Integer> parentIds = new ArrayList<>();
+        parentIds.add(0);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            Iterator<? extends Node> it = stack.get(top);
+            if (!it.hasNext()) {
+                stack.remove(top);
+                parentIds.remove(top);
+                continue;
+            }
+            Node child = Optional.ofNullable(it.next()).orElseThrow();
+            childNodes.get(parentIds.get(top)).add(child);
+            if (idByNode.containsKey(child)) {
+                continue;
+            }
+            int childId = nodes.size();
+            idByNode.put(child, childId);
+            nodes.add(child);
+            childNodes.add(new ArrayList<>());
+            stack.add(child.iterator());
+            parentIds.add(childId);
+        }
+
+        int[][] children = new int[nodes.size()][];
+        for (int id = 0; id < children.length; id++) {
+            List<Node> childList = childNodes.get(id);
+            if (childList.isEmpty()) {
+                children[id] = NO_CHILDREN;
+                continue;
+            }
+            children[id] = new int[childList.size()];
+            for (int i = 0; i < childList.size(); i++) {
+                children[id][i] = idByNode.get(childList.get(i));
+            }
+        }
+        return new NodeIndex(nodes.toArray(new Node[0]), children, idByNode);
+    }
+
+    public Node root() {
+        return nodes[0];
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public Node node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @return the id of the node, or -1 if the node is not reachable from the root
+     */
+    public int id(Node node) {
+        Integer id = idByNode.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the ids of the children of the node in iteration order. The array must not be modified.
+     */
+    public int[] children(int id) {
+        return children[id];
+    }
+
+    /**
+     * @return nodes ordered by id
+     */
+    public List<Node> nodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    /**
+     * Visit every node from the root once, in depth-first pre-order.
+     */
+    public void traverse(NodeVisitor visitor) {
+        traverse(0, visitor);
+    }
+
+    /**
+     * Visit every node from the node with the given id once, in depth-first pre-order. Node ids are pre-order ids
+     * from the root, so depth and ancestors are relative to the start node.
+     */
+    public void traverse(int startId, NodeVisitor visitor) {
+        BitSet visited = new BitSet(nodes.length);
+        int[] idStack = new int[nodes.length];
+        int[] childCursorStack = new int[nodes.length];
+
+        visited.set(startId);
+        if (!visitor.visit(startId, nodes[startId], 0, idStack)) {
+            return;
+        }
+        idStack[0] = startId;
+        childCursorStack[0] = 0;
+        int depth = 1;
+        while (depth > 0) {
+            int[] childIds = children[idStack[depth - 1]];
+            int cursor = childCursorStack[depth - 1];
+            if (cursor == childIds.length) {
+                depth--;
+                continue;
+            }
+            childCursorStack[depth - 1] = cursor + 1;
+            int childId = childIds[cursor];
+            if (visited.get(childId)) {
+                continue;
+            }
+            visited.set(childId);
+            if (visitor.visit(childId, nodes[childId], depth, idStack)) {
+                idStack[depth] = childId;
+                childCursorStack[depth] = 0;
+                depth++;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package no.ssb.dc.api.node;
+
+/**
+ * Visits nodes in depth-first pre-order, see {@link NodeIndex#traverse(NodeVisitor)}.
+ */
+@FunctionalInterface
+public interface NodeVisitor {
+
+    /**
+     * @param nodeId      the id of the node in the {@link NodeIndex}
+     * @param node        the visited node
+     * @param depth       the number of ancestors
+     * @param ancestorIds ancestor ids from the root at index 0 to the parent at index depth - 1. The array is reused
+     *                    during traversal and must not be retained or modified
+     * @return true to visit the children of the node, or false to skip them
+     */
+    boolean visit(int nodeId, Node node, int depth, int[] ancestorIds);
+
+}
@@ -1,8 +1,11 @@
 package no.ssb.dc.api.node;
 
+import no.ssb.dc.api.el.ELTemplate;
 import no.ssb.dc.api.http.Headers;
+import no.ssb.dc.api.http.RateLimiter;
 
 import java.util.List;
+import java.util.Map;
 
 // common interface for http operations
 public interface Operation extends NodeWithId {
@@ -11,10 +14,29 @@ public interface Operation extends NodeWithId {
 
     Headers headers();
 
+    /**
+     * The url split into literal and expression segments when the specification was built
+     */
+    ELTemplate urlTemplate();
+
+    /**
+     * Header values split into literal and expression segments when the specification was built
+     */
+    Map<String, List<ELTemplate>> headerTemplates();
+
     List<Validator> responseValidators();
 
     List<? extends Node> steps();
 
     List<String> returnVariables();
 
+    /**
+     * @return the limiter that every request of the specification, including those of parallel entries, acquires a
+     * permit from before it is sent
+     */
+    default RateLimiter rateLimiter() {
+        RateLimit rateLimit = configurations() == null ? null : configurations().rateLimit();
+        return rateLimit == null ? RateLimiter.unlimited() : rateLimit.rateLimiter();
+    }
+
 }
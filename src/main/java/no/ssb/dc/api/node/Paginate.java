@@ -15,6 +15,11 @@ public interface Paginate extends NodeWithId {
 
     List<Execute> targets();
 
+    /**
+     * The configured prefetch threshold. Pagination should prefetch no more than
+     * {@link no.ssb.dc.api.content.ContentStoreCapacity#prefetchThreshold(int)} positions, so that prefetching is
+     * throttled while the content store is at capacity.
+     */
     int threshold();
 
     Condition condition();
@@ -5,6 +5,17 @@ import java.util.Set;
 
 public interface Parallel extends Node {
 
+    enum FailureMode {
+        /**
+         * The first failed entry cancels in-flight and queued siblings
+         */
+        FAIL_FAST,
+        /**
+         * Every entry runs to completion and failures are collected
+         */
+        COLLECT_ERRORS
+    }
+
     Query splitQuery();
 
     Set<String> variableNames();
@@ -15,4 +26,16 @@ public interface Parallel extends Node {
 
     Publish publish();
 
+    /**
+     * @return entries in flight at once, or zero for no limit
+     */
+    int maxConcurrency();
+
+    /**
+     * @return true if positions are published in split order, false if in completion order
+     */
+    boolean isOrdered();
+
+    FailureMode failureMode();
+
 }
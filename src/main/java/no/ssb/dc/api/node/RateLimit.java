@@ -0,0 +1,27 @@
+package no.ssb.dc.api.node;
+
+import no.ssb.dc.api.http.RateLimiter;
+
+public interface RateLimit extends Configuration {
+
+    /**
+     * @return sustained requests per second, or zero for no rate limit
+     */
+    double requestsPerSecond();
+
+    /**
+     * @return requests that may be sent at once after an idle period
+     */
+    int burst();
+
+    /**
+     * @return requests in flight, or zero for no limit
+     */
+    int maxConcurrency();
+
+    /**
+     * @return the limiter shared by every operation of the specification
+     */
+    RateLimiter rateLimiter();
+
+}
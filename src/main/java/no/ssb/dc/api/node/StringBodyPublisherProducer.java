@@ -1,7 +1,11 @@
 package no.ssb.dc.api.node;
 
+import no.ssb.dc.api.el.ELTemplate;
+
 public interface StringBodyPublisherProducer extends BodyPublisherProducer {
 
     String text();
 
+    ELTemplate template();
+
 }
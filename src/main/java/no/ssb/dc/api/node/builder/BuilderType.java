@@ -1,9 +1,15 @@
 package no.ssb.dc.api.node.builder;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum BuilderType {
     Specification(SpecificationBuilder.class),
     SpecificationContext(SpecificationContextBuilder.class),
     Security(SecurityBuilder.class),
+    RateLimit(RateLimitBuilder.class),
+    ConnectionPool(ConnectionPoolBuilder.class),
     JwtIdentity(JwtIdentityBuilder.class),
     JwtIdentityTokenBodyPublisherProducer(JwtIdentityTokenBodyPublisherProducerBuilder.class),
     Paginate(PaginateBuilder.class),
@@ -41,12 +47,20 @@ public enum BuilderType {
         this.builderClass = builderClass;
     }
 
-    public static BuilderType parse(String name) {
+    private static final Map<String, BuilderType> TYPE_BY_NAME = new HashMap<>();
+
+    static {
         for (BuilderType builderType : values()) {
-            if (builderType.name().equalsIgnoreCase(name)) {
-                return builderType;
-            }
+            TYPE_BY_NAME.put(builderType.name(), builderType);
+            TYPE_BY_NAME.put(builderType.name().toLowerCase(Locale.ROOT), builderType);
+        }
+    }
+
+    public static BuilderType parse(String name) {
+        if (name == null) {
+            return null;
         }
-        return null;
+        BuilderType builderType = TYPE_BY_NAME.get(name);
+        return builderType != null ? builderType : TYPE_BY_NAME.get(name.toLowerCase(Locale.ROOT));
     }
 }
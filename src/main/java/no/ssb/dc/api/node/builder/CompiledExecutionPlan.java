@@ -0,0 +1,280 @@
+package no.ssb.dc.api.node.builder;
+
+import no.ssb.dc.api.node.Configurations;
+import no.ssb.dc.api.node.ExecutionPlan;
+import no.ssb.dc.api.node.Execute;
+import no.ssb.dc.api.node.FlowContext;
+import no.ssb.dc.api.node.ForEach;
+import no.ssb.dc.api.node.NextPage;
+import no.ssb.dc.api.node.Node;
+import no.ssb.dc.api.node.NodeIndex;
+import no.ssb.dc.api.node.NodeWithId;
+import no.ssb.dc.api.node.Operation;
+import no.ssb.dc.api.node.Paginate;
+import no.ssb.dc.api.node.Parallel;
+import no.ssb.dc.api.node.Process;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles the node graph of a specification once, when the specification is built.
+ * <p>
+ * Nodes are identified by their id in the {@link NodeIndex} of the start function, and per-node results are held in
+ * arrays indexed by id.
+ */
+class CompiledExecutionPlan implements ExecutionPlan {
+
+    final Node startFunction;
+    final NodeIndex nodeIndex;
+    final Set<String>[] variablesInScope;
+    final RequestEstimate[] requestEstimates;
+    final List<Diagnostic> diagnostics;
+
+    private CompiledExecutionPlan(Node startFunction, NodeIndex nodeIndex, Set<String>[] variablesInScope,
+                                  RequestEstimate[] requestEstimates, List<Diagnostic> diagnostics) {
+        this.startFunction = startFunction;
+        this.nodeIndex = nodeIndex;
+        this.variablesInScope = variablesInScope;
+        this.requestEstimates = requestEstimates;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    @SuppressWarnings("unchecked")
+    static CompiledExecutionPlan compile(String startFunctionId, Node startFunction, Configurations configurations) {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        if (startFunction == null) {
+            diagnostics.add(new Diagnostic(Severity.ERROR, "/", null, "start function '" + startFunctionId + "' is not defined"));
+            return new CompiledExecutionPlan(null, null, new Set[0], new RequestEstimate[0], diagnostics);
+        }
+        NodeIndex nodeIndex = startFunction.nodeIndex();
+        Compiler compiler = new Compiler(nodeIndex, globalVariables(configurations), diagnostics);
+        nodeIndex.traverse(compiler::visit);
+        return new CompiledExecutionPlan(startFunction, nodeIndex, compiler.variablesInScope, compiler.estimate(), diagnostics);
+    }
+
+    static Set<String> globalVariables(Configurations configurations) {
+        FlowContext flowContext = configurations == null ? null : configurations.flowContext();
+        if (flowContext == null || flowContext.globalContext() == null) {
+            return Collections.emptySet();
+        }
+        return flowContext.globalContext().variables().keySet();
+    }
+
+    static String describe(Node node) {
+        String type = node.getClass().getSimpleName();
+        if (type.endsWith("Node") && type.length() > "Node".length()) {
+            type = type.substring(0, type.length() - "Node".length());
+        }
+        if (node instanceof NodeWithId) {
+            return type + "[" + ((NodeWithId) node).id() + "]";
+        }
+        if (node instanceof Execute) {
+            return type + "[" + ((Execute) node).executeId() + "]";
+        }
+        return type;
+    }
+
+    @Override
+    public Node startFunction() {
+        return startFunction;
+    }
+
+    @Override
+    public List<Node> nodes() {
+        return nodeIndex == null ? Collections.emptyList() : nodeIndex.nodes();
+    }
+
+    @Override
+    public int indexOf(Node node) {
+        return nodeIndex == null ? -1 : nodeIndex.id(node);
+    }
+
+    @Override
+    public Set<String> variablesInScope(Node node) {
+        int id = indexOf(node);
+        return id == -1 ? Collections.emptySet() : variablesInScope[id];
+    }
+
+    @Override
+    public RequestEstimate requestEstimate(Node node) {
+        int id = indexOf(node);
+        return id == -1 ? RequestEstimate.NONE : requestEstimates[id];
+    }
+
+    @Override
+    public List<Diagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+    @Override
+    public String toPrintableExecutionPlan() {
+        StringBuilder builder = new StringBuilder();
+        if (startFunction != null) {
+            builder.append(PrintableExecutionPlan.build(startFunction));
+        }
+        for (Node node : nodes()) {
+            if (node instanceof Paginate) {
+                builder.append(String.format("requests per page of %s: %s%n", describe(node), requestEstimate(node)));
+            }
+        }
+        for (Diagnostic diagnostic : diagnostics) {
+            builder.append(String.format("%s%n", diagnostic));
+        }
+        return builder.toString();
+    }
+
+    static class Compiler {
+
+        final NodeIndex nodeIndex;
+        final Set<String> globalVariables;
+        final List<Diagnostic> diagnostics;
+        final Set<String>[] boundByNode;
+        final Set<String>[] variablesInScope;
+        final Set<String> produced = new LinkedHashSet<>();
+
+        @SuppressWarnings("unchecked")
+        Compiler(NodeIndex nodeIndex, Set<String> globalVariables, List<Diagnostic> diagnostics) {
+            this.nodeIndex = nodeIndex;
+            this.globalVariables = globalVariables;
+            this.diagnostics = diagnostics;
+            this.boundByNode = new Set[nodeIndex.size()];
+            this.variablesInScope = new Set[nodeIndex.size()];
+        }
+
+        /*
+         * Variables bound by a node are in scope for its descendants. Variables produced by a node are in scope for
+         * every node visited after it.
+         */
+        boolean visit(int nodeId, Node node, int depth, int[] ancestorIds) {
+            Set<String> boundByAncestors = depth == 0 ? Collections.emptySet() : boundByNode[ancestorIds[depth - 1]];
+
+            Set<String> inScope = new LinkedHashSet<>(globalVariables);
+            inScope.addAll(boundByAncestors);
+            inScope.addAll(produced);
+            variablesInScope[nodeId] = Collections.unmodifiableSet(inScope);
+
+            check(node, depth, ancestorIds, inScope);
+            produced.addAll(produces(node));
+
+            Set<String> bound = binds(node);
+            if (bound.isEmpty()) {
+                boundByNode[nodeId] = boundByAncestors;
+            } else {
+                Set<String> boundByChildAncestors = new LinkedHashSet<>(boundByAncestors);
+                boundByChildAncestors.addAll(bound);
+                boundByNode[nodeId] = boundByChildAncestors;
+            }
+            return true;
+        }
+
+        void check(Node node, int depth, int[] ancestorIds, Set<String> inScope) {
+            if (node instanceof Execute) {
+                Execute execute = (Execute) node;
+                Set<String> inputVariables = execute.inputVariable().keySet();
+                for (String requiredInput : execute.requiredInputs()) {
+                    if (!inScope.contains(requiredInput) && !inputVariables.contains(requiredInput)) {
+                        diagnostics.add(new Diagnostic(Severity.WARNING, path(node, depth, ancestorIds), node, "required input '" + requiredInput +
+                                "' is not bound or produced before execute(" + execute.executeId() + ")"));
+                    }
+                }
+            }
+            if (node instanceof Parallel) {
+                Parallel parallel = (Parallel) node;
+                if (parallel.maxConcurrency() < 0) {
+                    diagnostics.add(new Diagnostic(Severity.ERROR, path(node, depth, ancestorIds), node, "maxConcurrency must be zero or positive: " + parallel.maxConcurrency()));
+                } else if (parallel.maxConcurrency() == 0) {
+                    diagnostics.add(new Diagnostic(Severity.WARNING, path(node, depth, ancestorIds), node, "unbounded fan-out over " +
+                            parallel.splitQuery().expression() + ". Set maxConcurrency to limit entries in flight"));
+                }
+            }
+        }
+
+        String path(Node node, int depth, int[] ancestorIds) {
+            StringBuilder path = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                path.append("/").append(describe(nodeIndex.node(ancestorIds[i])));
+            }
+            return path.append("/").append(describe(node)).toString();
+        }
+
+        static Set<String> binds(Node node) {
+            if (node instanceof Paginate) {
+                return ((Paginate) node).variableNames();
+            }
+            if (node instanceof Parallel) {
+                return ((Parallel) node).variableNames();
+            }
+            if (node instanceof Execute) {
+                return ((Execute) node).inputVariable().keySet();
+            }
+            return Collections.emptySet();
+        }
+
+        static Set<String> produces(Node node) {
+            Set<String> variables = new LinkedHashSet<>();
+            if (node instanceof NextPage) {
+                variables.addAll(((NextPage) node).outputs().keySet());
+            }
+            if (node instanceof Process) {
+                variables.addAll(((Process) node).requiredOutputs());
+            }
+            if (node instanceof Operation) {
+                variables.addAll(((Operation) node).returnVariables());
+            }
+            return variables;
+        }
+
+        /*
+         * An operation issues one request, and a parallel or forEach repeats its steps for every entry. A node that
+         * is reached again through its own steps is counted once. Estimates are computed in post-order with an
+         * explicit stack.
+         */
+        RequestEstimate[] estimate() {
+            RequestEstimate[] estimates = new RequestEstimate[nodeIndex.size()];
+            BitSet onStack = new BitSet(nodeIndex.size());
+            int[] idStack = new int[nodeIndex.size()];
+            int[] childCursorStack = new int[nodeIndex.size()];
+            idStack[0] = 0;
+            onStack.set(0);
+            int depth = 1;
+            while (depth > 0) {
+                int nodeId = idStack[depth - 1];
+                int[] childIds = nodeIndex.children(nodeId);
+                int cursor = childCursorStack[depth - 1];
+                if (cursor < childIds.length) {
+                    childCursorStack[depth - 1] = cursor + 1;
+                    int childId = childIds[cursor];
+                    if (estimates[childId] == null && !onStack.get(childId)) {
+                        onStack.set(childId);
+                        idStack[depth] = childId;
+                        childCursorStack[depth] = 0;
+                        depth++;
+                    }
+                    continue;
+                }
+                RequestEstimate estimate = RequestEstimate.NONE;
+                for (int childId : childIds) {
+                    if (estimates[childId] != null) {
+                        estimate = estimate.plus(estimates[childId]);
+                    }
+                }
+                Node node = nodeIndex.node(nodeId);
+                if (node instanceof Operation) {
+                    estimate = new RequestEstimate(1, 0, false).plus(estimate);
+                }
+                if (node instanceof Parallel || node instanceof ForEach) {
+                    estimate = estimate.perEntry();
+                }
+                estimates[nodeId] = estimate;
+                onStack.clear(nodeId);
+                depth--;
+            }
+            return estimates;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package no.ssb.dc.api.node.builder;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import no.ssb.dc.api.http.Client;
+import no.ssb.dc.api.http.ConnectionSettings;
+import no.ssb.dc.api.node.Base;
+import no.ssb.dc.api.node.ConnectionPool;
+
+import java.time.Duration;
+import java.util.Objects;
+
+@JsonDeserialize(using = NodeBuilderDeserializer.class)
+public class ConnectionPoolBuilder extends ConfigurationBuilder {
+
+    @JsonProperty String version;
+    @JsonProperty Integer maxConnectionsPerHost;
+    @JsonProperty Long keepAliveMillis;
+    @JsonProperty Integer maxConcurrentStreams;
+    @JsonProperty Boolean pipelining;
+
+    public ConnectionPoolBuilder() {
+        super(BuilderType.ConnectionPool);
+    }
+
+    public ConnectionPoolBuilder version(Client.Version version) {
+        this.version = version.name();
+        return this;
+    }
+
+    public ConnectionPoolBuilder maxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    public ConnectionPoolBuilder keepAlive(Duration keepAlive) {
+        this.keepAliveMillis = keepAlive.toMillis();
+        return this;
+    }
+
+    /**
+     * Requests multiplexed over one HTTP/2 connection
+     */
+    public ConnectionPoolBuilder maxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    public ConnectionPoolBuilder pipelining(boolean pipelining) {
+        this.pipelining = pipelining;
+        return this;
+    }
+
+    @Override
+    public <R extends Base> R build(BuildContext buildContext) {
+        ConnectionSettings settings = ConnectionSettings.builder()
+                .version(version != null ? Client.Version.valueOf(version) : null)
+                .maxConnectionsPerHost(maxConnectionsPerHost)
+                .keepAlive(keepAliveMillis != null ? Duration.ofMillis(keepAliveMillis) : null)
+                .maxConcurrentStreams(maxConcurrentStreams)
+                .pipelining(pipelining)
+                .build();
+        return (R) new ConnectionPoolNode(settings);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        ConnectionPoolBuilder that = (ConnectionPoolBuilder) o;
+        return Objects.equals(version, that.version) &&
+                Objects.equals(maxConnectionsPerHost, that.maxConnectionsPerHost) &&
+                Objects.equals(keepAliveMillis, that.keepAliveMillis) &&
+                Objects.equals(maxConcurrentStreams, that.maxConcurrentStreams) &&
+                Objects.equals(pipelining, that.pipelining);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), version, maxConnectionsPerHost, keepAliveMillis, maxConcurrentStreams, pipelining);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolBuilder{" +
+                "version='" + version + '\'' +
+                ", maxConnectionsPerHost=" + maxConnectionsPerHost +
+                ", keepAliveMillis=" + keepAliveMillis +
+                ", maxConcurrentStreams=" + maxConcurrentStreams +
+                ", pipelining=" + pipelining +
+                '}';
+    }
+
+    public static class ConnectionPoolNode extends LeafNode implements ConnectionPool {
+
+        final ConnectionSettings settings;
+
+        public ConnectionPoolNode(ConnectionSettings settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        public ConnectionSettings settings() {
+            return settings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConnectionPoolNode that = (ConnectionPoolNode) o;
+            return Objects.equals(settings, that.settings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(settings);
+        }
+
+        @Override
+        public String toString() {
+            return "ConnectionPoolNode{" +
+                    "settings=" + settings +
+                    '}';
+        }
+    }
+}
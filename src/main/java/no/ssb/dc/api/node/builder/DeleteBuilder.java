@@ -128,7 +128,7 @@ public class DeleteBuilder extends OperationBuilder {
         private final List<Validator> validateResponse;
 
         DeleteNode(String id, Configurations configurations, String url, Headers headers, List<Validator> validateResponse, List<Node> pipes, List<String> returnVariables) {
-            super(configurations, id);
+            super(configurations, id, url, headers);
             this.url = url;
             this.headers = headers;
             this.validateResponse = validateResponse;
@@ -144,7 +144,7 @@ public class GetBuilder extends OperationBuilder {
         final List<String> returnVariables;
 
         GetNode(String id, Configurations configurations, String url, Headers headers, List<HttpStatusRetryWhile> retryWhileList, List<Validator> validateResponse, List<Node> pipes, List<String> returnVariables) {
-            super(configurations, id);
+            super(configurations, id, url, headers);
             this.url = url;
             this.headers = headers;
             this.retryWhileList = retryWhileList;
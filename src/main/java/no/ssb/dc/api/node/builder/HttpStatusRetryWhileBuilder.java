@@ -3,10 +3,15 @@ package no.ssb.dc.api.node.builder;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import no.ssb.dc.api.http.HttpStatus;
+import no.ssb.dc.api.http.HttpStatusSet;
+import no.ssb.dc.api.http.RetryPolicy;
 import no.ssb.dc.api.node.Base;
 import no.ssb.dc.api.node.BodyContains;
 import no.ssb.dc.api.node.HttpStatusRetryWhile;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -14,9 +19,19 @@ import java.util.concurrent.TimeUnit;
 public class HttpStatusRetryWhileBuilder extends LeafNodeBuilder {
 
     @JsonProperty("statusCode") public Integer statusCode;
+    @JsonProperty("statusCodes") public List<Integer> statusCodes = new ArrayList<>();
     @JsonProperty("duration") public TimeUnit duration;
     @JsonProperty("amount") public Integer amount;
     @JsonProperty("bodyContains") BodyContainsBuilder bodyContainsBuilder;
+    @JsonProperty("initialDelayMillis") Long initialDelayMillis;
+    @JsonProperty("maxDelayMillis") Long maxDelayMillis;
+    @JsonProperty("multiplier") Double multiplier;
+    @JsonProperty("jitter") Double jitter;
+    @JsonProperty("respectRetryAfter") Boolean respectRetryAfter;
+    @JsonProperty("maxElapsedMillis") Long maxElapsedMillis;
+    @JsonProperty("maxAttempts") Integer maxAttempts;
+    @JsonProperty("tokenBucketCapacity") Integer tokenBucketCapacity;
+    @JsonProperty("tokenBucketRefillPerSecond") Double tokenBucketRefillPerSecond;
 
     public HttpStatusRetryWhileBuilder() {
         super(BuilderType.HttpStatusRetryWhile);
@@ -36,6 +51,53 @@ public class HttpStatusRetryWhileBuilder extends LeafNodeBuilder {
         return this;
     }
 
+    /**
+     * Retry on any of the status codes, e.g. 429 and 503
+     */
+    public HttpStatusRetryWhileBuilder anyOf(Integer... statusCodes) {
+        this.statusCodes.addAll(List.of(statusCodes));
+        return this;
+    }
+
+    /**
+     * Grow the delay exponentially from the initial delay, which defaults to amount of duration, up to the max delay
+     */
+    public HttpStatusRetryWhileBuilder backoff(Duration initialDelay, Duration maxDelay, double multiplier) {
+        this.initialDelayMillis = initialDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public HttpStatusRetryWhileBuilder jitter(double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    public HttpStatusRetryWhileBuilder respectRetryAfter(boolean respectRetryAfter) {
+        this.respectRetryAfter = respectRetryAfter;
+        return this;
+    }
+
+    public HttpStatusRetryWhileBuilder maxElapsed(Duration maxElapsed) {
+        this.maxElapsedMillis = maxElapsed.toMillis();
+        return this;
+    }
+
+    public HttpStatusRetryWhileBuilder maxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Share a retry token bucket between all requests to the same host
+     */
+    public HttpStatusRetryWhileBuilder tokenBucket(int capacity, double refillPerSecond) {
+        this.tokenBucketCapacity = capacity;
+        this.tokenBucketRefillPerSecond = refillPerSecond;
+        return this;
+    }
+
     /*
     TODO: implement regex predicate support
     public HttpStatusRetryWhileBuilder bodyContains(QueryBuilder equalToQuery) {
@@ -44,10 +106,55 @@ public class HttpStatusRetryWhileBuilder extends LeafNodeBuilder {
     }
     */
 
+    boolean isAdaptive() {
+        return initialDelayMillis != null || maxDelayMillis != null || multiplier != null || jitter != null || respectRetryAfter != null
+                || maxElapsedMillis != null || maxAttempts != null || tokenBucketCapacity != null;
+    }
+
+    RetryPolicy buildRetryPolicy() {
+        Duration fixedDelay = duration != null && amount != null ? Duration.of(amount, duration.toChronoUnit()) : null;
+        if (!isAdaptive()) {
+            return fixedDelay != null ? RetryPolicy.fixed(fixedDelay) : null;
+        }
+        RetryPolicy.Builder policyBuilder = RetryPolicy.builder();
+        if (initialDelayMillis != null) {
+            policyBuilder.initialDelay(Duration.ofMillis(initialDelayMillis));
+        } else if (fixedDelay != null) {
+            policyBuilder.initialDelay(fixedDelay);
+        }
+        if (maxDelayMillis != null) {
+            policyBuilder.maxDelay(Duration.ofMillis(maxDelayMillis));
+        }
+        if (multiplier != null) {
+            policyBuilder.multiplier(multiplier);
+        }
+        if (jitter != null) {
+            policyBuilder.jitter(jitter);
+        }
+        if (respectRetryAfter != null) {
+            policyBuilder.respectRetryAfter(respectRetryAfter);
+        }
+        if (maxElapsedMillis != null) {
+            policyBuilder.maxElapsed(Duration.ofMillis(maxElapsedMillis));
+        }
+        if (maxAttempts != null) {
+            policyBuilder.maxAttempts(maxAttempts);
+        }
+        if (tokenBucketCapacity != null) {
+            policyBuilder.tokenBucket(tokenBucketCapacity, tokenBucketRefillPerSecond != null ? tokenBucketRefillPerSecond : tokenBucketCapacity);
+        }
+        return policyBuilder.build();
+    }
+
     @Override
     public <R extends Base> R build(BuildContext buildContext) {
         BodyContains bodyContains = bodyContainsBuilder != null ? bodyContainsBuilder.build(buildContext) : null;
-        return (R) new HttpStatusRetryWhileNode(statusCode, duration, amount, bodyContains);
+        List<Integer> allStatusCodes = new ArrayList<>();
+        if (statusCode != null) {
+            allStatusCodes.add(statusCode);
+        }
+        allStatusCodes.addAll(statusCodes);
+        return (R) new HttpStatusRetryWhileNode(statusCode, HttpStatusSet.of(allStatusCodes), duration, amount, bodyContains, buildRetryPolicy());
     }
 
     @Override
@@ -56,39 +163,64 @@ public class HttpStatusRetryWhileBuilder extends LeafNodeBuilder {
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         HttpStatusRetryWhileBuilder that = (HttpStatusRetryWhileBuilder) o;
-        return statusCode.equals(that.statusCode) &&
+        return Objects.equals(statusCode, that.statusCode) &&
+                Objects.equals(statusCodes, that.statusCodes) &&
                 duration == that.duration &&
                 Objects.equals(amount, that.amount) &&
-                Objects.equals(bodyContainsBuilder, that.bodyContainsBuilder);
+                Objects.equals(bodyContainsBuilder, that.bodyContainsBuilder) &&
+                Objects.equals(initialDelayMillis, that.initialDelayMillis) &&
+                Objects.equals(maxDelayMillis, that.maxDelayMillis) &&
+                Objects.equals(multiplier, that.multiplier) &&
+                Objects.equals(jitter, that.jitter) &&
+                Objects.equals(respectRetryAfter, that.respectRetryAfter) &&
+                Objects.equals(maxElapsedMillis, that.maxElapsedMillis) &&
+                Objects.equals(maxAttempts, that.maxAttempts) &&
+                Objects.equals(tokenBucketCapacity, that.tokenBucketCapacity) &&
+                Objects.equals(tokenBucketRefillPerSecond, that.tokenBucketRefillPerSecond);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), statusCode, duration, amount, bodyContainsBuilder);
+        return Objects.hash(super.hashCode(), statusCode, statusCodes, duration, amount, bodyContainsBuilder, initialDelayMillis,
+                maxDelayMillis, multiplier, jitter, respectRetryAfter, maxElapsedMillis, maxAttempts, tokenBucketCapacity, tokenBucketRefillPerSecond);
     }
 
     @Override
     public String toString() {
         return "HttpStatusRetryWhileBuilder{" +
                 "statusCode=" + statusCode +
+                ", statusCodes=" + statusCodes +
                 ", duration=" + duration +
                 ", amount=" + amount +
                 ", bodyContainsBuilder=" + bodyContainsBuilder +
+                ", initialDelayMillis=" + initialDelayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                ", multiplier=" + multiplier +
+                ", jitter=" + jitter +
+                ", respectRetryAfter=" + respectRetryAfter +
+                ", maxElapsedMillis=" + maxElapsedMillis +
+                ", maxAttempts=" + maxAttempts +
+                ", tokenBucketCapacity=" + tokenBucketCapacity +
+                ", tokenBucketRefillPerSecond=" + tokenBucketRefillPerSecond +
                 '}';
     }
 
     static class HttpStatusRetryWhileNode extends LeafNode implements HttpStatusRetryWhile {
 
         final Integer statusCode;
+        final HttpStatusSet statusCodes;
         final TimeUnit duration;
         final Integer amount;
         final BodyContains bodyContains;
+        final RetryPolicy retryPolicy;
 
-        HttpStatusRetryWhileNode(Integer statusCode, TimeUnit duration, Integer amount, BodyContains bodyContains) {
+        HttpStatusRetryWhileNode(Integer statusCode, HttpStatusSet statusCodes, TimeUnit duration, Integer amount, BodyContains bodyContains, RetryPolicy retryPolicy) {
             this.statusCode = statusCode;
+            this.statusCodes = statusCodes;
             this.duration = duration;
             this.amount = amount;
             this.bodyContains = bodyContains;
+            this.retryPolicy = retryPolicy;
         }
 
         @Override
@@ -96,6 +228,11 @@ public class HttpStatusRetryWhileBuilder extends LeafNodeBuilder {
             return statusCode;
         }
 
+        @Override
+        public HttpStatusSet statusCodes() {
+            return statusCodes;
+        }
+
         @Override
         public TimeUnit duration() {
             return duration;
@@ -111,27 +248,36 @@ public class HttpStatusRetryWhileBuilder extends LeafNodeBuilder {
             return bodyContains;
         }
 
+        @Override
+        public RetryPolicy retryPolicy() {
+            return retryPolicy;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             HttpStatusRetryWhileNode that = (HttpStatusRetryWhileNode) o;
-            return statusCode.equals(that.statusCode) &&
+            return Objects.equals(statusCode, that.statusCode) &&
+                    Objects.equals(statusCodes, that.statusCodes) &&
                     duration == that.duration &&
-                    Objects.equals(amount, that.amount);
+                    Objects.equals(amount, that.amount) &&
+                    Objects.equals(retryPolicy, that.retryPolicy);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(statusCode, duration, amount);
+            return Objects.hash(statusCode, statusCodes, duration, amount, retryPolicy);
         }
 
         @Override
         public String toString() {
             return "HttpStatusRetryWhileNode{" +
                     "statusCode=" + statusCode +
+                    ", statusCodes=" + statusCodes +
                     ", duration=" + duration +
                     ", amount=" + amount +
+                    ", retryPolicy=" + retryPolicy +
                     '}';
         }
     }
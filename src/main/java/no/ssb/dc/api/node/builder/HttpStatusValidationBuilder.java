@@ -3,6 +3,7 @@ package no.ssb.dc.api.node.builder;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import no.ssb.dc.api.http.HttpStatus;
+import no.ssb.dc.api.http.HttpStatusSet;
 import no.ssb.dc.api.node.Base;
 import no.ssb.dc.api.node.HttpStatusValidation;
 import no.ssb.dc.api.node.ResponsePredicate;
@@ -84,10 +85,24 @@ public class HttpStatusValidationBuilder extends LeafNodeBuilder {
 
         final Map<HttpStatus, List<ResponsePredicate>> success;
         final List<HttpStatus> failed;
+        final HttpStatusSet successCodes;
+        final HttpStatusSet failedCodes;
 
         HttpStatusValidationNode(Map<HttpStatus, List<ResponsePredicate>> success, List<Integer> failed) {
             this.success = success;
             this.failed = failed.stream().map(HttpStatus::valueOf).collect(Collectors.toList());
+            this.successCodes = HttpStatusSet.of(success.keySet());
+            this.failedCodes = HttpStatusSet.of(this.failed);
+        }
+
+        @Override
+        public HttpStatusSet successCodes() {
+            return successCodes;
+        }
+
+        @Override
+        public HttpStatusSet failedCodes() {
+            return failedCodes;
         }
 
         @Override
@@ -4,9 +4,11 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import no.ssb.dc.api.node.Base;
 import no.ssb.dc.api.node.Configurations;
 import no.ssb.dc.api.node.Node;
-import no.ssb.dc.api.util.JsonParser;
+import no.ssb.dc.api.node.NodeIndex;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -21,11 +23,11 @@ public abstract class NodeBuilder extends AbstractBuilder {
     }
 
     public String serialize() {
-        return JsonParser.createJsonParser().toPrettyJSON(this);
+        return SpecificationMapper.serializeAsJson(this);
     }
 
     public String serializeAsYaml() {
-        return JsonParser.createJsonParser().toPrettyJSON(this);
+        return SpecificationMapper.serializeAsJson(this);
     }
 
     /**
@@ -48,6 +50,7 @@ public abstract class NodeBuilder extends AbstractBuilder {
     public abstract static class FlowNode extends AbstractBaseNode implements Node {
 
         final Configurations configurations;
+        private volatile NodeIndex nodeIndex;
 
         public FlowNode(Configurations configurations) {
             this.configurations = configurations;
@@ -58,6 +61,10 @@ public abstract class NodeBuilder extends AbstractBuilder {
             return configurations;
         }
 
+        /*
+         * Iterative, so that deep specifications do not overflow the stack. Ancestors are appended and removed at the
+         * end of the list.
+         */
         static void depthFirstPreOrderFullTraversal(int depth, Set<Node> visitedNodeIds,
                                                     List<Node> ancestors, Node currentNode,
                                                     BiConsumer<List<Node>, Node> visit) {
@@ -67,13 +74,30 @@ public abstract class NodeBuilder extends AbstractBuilder {
 
             visit.accept(ancestors, currentNode);
 
+            int ancestorCount = ancestors.size();
+            Deque<Iterator<? extends Node>> stack = new ArrayDeque<>();
             ancestors.add(currentNode);
+            stack.push(currentNode.iterator());
             try {
-                for (Iterator<? extends Node> it = currentNode.iterator(); it.hasNext(); ) {
-                    depthFirstPreOrderFullTraversal(depth + 1, visitedNodeIds, ancestors, Optional.ofNullable(it.next()).orElseThrow(), visit);
+                while (!stack.isEmpty()) {
+                    Iterator<? extends Node> it = stack.peek();
+                    if (!it.hasNext()) {
+                        stack.pop();
+                        ancestors.remove(ancestors.size() - 1);
+                        continue;
+                    }
+                    Node childNode = Optional.ofNullable(it.next()).orElseThrow();
+                    if (!visitedNodeIds.add(childNode)) {
+                        continue;
+                    }
+                    visit.accept(ancestors, childNode);
+                    ancestors.add(childNode);
+                    stack.push(childNode.iterator());
                 }
             } finally {
-                ancestors.remove(currentNode);
+                while (ancestors.size() > ancestorCount) {
+                    ancestors.remove(ancestors.size() - 1);
+                }
             }
         }
 
@@ -86,6 +110,16 @@ public abstract class NodeBuilder extends AbstractBuilder {
             depthFirstPreOrderFullTraversal(depth, visitedNodeIds, ancestors, this, visit);
         }
 
+        @Override
+        public NodeIndex nodeIndex() {
+            NodeIndex index = nodeIndex;
+            if (index == null) {
+                index = NodeIndex.of(this);
+                nodeIndex = index;
+            }
+            return index;
+        }
+
         @Override
         public String toPrintableExecutionPlan() {
             return PrintableExecutionPlan.build(this);
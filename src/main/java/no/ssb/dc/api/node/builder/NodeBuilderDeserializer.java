@@ -1,30 +1,323 @@
 package no.ssb.dc.api.node.builder;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import no.ssb.dc.api.Processor;
 import no.ssb.dc.api.Specification;
+import no.ssb.dc.api.http.Client;
+import no.ssb.dc.api.node.Parallel;
+import no.ssb.dc.api.services.ExecutorFactory;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * TODO Rewrite to a generic deserializer
+ * Reads builders from parser tokens in a single pass, without an intermediate tree.
+ * <p>
+ * Every {@link BuilderType} maps to a {@link NodeReader} in a table indexed by ordinal. A reader declares the fields
+ * of its node and how each value is read, and creates the builder once the node object has been read. Nested nodes
+ * are read recursively from the same parser. The type field comes first in serialized specifications; fields that
+ * precede it in hand-written specifications are buffered and replayed.
  */
 public class NodeBuilderDeserializer extends StdDeserializer<AbstractBuilder> {
 
+    private static final NodeReader[] READERS = new NodeReader[BuilderType.values().length];
+
+    static {
+        register(BuilderType.Specification, fields -> {
+            SpecificationBuilder builder = Specification.start(fields.required("id"), fields.required("name"), fields.required("startFunctionId"));
+            fields.<ConfigurationBuilder>nodes("configure").forEach(builder::configure);
+            fields.<NodeWithIdBuilder>nodeMap("functions").values().forEach(builder::function);
+            return builder;
+        }, text("id"), text("name"), text("startFunctionId"), nodes("configure"), nodeMap("functions"));
+
+        register(BuilderType.SpecificationContext, fields -> {
+            SpecificationContextBuilder builder = new SpecificationContextBuilder();
+            fields.headers("headers").forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+            fields.valueMap("variables").forEach(builder::variable);
+            fields.textMap("globalState").forEach(builder::globalState);
+            fields.<String>ifPresent("executorMode", executorMode -> {
+                Integer parallelism = fields.get("executorParallelism");
+                if (parallelism != null) {
+                    builder.executor(ExecutorFactory.Mode.valueOf(executorMode), parallelism);
+                } else {
+                    builder.executor(ExecutorFactory.Mode.valueOf(executorMode));
+                }
+            });
+            return builder;
+        }, headers("headers"), valueMap("variables", true, "The context variable type is not supported: "), textMap("globalState"),
+                text("executorMode"), integer("executorParallelism"));
+
+        register(BuilderType.Security, fields -> {
+            SecurityBuilder builder = new SecurityBuilder();
+            fields.<String>ifPresent("bundleName", builder::sslBundleName);
+            fields.<IdentityBuilder>nodes("identities").forEach(builder::identity);
+            return builder;
+        }, text("bundleName"), nodes("identities"));
+
+        // {"type":"RateLimit","requestsPerSecond":10.0,"burst":20,"maxConcurrency":4}
+        register(BuilderType.RateLimit, fields -> {
+            RateLimitBuilder builder = new RateLimitBuilder();
+            fields.<Double>ifPresent("requestsPerSecond", builder::requestsPerSecond);
+            fields.<Integer>ifPresent("burst", builder::burst);
+            fields.<Integer>ifPresent("maxConcurrency", builder::maxConcurrency);
+            return builder;
+        }, decimal("requestsPerSecond"), integer("burst"), integer("maxConcurrency"));
+
+        // {"type":"ConnectionPool","version":"HTTP_2","maxConnectionsPerHost":2,"keepAliveMillis":30000,"maxConcurrentStreams":100}
+        register(BuilderType.ConnectionPool, fields -> {
+            ConnectionPoolBuilder builder = new ConnectionPoolBuilder();
+            fields.<String>ifPresent("version", version -> builder.version(Client.Version.valueOf(version)));
+            fields.<Integer>ifPresent("maxConnectionsPerHost", builder::maxConnectionsPerHost);
+            fields.<Long>ifPresent("keepAliveMillis", millis -> builder.keepAlive(Duration.ofMillis(millis)));
+            fields.<Integer>ifPresent("maxConcurrentStreams", builder::maxConcurrentStreams);
+            fields.<Boolean>ifPresent("pipelining", builder::pipelining);
+            return builder;
+        }, text("version"), integer("maxConnectionsPerHost"), longInteger("keepAliveMillis"), integer("maxConcurrentStreams"), bool("pipelining"));
+
+        register(BuilderType.JwtIdentity, fields -> {
+            JwtHeaderClaims headerClaims = new JwtHeaderClaims();
+            headerClaims.headerClaims.putAll(fields.textMap("headerClaims")); // todo only support string values
+            JwtClaims claims = new JwtClaims();
+            claims.claims.putAll(fields.textMap("claims")); // todo only support string values
+            return new JwtIdentityBuilder(fields.required("id"), headerClaims, claims);
+        }, text("id"), textMap("headerClaims"), textMap("claims"));
+
+        register(BuilderType.Paginate, fields -> {
+            PaginateBuilder builder = new PaginateBuilder(fields.<String>required("id"));
+            fields.textMap("variables").forEach(builder::variable);
+            if (fields.getOrDefault("addPageContent", false)) {
+                builder.addPageContent(fields.required("positionVariable"));
+            }
+            fields.<ExecuteBuilder>nodes("iterate").forEach(builder::iterate);
+            builder.prefetchThreshold(fields.<Integer>required("threshold"));
+            builder.until(fields.required("until"));
+            return builder;
+        }, text("id"), textMap("variables"), bool("addPageContent"), text("positionVariable"), nodes("iterate"), integer("threshold"), node("until"));
+
+        register(BuilderType.Sequence, fields -> {
+            SequenceBuilder builder = new SequenceBuilder(null);
+            builder.splitBuilder(fields.required("splitQuery"));
+            builder.expected(fields.required("expectedQuery"));
+            return builder;
+        }, node("splitQuery"), node("expectedQuery"));
+
+        register(BuilderType.NextPage, fields -> {
+            NextPageBuilder builder = new NextPageBuilder();
+            fields.<QueryBuilder>nodeMap("outputs").forEach(builder::output);
+            return builder;
+        }, nodeMap("outputs"));
+
+        register(BuilderType.Parallel, fields -> {
+            ParallelBuilder builder = new ParallelBuilder(fields.required("splitQuery"));
+            fields.<QueryBuilder>nodeMap("variables").forEach(builder::variable);
+            fields.<NodeBuilder>nodes("pipes").forEach(builder::pipe);
+            fields.<PublishBuilder>ifPresent("publish", builder::publish);
+            fields.<Integer>ifPresent("maxConcurrency", builder::maxConcurrency);
+            fields.<Boolean>ifPresent("ordered", ordered -> {
+                if (ordered) {
+                    builder.ordered();
+                } else {
+                    builder.unordered();
+                }
+            });
+            fields.<String>ifPresent("failureMode", failureMode -> {
+                if (Parallel.FailureMode.valueOf(failureMode) == Parallel.FailureMode.COLLECT_ERRORS) {
+                    builder.collectErrors();
+                } else {
+                    builder.failFast();
+                }
+            });
+            return builder;
+        }, node("splitQuery"), nodeMap("variables"), nodes("pipes"), node("publish"), integer("maxConcurrency"), bool("ordered"), text("failureMode"));
+
+        register(BuilderType.ForEach, fields -> {
+            ForEachBuilder builder = new ForEachBuilder(fields.required("splitQuery"));
+            fields.<NodeBuilder>nodes("pipes").forEach(builder::pipe);
+            return builder;
+        }, node("splitQuery"), nodes("pipes"));
+
+        register(BuilderType.Execute, fields -> {
+            ExecuteBuilder builder = new ExecuteBuilder(fields.required("executeId"));
+            fields.texts("requiredInputs").forEach(builder::requiredInput);
+            fields.<QueryBuilder>nodeMap("inputVariables").forEach(builder::inputVariable);
+            return builder;
+        }, text("executeId"), texts("requiredInputs"), nodeMap("inputVariables"));
+
+        register(BuilderType.Process, fields -> {
+            try {
+                ProcessBuilder builder = new ProcessBuilder((Class<? extends Processor>) Class.forName(fields.required("processorClass")));
+                fields.texts("requiredOutputs").forEach(builder::output);
+                return builder;
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }, text("processorClass"), texts("requiredOutputs"));
+
+        register(BuilderType.Console, fields -> new ConsoleBuilder());
+
+        register(BuilderType.QueryBody, fields -> new BodyBuilder());
+
+        register(BuilderType.QueryEval, fields -> new EvalBuilder(fields.get("query"), fields.get("bindToVariable"), fields.required("expression")),
+                node("query"), text("bindToVariable"), text("expression"));
+
+        register(BuilderType.QueryXPath, fields -> new XPathBuilder(fields.required("expression")), text("expression"));
+
+        register(BuilderType.QueryJsonToken, fields -> new JsonTokenBuilder());
+
+        register(BuilderType.QueryXmlToken, fields -> new XmlTokenBuilder());
+
+        register(BuilderType.QueryJqPath, fields -> new JqPathBuilder(fields.required("expression")), text("expression"));
+
+        register(BuilderType.QueryRegEx, fields -> new RegExBuilder(fields.required("query"), fields.required("expression")),
+                node("query"), text("expression"));
+
+        register(BuilderType.ConditionWhenVariableIsNull, fields -> {
+            WhenVariableIsNullBuilder builder = new WhenVariableIsNullBuilder();
+            builder.identifier(fields.required("identifier"));
+            return builder;
+        }, text("identifier"));
+
+        register(BuilderType.ConditionWhenExpressionIsTrue, fields -> {
+            WhenExpressionIsTrueBuilder builder = new WhenExpressionIsTrueBuilder();
+            builder.identifier(fields.required("identifier"));
+            return builder;
+        }, text("identifier"));
+
+        register(BuilderType.AddContent, fields -> {
+            AddContentBuilder builder = new AddContentBuilder(fields.required("positionVariableExpression"), fields.required("contentKey"));
+            fields.valueMap("state").forEach(builder::storeState);
+            return builder;
+        }, text("positionVariableExpression"), text("contentKey"), valueMap("state", false, "The content state type is not supported: "));
+
+        register(BuilderType.Publish, fields -> new PublishBuilder(fields.required("positionVariableExpression")), text("positionVariableExpression"));
+
+        register(BuilderType.Get, fields -> {
+            GetBuilder builder = new GetBuilder(fields.required("id"));
+            builder.url(fields.required("url"));
+            fields.headers("requestHeaders").forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+            fields.<LeafNodeBuilder>nodes("retryWhile").forEach(builder::retryWhile);
+            fields.<LeafNodeBuilder>nodes("responseValidators").forEach(builder::validate);
+            fields.texts("returnVariables").forEach(builder::returnVariables);
+            fields.<NodeBuilder>nodes("pipes").forEach(builder::pipe);
+            return builder;
+        }, text("id"), text("url"), headers("requestHeaders"), nodes("retryWhile"), nodes("responseValidators"), texts("returnVariables"), nodes("pipes"));
+
+        register(BuilderType.Post, fields -> {
+            PostBuilder builder = new PostBuilder(fields.required("id"));
+            builder.url(fields.required("url"));
+            fields.headers("requestHeaders").forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+            fields.<BodyPublisherBuilder>ifPresent("bodyPublisher", builder::data);
+            fields.<LeafNodeBuilder>nodes("responseValidators").forEach(builder::validate);
+            fields.texts("returnVariables").forEach(builder::returnVariables);
+            fields.<NodeBuilder>nodes("pipes").forEach(builder::pipe);
+            return builder;
+        }, text("id"), text("url"), headers("requestHeaders"), node("bodyPublisher"), nodes("responseValidators"), texts("returnVariables"), nodes("pipes"));
+
+        register(BuilderType.Put, fields -> {
+            PutBuilder builder = new PutBuilder(fields.required("id"));
+            builder.url(fields.required("url"));
+            fields.<BodyPublisherBuilder>ifPresent("bodyPublisher", builder::data);
+            fields.<LeafNodeBuilder>nodes("responseValidators").forEach(builder::validate);
+            fields.texts("returnVariables").forEach(builder::returnVariables);
+            fields.<NodeBuilder>nodes("pipes").forEach(builder::pipe);
+            return builder;
+        }, text("id"), text("url"), node("bodyPublisher"), nodes("responseValidators"), texts("returnVariables"), nodes("pipes"));
+
+        register(BuilderType.Delete, fields -> {
+            DeleteBuilder builder = new DeleteBuilder(fields.required("id"));
+            builder.url(fields.required("url"));
+            fields.<LeafNodeBuilder>nodes("responseValidators").forEach(builder::validate);
+            fields.texts("returnVariables").forEach(builder::returnVariables);
+            fields.<NodeBuilder>nodes("pipes").forEach(builder::pipe);
+            return builder;
+        }, text("id"), text("url"), nodes("responseValidators"), texts("returnVariables"), nodes("pipes"));
+
+        register(BuilderType.BodyPublisher, fields -> {
+            BodyPublisherBuilder builder = new BodyPublisherBuilder();
+            fields.<BodyPublisherProducerBuilder>ifPresent("plainTextData", builder::plainText);
+            fields.<BodyPublisherProducerBuilder>ifPresent("json", builder::json);
+            fields.<BodyPublisherProducerBuilder>ifPresent("urlEncodedData", builder::urlEncoded);
+            // TODO add MultiPartFormData
+            fields.<List<Part>>getOrDefault("partsData", Collections.emptyList()).forEach(part -> {
+                if (part.filename == null) {
+                    builder.textPart(part.name, (String) part.value);
+                } else if (part.value instanceof byte[]) {
+                    builder.formPart(part.name, part.filename, (byte[]) part.value);
+                } else {
+                    builder.formPart(part.name, part.filename, (String) part.value);
+                }
+            });
+            return builder;
+        }, node("plainTextData"), node("json"), node("urlEncodedData"), parts("partsData"));
+
+        register(BuilderType.StringBodyPublisherProducer, fields -> new StringBodyPublisherProducerBuilder(fields.get("data")), text("data"));
+
+        register(BuilderType.JwtIdentityTokenBodyPublisherProducer, fields -> {
+            JwtIdentityTokenBodyPublisherProducerBuilder builder = new JwtIdentityTokenBodyPublisherProducerBuilder();
+            builder.identityId(fields.get("identityId"));
+            builder.bindTo(fields.get("bindTo"));
+            builder.token(fields.get("token"));
+            return builder;
+        }, text("identityId"), text("bindTo"), text("token"));
+
+        // {"type":"HttpStatusRetryWhile","statusCodes":[429,503],"initialDelayMillis":500,"maxDelayMillis":30000,"multiplier":2.0,"jitter":0.5,"maxElapsedMillis":300000,"tokenBucketCapacity":10}
+        register(BuilderType.HttpStatusRetryWhile, fields -> {
+            HttpStatusRetryWhileBuilder builder = new HttpStatusRetryWhileBuilder();
+            String duration = fields.get("duration");
+            builder.is(fields.<Integer>get("statusCode"), duration != null ? TimeUnit.valueOf(duration) : null, fields.<Integer>get("amount"));
+            fields.integers("statusCodes").forEach(builder::anyOf);
+            builder.initialDelayMillis = fields.get("initialDelayMillis");
+            builder.maxDelayMillis = fields.get("maxDelayMillis");
+            builder.multiplier = fields.get("multiplier");
+            builder.jitter = fields.get("jitter");
+            builder.respectRetryAfter = fields.get("respectRetryAfter");
+            builder.maxElapsedMillis = fields.get("maxElapsedMillis");
+            builder.maxAttempts = fields.get("maxAttempts");
+            builder.tokenBucketCapacity = fields.get("tokenBucketCapacity");
+            builder.tokenBucketRefillPerSecond = fields.get("tokenBucketRefillPerSecond");
+            return builder;
+        }, integer("statusCode"), text("duration"), integer("amount"), integers("statusCodes"), longInteger("initialDelayMillis"),
+                longInteger("maxDelayMillis"), decimal("multiplier"), decimal("jitter"), bool("respectRetryAfter"), longInteger("maxElapsedMillis"),
+                integer("maxAttempts"), integer("tokenBucketCapacity"), decimal("tokenBucketRefillPerSecond"));
+
+        // {"type":"HttpStatusValidation","success":{"200":[],"404":[{"type":"HttpResponseBodyContains","queryBuilder":{"type":"QueryJqPath","expression":".kode"},"equalToStringLiteral":"SP-002"}]}}
+        register(BuilderType.HttpStatusValidation, fields -> {
+            HttpStatusValidationBuilder builder = new HttpStatusValidationBuilder();
+            fields.<List<ResponsePredicateBuilder>>nodeMap("success").forEach((code, responsePredicates) -> {
+                int statusCode = Integer.parseInt(code);
+                builder.success(statusCode);
+                responsePredicates.forEach(responsePredicate -> builder.success(statusCode, responsePredicate));
+            });
+            fields.integers("failed").forEach(builder::fail);
+            return builder;
+        }, nodeListMap("success"), integers("failed"));
+
+        register(BuilderType.HttpResponseBodyContains, fields -> new BodyContainsBuilder(fields.required("queryBuilder"), fields.required("equalToStringLiteral")),
+                node("queryBuilder"), text("equalToStringLiteral"));
+
+        for (BuilderType type : BuilderType.values()) {
+            if (READERS[type.ordinal()] == null) {
+                throw new IllegalStateException("NodeBuilder type '" + type + "' has no reader!");
+            }
+        }
+    }
+
     public NodeBuilderDeserializer() {
         this(null);
     }
@@ -35,601 +328,359 @@ public class NodeBuilderDeserializer extends StdDeserializer<AbstractBuilder> {
 
     @Override
     public AbstractBuilder deserialize(JsonParser jsonParser, DeserializationContext context) throws IOException {
-        JsonNode node = jsonParser.getCodec().readTree(jsonParser);
-        return handleNodeBuilder(0, context, new LinkedList<>(), null, node);
-    }
-
-    private String nodePath(Deque<JsonNode> ancestors) {
-        return "/" + ancestors.stream().filter(node -> node != null).map(node -> {
-            String id = node.has("id") ? node.get("id").textValue() : null;
-            String type = node.has("type") ? node.get("type").textValue() : null;
-            return String.format("%s%s", type, id == null ? "" : String.format("[%s]", id));
-        }).collect(Collectors.joining("/"));
-    }
-
-    private AbstractBuilder handleNodeBuilder(int depth, DeserializationContext context, Deque<JsonNode> ancestors,
-                                              JsonNode previousNode,
-                                              JsonNode currentNode) {
-        if (currentNode == null || !currentNode.has("type")) {
-            throw new RuntimeException(String.format("Error resolving node: %s => %s", nodePath(ancestors), ancestors.peekLast()));
-        }
-        BuilderType type = BuilderType.parse(currentNode.get("type").textValue());
-
-        ancestors.add(previousNode);
-        AbstractBuilder nextNodeBuilder = buildNodeBuilder(depth, context, ancestors, currentNode, type);
-        ancestors.remove(previousNode);
-        return nextNodeBuilder;
-    }
-
-    private AbstractBuilder buildNodeBuilder(int depth, DeserializationContext context, Deque<JsonNode> ancestors, JsonNode currentNode, BuilderType type) {
-        Objects.requireNonNull(type);
-        switch (type) {
-            case Specification: {
-                SpecificationBuilder builder = Specification.start(
-                        currentNode.get("id").textValue(),
-                        currentNode.get("name").textValue(),
-                        currentNode.get("startFunctionId").textValue()
-                );
-
-                JsonNode configureNode = currentNode.get("configure");
-                if (configureNode != null) {
-                    for (JsonNode configurationNode : configureNode) {
-                        ConfigurationBuilder configurationBuilder = (ConfigurationBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, configurationNode);
-                        builder.configure(configurationBuilder);
-                    }
-                }
-
-                currentNode.get("functions").fields().forEachRemaining(entry ->
-                        builder.function((NodeWithIdBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, entry.getValue())));
-
-                return builder;
-            }
-
-            case SpecificationContext: {
-                SpecificationContextBuilder builder = new SpecificationContextBuilder();
-
-                JsonNode headerNode = currentNode.get("headers");
-                if (headerNode != null) {
-                    headerNode.fields().forEachRemaining(entry -> {
-                        entry.getValue().forEach(headerValueNode -> builder.header(entry.getKey(), headerValueNode.textValue()));
-                    });
-                }
-
-                JsonNode variableNode = currentNode.get("variables");
-                if (variableNode != null) {
-                    variableNode.fields().forEachRemaining(entry -> {
-                        Object value;
-                        if (entry.getValue().isInt()) {
-                            value = entry.getValue().intValue();
-                        } else if (entry.getValue().isBoolean()) {
-                            value = entry.getValue().booleanValue();
-                        } else if (entry.getValue().isTextual()) {
-                            value = entry.getValue().textValue();
-                        } else if (entry.getValue().isNull()) {
-                            value = null;
-                        } else {
-                            throw new IllegalArgumentException("The context variable type is not supported: " + entry.getKey());
-                        }
-                        builder.variable(entry.getKey(), value);
-                    });
-                }
-
-                JsonNode globalStateNode = currentNode.get("globalState");
-                if (globalStateNode != null) {
-                    globalStateNode.fields().forEachRemaining(entry -> {
-                        builder.globalState(entry.getKey(), entry.getValue().textValue());
-                    });
-                }
-
-                return builder;
-            }
-
-            case Security: {
-                SecurityBuilder builder = new SecurityBuilder();
-
-                JsonNode sslBundleNameNode = currentNode.get("bundleName");
-                if (sslBundleNameNode != null) {
-                    builder.sslBundleName(sslBundleNameNode.textValue());
-                }
-
-                ArrayNode identityNodes = (ArrayNode) currentNode.get("identities");
-                if (identityNodes != null) {
-                    identityNodes.forEach(identityNode -> {
-                        builder.identity((IdentityBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, identityNode));
-                    });
-                }
-
-                return builder;
-            }
-
-            case JwtIdentity: {
-                String id = currentNode.get("id").textValue();
-
-                JwtHeaderClaims headerClaims = new JwtHeaderClaims();
-                JsonNode headerClaimsNode = currentNode.get("headerClaims");
-                if (headerClaimsNode != null) {
-                    headerClaimsNode.fields().forEachRemaining(entry -> {
-                        String value = entry.getValue() == null ? null : entry.getValue().textValue(); // todo only support string values
-                        headerClaims.headerClaims.put(entry.getKey(), value);
-                    });
-                }
-
-                JwtClaims claims = new JwtClaims();
-                JsonNode claimsNode = currentNode.get("claims");
-                if (claimsNode != null) {
-                    claimsNode.fields().forEachRemaining(entry -> {
-                        String value = entry.getValue() == null ? null : entry.getValue().textValue(); // todo only support string values
-                        claims.claims.put(entry.getKey(), value);
-                    });
-                }
-
-                IdentityBuilder builder = new JwtIdentityBuilder(id, headerClaims, claims);
-
-                return builder;
-            }
-
-            case Paginate: {
-                PaginateBuilder builder = new PaginateBuilder(currentNode.get("id").textValue());
-
-                currentNode.get("variables").fields().forEachRemaining(entry -> builder.variable(entry.getKey(), entry.getValue().textValue()));
-
-                if (currentNode.has("addPageContent") && currentNode.get("addPageContent").asBoolean()) {
-                    builder.addPageContent(currentNode.get("positionVariable").textValue());
-                }
-
-                currentNode.get("iterate").forEach(child -> builder.iterate((ExecuteBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, child)));
-
-                JsonNode thresholdNode = currentNode.get("threshold");
-                builder.prefetchThreshold(thresholdNode.asInt());
-
-                JsonNode conditionBuilderNode = currentNode.get("until");
-                builder.until((ConditionBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, conditionBuilderNode));
-
-                return builder;
-            }
-
-            case Sequence: {
-                SequenceBuilder builder = new SequenceBuilder(null);
-
-                QueryBuilder splitBuilder = (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, currentNode.get("splitQuery"));
-                builder.splitBuilder(splitBuilder);
-
-                QueryBuilder expectedBuilder = (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, currentNode.get("expectedQuery"));
-                builder.expected(expectedBuilder);
-
-                return builder;
-            }
-
-            case NextPage: {
-                NextPageBuilder builder = new NextPageBuilder();
-
-                currentNode.get("outputs").fields().forEachRemaining(entry ->
-                        builder.output(
-                                entry.getKey(),
-                                (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, entry.getValue())
-                        )
-                );
-
-                return builder;
-            }
-
-            case Parallel: {
-                QueryBuilder splitBuilder = (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, currentNode.get("splitQuery"));
-                ParallelBuilder builder = new ParallelBuilder(splitBuilder);
-
-                currentNode.get("variables").fields().forEachRemaining(entry ->
-                        builder.variable(entry.getKey(), (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, entry.getValue())));
-
-                JsonNode stepsNode = currentNode.get("pipes");
-                if (stepsNode != null) {
-                    stepsNode.forEach(stepNode -> builder.pipe((NodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, stepNode)));
-                }
-
-                JsonNode publishJsonNode = currentNode.get("publish");
-                if (publishJsonNode != null) {
-                    PublishBuilder publishBuilder = (PublishBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, publishJsonNode);
-                    builder.publish(publishBuilder);
-                }
-
-                return builder;
-            }
-
-            case ForEach: {
-                JsonNode splitQueryNode = currentNode.get("splitQuery");
-                QueryBuilder splitQueryBuilder = (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, splitQueryNode);
-                ForEachBuilder builder = new ForEachBuilder(splitQueryBuilder);
-                if (currentNode.has("pipes")) {
-                    JsonNode pipeNodes = currentNode.get("pipes");
-                    pipeNodes.forEach(pipeNode -> {
-                        NodeBuilder pipeBuilder = (NodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, pipeNode);
-                        builder.pipe(pipeBuilder);
-                    });
-                }
-                return builder;
-            }
-
-            case Execute: {
-                ExecuteBuilder builder = new ExecuteBuilder(currentNode.get("executeId").textValue());
-
-                if (currentNode.has("requiredInputs")) {
-                    currentNode.get("requiredInputs").forEach(requiredInput -> builder.requiredInput(requiredInput.textValue()));
-                }
-
-                if (currentNode.has("inputVariables")) {
-                    currentNode.get("inputVariables").fields().forEachRemaining(entry ->
-                            builder.inputVariable(entry.getKey(), (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, entry.getValue())));
-                }
-                return builder;
-            }
-
-            case Process: {
-                try {
-                    ProcessBuilder builder = new ProcessBuilder((Class<? extends Processor>) Class.forName(currentNode.get("processorClass").textValue()));
-                    currentNode.get("requiredOutputs").forEach(output -> builder.output(output.textValue()));
-                    return builder;
-                } catch (ClassNotFoundException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            case Console: {
-                return new ConsoleBuilder();
-            }
-
-            case QueryBody: {
-                return new BodyBuilder();
-            }
-
-            case QueryEval: {
-                QueryBuilder queryBuilder = currentNode.has("query") ? (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, currentNode.get("query")) : null;
-                String bindToVariableNode = currentNode.has("bindToVariable") ? currentNode.get("bindToVariable").textValue() : null;
-                String expression = currentNode.get("expression").textValue();
-                return new EvalBuilder(queryBuilder, bindToVariableNode, expression);
-            }
-
-            case QueryXPath: {
-                return new XPathBuilder(currentNode.get("expression").textValue());
-            }
+        return readNode(jsonParser, context, new ArrayDeque<>());
+    }
 
-            case QueryJsonToken: {
-                return new JsonTokenBuilder();
-            }
+    static void register(BuilderType type, Function<Fields, AbstractBuilder> factory, Field... fields) {
+        Map<String, Field> fieldByName = new HashMap<>();
+        for (Field field : fields) {
+            fieldByName.put(field.name, field);
+        }
+        READERS[type.ordinal()] = new NodeReader(fieldByName, factory);
+    }
 
-            case QueryXmlToken: {
-                return new XmlTokenBuilder();
-            }
+    static AbstractBuilder readNode(JsonParser parser, DeserializationContext context, Deque<Frame> path) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            throw JsonMappingException.from(parser, String.format("Error resolving node: %s => %s", nodePath(path), token));
+        }
 
-            case QueryJqPath: {
-                return new JqPathBuilder(currentNode.get("expression").textValue());
-            }
+        // fields that precede the type are buffered
+        TokenBuffer buffer = null;
+        String typeName = null;
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            if ("type".equals(fieldName)) {
+                typeName = parser.getValueAsString();
+                break;
+            }
+            if (buffer == null) {
+                buffer = new TokenBuffer(parser, context);
+                buffer.writeStartObject();
+            }
+            buffer.writeFieldName(fieldName);
+            buffer.copyCurrentStructure(parser);
+        }
+        if (typeName == null) {
+            throw JsonMappingException.from(parser, String.format("Error resolving node type: %s", nodePath(path)));
+        }
+        BuilderType type = BuilderType.parse(typeName);
+        if (type == null) {
+            throw JsonMappingException.from(parser, String.format("NodeBuilder type '%s' NOT supported: %s", typeName, nodePath(path)));
+        }
 
-            case QueryRegEx: {
-                return new RegExBuilder((QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, currentNode.get("query")), currentNode.get("expression").textValue());
+        NodeReader reader = READERS[type.ordinal()];
+        Frame frame = new Frame(type);
+        path.addLast(frame);
+        Fields fields = new Fields(frame, path);
+        if (buffer != null) {
+            buffer.writeEndObject();
+            try (JsonParser bufferedParser = buffer.asParser(parser)) {
+                bufferedParser.nextToken();
+                readFields(bufferedParser, context, path, reader, fields);
             }
+        }
+        readFields(parser, context, path, reader, fields);
+        AbstractBuilder builder = reader.factory.apply(fields);
+        path.removeLast();
+        return builder;
+    }
 
-            case ConditionWhenVariableIsNull: {
-                WhenVariableIsNullBuilder builder = new WhenVariableIsNullBuilder();
-                builder.identifier(currentNode.get("identifier").textValue());
-                return builder;
+    private static void readFields(JsonParser parser, DeserializationContext context, Deque<Frame> path, NodeReader reader, Fields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            Field field = reader.fields.get(fieldName);
+            if (field == null) {
+                parser.skipChildren();
+            } else if (valueToken != JsonToken.VALUE_NULL) {
+                fields.put(fieldName, field.value.read(parser, context, path));
             }
+        }
+    }
 
-            case ConditionWhenExpressionIsTrue: {
-                WhenExpressionIsTrueBuilder builder = new WhenExpressionIsTrueBuilder();
-                builder.identifier(currentNode.get("identifier").textValue());
-                return builder;
+    static String nodePath(Deque<Frame> path) {
+        StringBuilder nodePath = new StringBuilder();
+        for (Frame frame : path) {
+            nodePath.append('/').append(frame.type);
+            if (frame.id != null) {
+                nodePath.append('[').append(frame.id).append(']');
             }
+        }
+        return nodePath.length() == 0 ? "/" : nodePath.toString();
+    }
 
-            case AddContent: {
-                AddContentBuilder builder = new AddContentBuilder(currentNode.get("positionVariableExpression").textValue(), currentNode.get("contentKey").textValue());
-                JsonNode stateNode = currentNode.get("state");
-                if (stateNode != null) {
-
-                    stateNode.fields().forEachRemaining(entry -> {
-                        JsonNode value = entry.getValue();
-                        Object stateValue;
-                        if (value.isInt()) {
-                            stateValue = value.intValue();
-                        } else if (value.isBoolean()) {
-                            stateValue = value.booleanValue();
-                        } else if (value.isTextual()) {
-                            stateValue = value.textValue();
-                        } else {
-                            throw new IllegalArgumentException("The content state type is not supported: " + entry.getKey());
-                        }
-                        builder.storeState(entry.getKey(), stateValue);
-                    });
-                }
-                return builder;
-            }
+    /*
+     * Field value readers. The parser is positioned at the first token of the value and is left at its last token.
+     */
 
-            case Publish: {
-                return new PublishBuilder(currentNode.get("positionVariableExpression").textValue());
-            }
+    static Field text(String name) {
+        return new Field(name, (parser, context, path) -> scalarText(parser, path));
+    }
 
-            case Get: {
-                GetBuilder builder = new GetBuilder(currentNode.get("id").textValue());
-
-                builder.url(currentNode.get("url").textValue());
-
-                JsonNode requestHeaders = currentNode.get("requestHeaders");
-                if (requestHeaders != null) {
-                    requestHeaders.fieldNames().forEachRemaining(headerName -> {
-                        ArrayNode values = (ArrayNode) requestHeaders.get(headerName);
-                        for (int i = 0; i < values.size(); i++) {
-                            JsonNode value = values.get(i);
-                            String headerValue;
-                            if (value.isInt()) {
-                                headerValue = String.valueOf(value.intValue());
-                            } else if (value.isBoolean()) {
-                                headerValue = Boolean.toString(value.booleanValue());
-                            } else if (value.isTextual()) {
-                                headerValue = value.textValue();
-                            } else {
-                                throw new IllegalArgumentException("The context variable type is not supported: " + headerName);
-                            }
-                            builder.header(headerName, headerValue);
-                        }
-                    });
-                }
+    static Field integer(String name) {
+        return new Field(name, (parser, context, path) -> parser.getValueAsInt());
+    }
 
-                JsonNode retryWhileNodeArray = currentNode.get("retryWhile");
-                if (retryWhileNodeArray != null) {
-                    retryWhileNodeArray.forEach(retryWhileNode -> {
-                        LeafNodeBuilder retryWhileBuilder = (LeafNodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, retryWhileNode);
-                        builder.retryWhile(retryWhileBuilder);
-                    });
-                }
+    static Field longInteger(String name) {
+        return new Field(name, (parser, context, path) -> parser.getValueAsLong());
+    }
 
-                JsonNode validateResponseNode = currentNode.get("responseValidators");
-                if (validateResponseNode != null) {
-                    validateResponseNode.forEach(validatorNode -> {
-                        LeafNodeBuilder validatorBuilder = (LeafNodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, validatorNode);
-                        builder.validate(validatorBuilder);
-                    });
-                }
+    static Field decimal(String name) {
+        return new Field(name, (parser, context, path) -> parser.getValueAsDouble());
+    }
 
-                ArrayNode returnVariablesNode = (ArrayNode) currentNode.get("returnVariables");
-                if (returnVariablesNode != null) {
-                    returnVariablesNode.forEach(node -> builder.returnVariables(node.textValue()));
-                }
+    static Field bool(String name) {
+        return new Field(name, (parser, context, path) -> parser.getValueAsBoolean());
+    }
 
-                JsonNode stepsNode = currentNode.get("pipes");
-                if (stepsNode != null) {
-                    stepsNode.forEach(stepNode -> builder.pipe((NodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, stepNode)));
-                }
+    static Field node(String name) {
+        return new Field(name, NodeBuilderDeserializer::readNode);
+    }
 
-                return builder;
-            }
+    static Field nodes(String name) {
+        return new Field(name, NodeBuilderDeserializer::readNodes);
+    }
 
-            case Post: {
-                PostBuilder builder = new PostBuilder(currentNode.get("id").textValue());
-
-                builder.url(currentNode.get("url").textValue());
-
-                JsonNode requestHeaders = currentNode.get("requestHeaders");
-                if (requestHeaders != null) {
-                    requestHeaders.fieldNames().forEachRemaining(headerName -> {
-                        ArrayNode values = (ArrayNode) requestHeaders.get(headerName);
-                        for (int i = 0; i < values.size(); i++) {
-                            JsonNode value = values.get(i);
-                            String headerValue;
-                            if (value.isInt()) {
-                                headerValue = String.valueOf(value.intValue());
-                            } else if (value.isBoolean()) {
-                                headerValue = Boolean.toString(value.booleanValue());
-                            } else if (value.isTextual()) {
-                                headerValue = value.textValue();
-                            } else {
-                                throw new IllegalArgumentException("The context variable type is not supported: " + headerName);
-                            }
-                            builder.header(headerName, headerValue);
-                        }
-                    });
-                }
+    static Field nodeMap(String name) {
+        return new Field(name, (parser, context, path) -> readObject(parser, path, () -> readNode(parser, context, path)));
+    }
 
-                JsonNode bodyPublisherNode = currentNode.get("bodyPublisher");
-                if (bodyPublisherNode != null) {
-                    BodyPublisherBuilder bodyPublisherBuilder = (BodyPublisherBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, bodyPublisherNode);
-                    builder.data(bodyPublisherBuilder);
-                }
+    static Field nodeListMap(String name) {
+        return new Field(name, (parser, context, path) -> readObject(parser, path, () -> readNodes(parser, context, path)));
+    }
 
-                JsonNode validateResponseNode = currentNode.get("responseValidators");
-                if (validateResponseNode != null) {
-                    validateResponseNode.forEach(validatorNode -> {
-                        LeafNodeBuilder validatorBuilder = (LeafNodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, validatorNode);
-                        builder.validate(validatorBuilder);
-                    });
-                }
+    static Field texts(String name) {
+        return new Field(name, (parser, context, path) -> readArray(parser, path, () -> scalarText(parser, path)));
+    }
 
-                ArrayNode returnVariablesNode = (ArrayNode) currentNode.get("returnVariables");
-                if (returnVariablesNode != null) {
-                    returnVariablesNode.forEach(node -> builder.returnVariables(node.textValue()));
-                }
+    static Field integers(String name) {
+        return new Field(name, (parser, context, path) -> readArray(parser, path, parser::getValueAsInt));
+    }
 
-                JsonNode stepsNode = currentNode.get("pipes");
-                if (stepsNode != null) {
-                    stepsNode.forEach(stepNode -> builder.pipe((NodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, stepNode)));
-                }
+    static Field textMap(String name) {
+        return new Field(name, (parser, context, path) -> readObject(parser, path, () -> scalarText(parser, path)));
+    }
 
-                return builder;
+    /**
+     * An object of int, boolean, text and optionally null values
+     */
+    static Field valueMap(String name, boolean allowNull, String unsupportedMessage) {
+        return new Field(name, (parser, context, path) -> readObject(parser, path, () -> {
+            switch (parser.currentToken()) {
+                case VALUE_NUMBER_INT:
+                    if (parser.getNumberType() == JsonParser.NumberType.INT) {
+                        return parser.getIntValue();
+                    }
+                    break;
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    return parser.getBooleanValue();
+                case VALUE_STRING:
+                    return parser.getText();
+                case VALUE_NULL:
+                    if (allowNull) {
+                        return null;
+                    }
+                    break;
+                default:
             }
+            throw new IllegalArgumentException(unsupportedMessage + parser.currentName());
+        }));
+    }
 
-            case Put: {
-                PutBuilder builder = new PutBuilder(currentNode.get("id").textValue());
-
-                builder.url(currentNode.get("url").textValue());
+    /**
+     * An object of header names to arrays of int, boolean or text values
+     */
+    static Field headers(String name) {
+        return new Field(name, (parser, context, path) -> readObject(parser, path, () -> {
+            String headerName = parser.currentName();
+            return readArray(parser, path, () -> {
+                switch (parser.currentToken()) {
+                    case VALUE_NUMBER_INT:
+                    case VALUE_TRUE:
+                    case VALUE_FALSE:
+                    case VALUE_STRING:
+                        return parser.getText();
+                    default:
+                        throw new IllegalArgumentException("The context variable type is not supported: " + headerName);
+                }
+            });
+        }));
+    }
 
-                JsonNode bodyPublisherNode = currentNode.get("bodyPublisher");
-                if (bodyPublisherNode != null) {
-                    BodyPublisherBuilder bodyPublisherBuilder = (BodyPublisherBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, bodyPublisherNode);
-                    builder.data(bodyPublisherBuilder);
-                }
+    static Field parts(String name) {
+        return new Field(name, (parser, context, path) -> readArray(parser, path, () -> {
+            Map<String, Object> part = readObject(parser, path, () -> parser.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT ?
+                    (Object) parser.getBinaryValue() : scalarText(parser, path));
+            return new Part((String) part.get("name"), (String) part.get("filename"), part.get("value"));
+        }));
+    }
 
-                JsonNode validateResponseNode = currentNode.get("responseValidators");
-                if (validateResponseNode != null) {
-                    validateResponseNode.forEach(validatorNode -> {
-                        LeafNodeBuilder validatorBuilder = (LeafNodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, validatorNode);
-                        builder.validate(validatorBuilder);
-                    });
-                }
+    private static List<AbstractBuilder> readNodes(JsonParser parser, DeserializationContext context, Deque<Frame> path) throws IOException {
+        return readArray(parser, path, () -> readNode(parser, context, path));
+    }
 
-                ArrayNode returnVariablesNode = (ArrayNode) currentNode.get("returnVariables");
-                if (returnVariablesNode != null) {
-                    returnVariablesNode.forEach(node -> builder.returnVariables(node.textValue()));
-                }
+    private static <T> List<T> readArray(JsonParser parser, Deque<Frame> path, ElementReader<T> elementReader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw JsonMappingException.from(parser, String.format("Expected an array: %s", nodePath(path)));
+        }
+        List<T> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(elementReader.read());
+        }
+        return list;
+    }
 
-                JsonNode stepsNode = currentNode.get("pipes");
-                if (stepsNode != null) {
-                    stepsNode.forEach(stepNode -> builder.pipe((NodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, stepNode)));
-                }
+    private static <T> Map<String, T> readObject(JsonParser parser, Deque<Frame> path, ElementReader<T> valueReader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw JsonMappingException.from(parser, String.format("Expected an object: %s", nodePath(path)));
+        }
+        Map<String, T> map = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            parser.nextToken();
+            map.put(key, valueReader.read());
+        }
+        return map;
+    }
 
-                return builder;
-            }
+    private static String scalarText(JsonParser parser, Deque<Frame> path) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw JsonMappingException.from(parser, String.format("Expected a value: %s", nodePath(path)));
+        }
+        return parser.getText();
+    }
 
-            case Delete: {
-                DeleteBuilder builder = new DeleteBuilder(currentNode.get("id").textValue());
+    @FunctionalInterface
+    interface ValueReader {
+        Object read(JsonParser parser, DeserializationContext context, Deque<Frame> path) throws IOException;
+    }
 
-                builder.url(currentNode.get("url").textValue());
+    @FunctionalInterface
+    interface ElementReader<T> {
+        T read() throws IOException;
+    }
 
-                JsonNode validateResponseNode = currentNode.get("responseValidators");
-                if (validateResponseNode != null) {
-                    validateResponseNode.forEach(validatorNode -> {
-                        LeafNodeBuilder validatorBuilder = (LeafNodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, validatorNode);
-                        builder.validate(validatorBuilder);
-                    });
-                }
+    static class Field {
+        final String name;
+        final ValueReader value;
 
-                ArrayNode returnVariablesNode = (ArrayNode) currentNode.get("returnVariables");
-                if (returnVariablesNode != null) {
-                    returnVariablesNode.forEach(node -> builder.returnVariables(node.textValue()));
-                }
+        Field(String name, ValueReader value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
 
-                JsonNode stepsNode = currentNode.get("pipes");
-                if (stepsNode != null) {
-                    stepsNode.forEach(stepNode -> builder.pipe((NodeBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, stepNode)));
-                }
+    static class NodeReader {
+        final Map<String, Field> fields;
+        final Function<Fields, AbstractBuilder> factory;
 
-                return builder;
-            }
+        NodeReader(Map<String, Field> fields, Function<Fields, AbstractBuilder> factory) {
+            this.fields = fields;
+            this.factory = factory;
+        }
+    }
 
-            case BodyPublisher: {
-                BodyPublisherBuilder builder = new BodyPublisherBuilder();
+    static class Frame {
+        final BuilderType type;
+        String id;
 
-                JsonNode plainTextDataNode = currentNode.get("plainTextData");
-                if (plainTextDataNode != null) {
-                    BodyPublisherProducerBuilder bodyPublisherProducerBuilder =
-                            (BodyPublisherProducerBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, plainTextDataNode);
-                    builder.plainText(bodyPublisherProducerBuilder);
-                }
+        Frame(BuilderType type) {
+            this.type = type;
+        }
+    }
 
-                JsonNode jsonBodyNode = currentNode.get("json");
-                if (jsonBodyNode != null) {
-                    BodyPublisherProducerBuilder bodyPublisherProducerBuilder =
-                            (BodyPublisherProducerBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, jsonBodyNode);
-                    builder.json(bodyPublisherProducerBuilder);
-                }
+    static class Part {
+        final String name;
+        final String filename;
+        final Object value;
 
-                JsonNode urlEncodedDataNode = currentNode.get("urlEncodedData");
-                if (urlEncodedDataNode != null) {
-                    BodyPublisherProducerBuilder bodyPublisherProducerBuilder =
-                            (BodyPublisherProducerBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, urlEncodedDataNode);
-                    builder.urlEncoded(bodyPublisherProducerBuilder);
-                }
+        Part(String name, String filename, Object value) {
+            this.name = name;
+            this.filename = filename;
+            this.value = value;
+        }
+    }
 
-                // TODO add MultiPartFormData
-                JsonNode partsData = currentNode.get("partsData");
-                if (partsData != null) {
-                    partsData.forEach(partNode -> {
-                        String name = partNode.get("name").textValue();
-                        String filename = Optional.ofNullable(partNode.get("filename")).map(JsonNode::textValue).orElse(null);
-                        Charset charset = Optional.ofNullable(partNode.get("charset")).map(node -> Charset.forName(node.textValue())).orElse(StandardCharsets.UTF_8); // TODO add bodypart charset methods
-
-                        JsonNode valueNode = partNode.get("value");
-                        if (filename == null) {
-                            builder.textPart(name, valueNode.textValue());
-                        } else {
-                            if (valueNode.isTextual()) {
-                                builder.formPart(name, filename, valueNode.textValue());
-                            } else {
-                                try {
-                                    byte[] bytes = valueNode.binaryValue();
-                                    builder.formPart(name, filename, bytes);
-                                } catch (IOException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            }
-                        }
-                    });
-                }
+    /**
+     * The field values of a node. Null and absent fields have no value.
+     */
+    @SuppressWarnings("unchecked")
+    static class Fields {
+        final Frame frame;
+        final Deque<Frame> path;
+        final Map<String, Object> values = new HashMap<>();
+
+        Fields(Frame frame, Deque<Frame> path) {
+            this.frame = frame;
+            this.path = path;
+        }
 
-                return builder;
+        void put(String name, Object value) {
+            if ("id".equals(name) && value instanceof String) {
+                frame.id = (String) value;
             }
+            values.put(name, value);
+        }
 
+        <T> T get(String name) {
+            return (T) values.get(name);
+        }
 
-            case StringBodyPublisherProducer: {
-                String data = currentNode.get("data").textValue();
-                StringBodyPublisherProducerBuilder builder = new StringBodyPublisherProducerBuilder(data);
-                return builder;
-            }
+        <T> T getOrDefault(String name, T defaultValue) {
+            return (T) values.getOrDefault(name, defaultValue);
+        }
 
-            case JwtIdentityTokenBodyPublisherProducer: {
-                String identityId = currentNode.get("identityId").textValue();
-                String bindTo = currentNode.get("bindTo").textValue();
-                String token = currentNode.get("token").textValue();
-                JwtIdentityTokenBodyPublisherProducerBuilder builder = new JwtIdentityTokenBodyPublisherProducerBuilder();
-                builder.identityId(identityId);
-                builder.bindTo(bindTo);
-                builder.token(token);
-                return builder;
+        <T> T required(String name) {
+            Object value = values.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException(String.format("Field '%s' is required: %s", name, nodePath(path)));
             }
+            return (T) value;
+        }
 
-            case HttpStatusRetryWhile: {
-                HttpStatusRetryWhileBuilder builder = new HttpStatusRetryWhileBuilder();
-
-                Integer statusCode = Integer.parseInt(currentNode.get("statusCode").asText());
-                TimeUnit duration = TimeUnit.valueOf(currentNode.get("duration").asText());
-                int amount = Integer.parseInt(currentNode.get("amount").asText());
-
-                builder.is(statusCode, duration, amount);
-                return builder;
+        <T> void ifPresent(String name, Consumer<T> consumer) {
+            Object value = values.get(name);
+            if (value != null) {
+                consumer.accept((T) value);
             }
+        }
 
-            case HttpStatusValidation: {
-                HttpStatusValidationBuilder builder = new HttpStatusValidationBuilder();
-
-                JsonNode successNode = currentNode.get("success");
-                // {"type":"HttpStatusValidation","success":{"200":[],"404":[{"type":"HttpResponseBodyContains","queryBuilder":{"type":"QueryJqPath","expression":".kode"},"equalToStringLiteral":"SP-002"}]}}
-                for (Iterator<Map.Entry<String, JsonNode>> it = successNode.fields(); it.hasNext(); ) {
-                    Map.Entry<String, JsonNode> elementNode = it.next();
-
-                    int statusCode = Integer.parseInt(elementNode.getKey());
+        <T> List<T> nodes(String name) {
+            return getOrDefault(name, Collections.emptyList());
+        }
 
-                    builder.success(statusCode);
-                    elementNode.getValue().forEach(responsePredicateNode -> {
-                        ResponsePredicateBuilder responsePredicateBuilder = (ResponsePredicateBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, responsePredicateNode);
-                        builder.success(statusCode, responsePredicateBuilder);
-                    });
-                }
+        <T> Map<String, T> nodeMap(String name) {
+            return getOrDefault(name, Collections.emptyMap());
+        }
 
-                JsonNode failedNode = currentNode.get("failed");
-                if (failedNode != null) {
-                    failedNode.forEach(code -> builder.fail(code.intValue()));
-                }
+        List<String> texts(String name) {
+            return getOrDefault(name, Collections.emptyList());
+        }
 
-                return builder;
-            }
+        List<Integer> integers(String name) {
+            return getOrDefault(name, Collections.emptyList());
+        }
 
-            case HttpResponseBodyContains: {
-                QueryBuilder queryBuilder = (QueryBuilder) handleNodeBuilder(depth + 1, context, ancestors, currentNode, currentNode.get("queryBuilder"));
-                String equalToStringLiteral = currentNode.get("equalToStringLiteral").asText();
-                return new BodyContainsBuilder(queryBuilder, equalToStringLiteral);
-            }
+        Map<String, String> textMap(String name) {
+            return getOrDefault(name, Collections.emptyMap());
+        }
 
-            default: {
-                throw new UnsupportedOperationException("NodeBuilder type '" + type + "' NOT supported!");
-            }
+        Map<String, Object> valueMap(String name) {
+            return getOrDefault(name, Collections.emptyMap());
         }
 
+        Map<String, List<String>> headers(String name) {
+            return getOrDefault(name, Collections.emptyMap());
+        }
     }
-
-}
\ No newline at end of file
+}
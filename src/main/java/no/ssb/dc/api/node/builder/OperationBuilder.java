@@ -1,9 +1,17 @@
 package no.ssb.dc.api.node.builder;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import no.ssb.dc.api.el.ELTemplate;
+import no.ssb.dc.api.http.Headers;
 import no.ssb.dc.api.node.Configurations;
 import no.ssb.dc.api.node.Operation;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public abstract class OperationBuilder extends NodeWithIdBuilder {
 
     @JsonProperty String url;
@@ -13,8 +21,39 @@ public abstract class OperationBuilder extends NodeWithIdBuilder {
     }
 
     abstract static class OperationNode extends FlowNodeWithId implements Operation {
-        OperationNode(Configurations configurations, String id) {
+
+        final ELTemplate urlTemplate;
+        final Map<String, List<ELTemplate>> headerTemplates;
+
+        OperationNode(Configurations configurations, String id, String url, Headers headers) {
             super(configurations, id);
+            this.urlTemplate = ELTemplate.parse(url);
+            this.headerTemplates = parseHeaderTemplates(headers);
+        }
+
+        static Map<String, List<ELTemplate>> parseHeaderTemplates(Headers headers) {
+            if (headers == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<ELTemplate>> templates = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : headers.asMap().entrySet()) {
+                List<ELTemplate> values = new ArrayList<>(entry.getValue().size());
+                for (String value : entry.getValue()) {
+                    values.add(ELTemplate.parse(value));
+                }
+                templates.put(entry.getKey(), Collections.unmodifiableList(values));
+            }
+            return Collections.unmodifiableMap(templates);
+        }
+
+        @Override
+        public ELTemplate urlTemplate() {
+            return urlTemplate;
+        }
+
+        @Override
+        public Map<String, List<ELTemplate>> headerTemplates() {
+            return headerTemplates;
         }
     }
 }
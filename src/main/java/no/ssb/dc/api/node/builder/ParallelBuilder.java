@@ -23,6 +23,9 @@ public class ParallelBuilder extends NodeBuilder {
     @JsonProperty Map<String, QueryBuilder> variables = new LinkedHashMap<>();
     @JsonProperty("pipes") List<NodeBuilder> pipes = new ArrayList<>();
     @JsonProperty("publish") PublishBuilder publishBuilder;
+    @JsonProperty Integer maxConcurrency;
+    @JsonProperty Boolean ordered;
+    @JsonProperty String failureMode;
 
     public ParallelBuilder(QueryBuilder splitBuilder) {
         super(BuilderType.Parallel);
@@ -44,6 +47,40 @@ public class ParallelBuilder extends NodeBuilder {
         return this;
     }
 
+    public ParallelBuilder maxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Publish positions in split order. This is the default.
+     */
+    public ParallelBuilder ordered() {
+        this.ordered = true;
+        return this;
+    }
+
+    /**
+     * Publish positions as entries complete
+     */
+    public ParallelBuilder unordered() {
+        this.ordered = false;
+        return this;
+    }
+
+    /**
+     * Cancel in-flight and queued entries on the first failure. This is the default.
+     */
+    public ParallelBuilder failFast() {
+        this.failureMode = Parallel.FailureMode.FAIL_FAST.name();
+        return this;
+    }
+
+    public ParallelBuilder collectErrors() {
+        this.failureMode = Parallel.FailureMode.COLLECT_ERRORS.name();
+        return this;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     <R extends Base> R build(BuildContext buildContext) {
@@ -63,7 +100,10 @@ public class ParallelBuilder extends NodeBuilder {
 
         PublishBuilder.PublishNode publishNode = publishBuilder == null ? null : (PublishBuilder.PublishNode) publishBuilder.build(buildContext);
 
-        return (R) new ParallelNode(buildContext.getInstance(SpecificationBuilder.GLOBAL_CONFIGURATION), splitToListQueryNode, contextVariablesMap, stepList, publishNode);
+        return (R) new ParallelNode(buildContext.getInstance(SpecificationBuilder.GLOBAL_CONFIGURATION), splitToListQueryNode, contextVariablesMap, stepList, publishNode,
+                maxConcurrency != null ? maxConcurrency : 0,
+                ordered == null || ordered,
+                failureMode != null ? Parallel.FailureMode.valueOf(failureMode) : Parallel.FailureMode.FAIL_FAST);
     }
 
     @Override
@@ -75,12 +115,15 @@ public class ParallelBuilder extends NodeBuilder {
         return Objects.equals(splitBuilder, that.splitBuilder) &&
                 Objects.equals(variables, that.variables) &&
                 Objects.equals(pipes, that.pipes) &&
-                Objects.equals(publishBuilder, that.publishBuilder);
+                Objects.equals(publishBuilder, that.publishBuilder) &&
+                Objects.equals(maxConcurrency, that.maxConcurrency) &&
+                Objects.equals(ordered, that.ordered) &&
+                Objects.equals(failureMode, that.failureMode);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), splitBuilder, variables, pipes, publishBuilder);
+        return Objects.hash(super.hashCode(), splitBuilder, variables, pipes, publishBuilder, maxConcurrency, ordered, failureMode);
     }
 
     @Override
@@ -90,6 +133,9 @@ public class ParallelBuilder extends NodeBuilder {
                 ", variables=" + variables +
                 ", pipes=" + pipes +
                 ", publishBuilder=" + publishBuilder +
+                ", maxConcurrency=" + maxConcurrency +
+                ", ordered=" + ordered +
+                ", failureMode='" + failureMode + '\'' +
                 '}';
     }
 
@@ -99,13 +145,20 @@ public class ParallelBuilder extends NodeBuilder {
         final Map<String, QueryBuilder.QueryNode> variables;
         final List<Node> steps;
         final Publish publishNode;
+        final int maxConcurrency;
+        final boolean ordered;
+        final FailureMode failureMode;
 
-        ParallelNode(Configurations configurations, QueryBuilder.QueryNode splitQueryNode, Map<String, QueryBuilder.QueryNode> variables, List<Node> steps, Publish publishNode) {
+        ParallelNode(Configurations configurations, QueryBuilder.QueryNode splitQueryNode, Map<String, QueryBuilder.QueryNode> variables, List<Node> steps, Publish publishNode,
+                     int maxConcurrency, boolean ordered, FailureMode failureMode) {
             super(configurations);
             this.splitQueryNode = splitQueryNode;
             this.variables = variables;
             this.steps = steps;
             this.publishNode = publishNode;
+            this.maxConcurrency = maxConcurrency;
+            this.ordered = ordered;
+            this.failureMode = failureMode;
         }
 
         @Override
@@ -133,6 +186,21 @@ public class ParallelBuilder extends NodeBuilder {
             return publishNode;
         }
 
+        @Override
+        public int maxConcurrency() {
+            return maxConcurrency;
+        }
+
+        @Override
+        public boolean isOrdered() {
+            return ordered;
+        }
+
+        @Override
+        public FailureMode failureMode() {
+            return failureMode;
+        }
+
         @Override
         public Iterator<? extends Node> iterator() {
             return steps.iterator();
@@ -146,12 +214,15 @@ public class ParallelBuilder extends NodeBuilder {
             return Objects.equals(splitQueryNode, that.splitQueryNode) &&
                     Objects.equals(variables, that.variables) &&
                     Objects.equals(steps, that.steps) &&
-                    Objects.equals(publishNode, that.publishNode);
+                    Objects.equals(publishNode, that.publishNode) &&
+                    maxConcurrency == that.maxConcurrency &&
+                    ordered == that.ordered &&
+                    failureMode == that.failureMode;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(splitQueryNode, variables, steps, publishNode);
+            return Objects.hash(splitQueryNode, variables, steps, publishNode, maxConcurrency, ordered, failureMode);
         }
 
         @Override
@@ -161,6 +232,9 @@ public class ParallelBuilder extends NodeBuilder {
                     ", variables=" + variables +
                     ", steps=" + steps +
                     ", publishNode=" + publishNode +
+                    ", maxConcurrency=" + maxConcurrency +
+                    ", ordered=" + ordered +
+                    ", failureMode=" + failureMode +
                     '}';
         }
     }
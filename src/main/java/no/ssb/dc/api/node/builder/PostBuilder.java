@@ -138,7 +138,7 @@ public class PostBuilder extends OperationBuilder {
         final List<Validator> validateResponse;
 
         PostNode(String id, Configurations configurations, String url, Headers headers, BodyPublisher bodyPublisher, List<Validator> validateResponse, List<Node> pipes, List<String> returnVariables) {
-            super(configurations, id);
+            super(configurations, id, url, headers);
             this.url = url;
             this.headers = headers;
             this.bodyPublisher = bodyPublisher;
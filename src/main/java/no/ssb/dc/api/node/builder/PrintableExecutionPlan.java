@@ -2,9 +2,6 @@ package no.ssb.dc.api.node.builder;
 
 import no.ssb.dc.api.node.Node;
 
-import java.util.Arrays;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -15,48 +12,48 @@ class PrintableExecutionPlan {
 
     static String build(Node flowNode) {
         StringBuilder builder = new StringBuilder();
-        NodeBuilder.FlowNode.depthFirstPreOrderFullTraversal(0, new LinkedHashSet<>(), new LinkedList<>(), flowNode, (ancestors, visitNode) -> {
-            String indent = Arrays.stream(new String[ancestors.size()]).map(element -> " ").collect(Collectors.joining());
+        flowNode.traverse((nodeId, visitNode, depth, ancestorIds) -> {
+            String indent = " ".repeat(depth);
 
             AtomicBoolean handled = new AtomicBoolean();
 
             visitNode.given(GetBuilder.GetNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) get(%s) => %s%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) get(%s) => %s%n", indent, depth,
                         node.id(),
                         node.url())
                 );
             });
 
             visitNode.given(PostBuilder.PostNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) post(%s) => %s%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) post(%s) => %s%n", indent, depth,
                         node.id(),
                         node.url())
                 );
             });
 
             visitNode.given(PutBuilder.PutNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) put(%s) => %s%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) put(%s) => %s%n", indent, depth,
                         node.id(),
                         node.url())
                 );
             });
 
             visitNode.given(DeleteBuilder.DeleteNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) delete(%s) => %s%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) delete(%s) => %s%n", indent, depth,
                         node.id(),
                         node.url())
                 );
             });
 
             visitNode.given(ProcessBuilder.ProcessNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) process(Class<%s>) produces required-variables: %s%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) process(Class<%s>) produces required-variables: %s%n", indent, depth,
                         node.processorClass().getSimpleName(),
                         node.requiredOutputs())
                 );
             });
 
             visitNode.given(ExecuteBuilder.ExecuteNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) execute(%s)", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) execute(%s)", indent, depth,
                         node.executeId()));
 
                 if (!node.requiredInputs().isEmpty()) {
@@ -72,7 +69,7 @@ class PrintableExecutionPlan {
             });
 
             visitNode.given(PaginateBuilder.PaginateNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) paginate(%s)", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) paginate(%s)", indent, depth,
                         node.id())
                 );
 
@@ -91,17 +88,17 @@ class PrintableExecutionPlan {
             });
 
             visitNode.given(SequenceBuilder.SequenceNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) sequence forEach [%s] sequenced by [%s]%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) sequence forEach [%s] sequenced by [%s]%n", indent, depth,
                         node.splitNode.expression(), node.expectedNode.expression()));
             });
 
             visitNode.given(NextPageBuilder.NextPageNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) nextPage output [%s]%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) nextPage output [%s]%n", indent, depth,
                         node.outputs().entrySet().stream().map(entry -> (entry.getKey() + "=" + entry.getValue())).collect(Collectors.joining(",")) ));
             });
 
             visitNode.given(ParallelBuilder.ParallelNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) parallel each [%s]", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) parallel each [%s]", indent, depth,
                         node.splitQueryNode.expression())
                 );
 
@@ -115,20 +112,21 @@ class PrintableExecutionPlan {
             });
 
             visitNode.given(AddContentBuilder.AddContentNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) addContent to %s named '%s'%n", indent, ancestors.size(), node.positionVariableExpression(), node.contentKey()));
+                builder.append(String.format("%s(%s) addContent to %s named '%s'%n", indent, depth, node.positionVariableExpression(), node.contentKey()));
             });
 
             visitNode.given(PublishBuilder.PublishNode.class, handled, node -> {
-                builder.append(String.format("%s(%s) publish position by %s%n", indent, ancestors.size(),
+                builder.append(String.format("%s(%s) publish position by %s%n", indent, depth,
                         node.positionVariableExpression)
                 );
             });
 
             // serialize unhandled nodes
             if (!handled.get()) {
-                builder.append(String.format("%s(%s) %s%n", indent, ancestors.size(), visitNode));
+                builder.append(String.format("%s(%s) %s%n", indent, depth, visitNode));
             }
 
+            return true;
         });
         return builder.toString();
     }
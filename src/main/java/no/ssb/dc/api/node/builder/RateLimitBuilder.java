@@ -0,0 +1,130 @@
+package no.ssb.dc.api.node.builder;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import no.ssb.dc.api.http.RateLimiter;
+import no.ssb.dc.api.node.Base;
+import no.ssb.dc.api.node.RateLimit;
+
+import java.util.Objects;
+
+@JsonDeserialize(using = NodeBuilderDeserializer.class)
+public class RateLimitBuilder extends ConfigurationBuilder {
+
+    @JsonProperty Double requestsPerSecond;
+    @JsonProperty Integer burst;
+    @JsonProperty Integer maxConcurrency;
+
+    public RateLimitBuilder() {
+        super(BuilderType.RateLimit);
+    }
+
+    public RateLimitBuilder requestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * Defaults to one second worth of requests
+     */
+    public RateLimitBuilder burst(int burst) {
+        this.burst = burst;
+        return this;
+    }
+
+    public RateLimitBuilder maxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    @Override
+    public <R extends Base> R build(BuildContext buildContext) {
+        double rps = requestsPerSecond != null ? requestsPerSecond : 0;
+        int burstSize = burst != null ? burst : (int) Math.max(1, Math.ceil(rps));
+        return (R) new RateLimitNode(rps, burstSize, maxConcurrency != null ? maxConcurrency : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        RateLimitBuilder that = (RateLimitBuilder) o;
+        return Objects.equals(requestsPerSecond, that.requestsPerSecond) &&
+                Objects.equals(burst, that.burst) &&
+                Objects.equals(maxConcurrency, that.maxConcurrency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), requestsPerSecond, burst, maxConcurrency);
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitBuilder{" +
+                "requestsPerSecond=" + requestsPerSecond +
+                ", burst=" + burst +
+                ", maxConcurrency=" + maxConcurrency +
+                '}';
+    }
+
+    public static class RateLimitNode extends LeafNode implements RateLimit {
+
+        final double requestsPerSecond;
+        final int burst;
+        final int maxConcurrency;
+        final RateLimiter rateLimiter;
+
+        public RateLimitNode(double requestsPerSecond, int burst, int maxConcurrency) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+            this.maxConcurrency = maxConcurrency;
+            this.rateLimiter = RateLimiter.of(requestsPerSecond, burst, maxConcurrency);
+        }
+
+        @Override
+        public double requestsPerSecond() {
+            return requestsPerSecond;
+        }
+
+        @Override
+        public int burst() {
+            return burst;
+        }
+
+        @Override
+        public int maxConcurrency() {
+            return maxConcurrency;
+        }
+
+        @Override
+        public RateLimiter rateLimiter() {
+            return rateLimiter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RateLimitNode that = (RateLimitNode) o;
+            return Double.compare(that.requestsPerSecond, requestsPerSecond) == 0 &&
+                    burst == that.burst &&
+                    maxConcurrency == that.maxConcurrency;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(requestsPerSecond, burst, maxConcurrency);
+        }
+
+        @Override
+        public String toString() {
+            return "RateLimitNode{" +
+                    "requestsPerSecond=" + requestsPerSecond +
+                    ", burst=" + burst +
+                    ", maxConcurrency=" + maxConcurrency +
+                    '}';
+        }
+    }
+}
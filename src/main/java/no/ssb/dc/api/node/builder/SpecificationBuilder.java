@@ -5,8 +5,10 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import no.ssb.dc.api.ConfigSetter;
 import no.ssb.dc.api.Specification;
 import no.ssb.dc.api.node.Configurations;
+import no.ssb.dc.api.node.ExecutionPlan;
 import no.ssb.dc.api.node.Node;
-import no.ssb.dc.api.util.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -14,12 +16,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @JsonDeserialize(using = NodeBuilderDeserializer.class)
 public class SpecificationBuilder extends AbstractBuilder {
 
     public static final String GLOBAL_CONFIGURATION = "GLOBAL_CONFIGURATION";
 
+    private static final Logger LOG = LoggerFactory.getLogger(SpecificationBuilder.class);
+
     @JsonProperty("id") final String specificationId;
     @JsonProperty final String name;
     @JsonProperty final String startFunctionId;
@@ -57,6 +62,10 @@ public class SpecificationBuilder extends AbstractBuilder {
 
     /*
      * see NodeBuilder.build()
+     *
+     * The node graph is compiled to an ExecutionPlan. Errors in the plan fail the build. Warnings are kept on the plan
+     * and logged at debug level, since a specification may be built many times. Callers that compile a specification
+     * once may log them at warn level.
      */
     public Specification end() {
         BuildContext buildContext = BuildContext.fromNodeBuilderById(nodeBuilderById);
@@ -77,7 +86,19 @@ public class SpecificationBuilder extends AbstractBuilder {
             buildContext.cacheInstance(nodeBuilderId, nodeInstance);
         }
 
-        return Specification.create(specificationId, name, configurations, buildContext.getInstance(startFunctionId), buildContext.nodeInstanceById());
+        Node startFunction = buildContext.getInstance(startFunctionId);
+        ExecutionPlan executionPlan = CompiledExecutionPlan.compile(startFunctionId, startFunction, configurations);
+        if (LOG.isDebugEnabled()) {
+            for (ExecutionPlan.Diagnostic warning : executionPlan.diagnostics(ExecutionPlan.Severity.WARNING)) {
+                LOG.debug("Specification {}: {}", specificationId, warning);
+            }
+        }
+        if (executionPlan.hasErrors()) {
+            throw new RuntimeException("Specification " + specificationId + " is not valid:\n" + executionPlan.diagnostics(ExecutionPlan.Severity.ERROR).stream()
+                    .map(ExecutionPlan.Diagnostic::toString).collect(Collectors.joining("\n")));
+        }
+
+        return Specification.create(specificationId, name, configurations, startFunction, buildContext.nodeInstanceById(), executionPlan);
     }
 
     public NodeBuilder get(String nodeId) {
@@ -85,11 +106,11 @@ public class SpecificationBuilder extends AbstractBuilder {
     }
 
     public String serialize() {
-        return JsonParser.createJsonParser().toPrettyJSON(this);
+        return SpecificationMapper.serializeAsJson(this);
     }
 
     public String serializeAsYaml() {
-        return JsonParser.createYamlParser().toPrettyJSON(this);
+        return SpecificationMapper.serializeAsYaml(this);
     }
 
     @Override
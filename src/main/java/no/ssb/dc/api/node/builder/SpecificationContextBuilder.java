@@ -7,6 +7,7 @@ import no.ssb.dc.api.context.ExecutionContext;
 import no.ssb.dc.api.http.Headers;
 import no.ssb.dc.api.node.Base;
 import no.ssb.dc.api.node.FlowContext;
+import no.ssb.dc.api.services.ExecutorFactory;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -19,6 +20,8 @@ public class SpecificationContextBuilder extends ConfigurationBuilder {
     Headers headers = new Headers();
     @JsonProperty Map<String, Object> variables = new LinkedHashMap<>();
     @JsonProperty Map<Object, Object> globalState = new LinkedHashMap<>();
+    @JsonProperty String executorMode;
+    @JsonProperty Integer executorParallelism;
 
     public SpecificationContextBuilder() {
         super(BuilderType.SpecificationContext);
@@ -53,6 +56,22 @@ public class SpecificationContextBuilder extends ConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Select the executor that runs parallel entries and async operations of the specification
+     */
+    @ConfigSetter
+    public SpecificationContextBuilder executor(ExecutorFactory.Mode mode) {
+        executorMode = mode.name();
+        return this;
+    }
+
+    @ConfigSetter
+    public SpecificationContextBuilder executor(ExecutorFactory.Mode mode, int parallelism) {
+        executorMode = mode.name();
+        executorParallelism = parallelism;
+        return this;
+    }
+
     public Object globalState(Object key) {
         return globalState.get(key);
     }
@@ -70,7 +89,8 @@ public class SpecificationContextBuilder extends ConfigurationBuilder {
         }
         context.variables().putAll(variables);
         globalState.forEach(context::globalState);
-        return (R) new FlowContextNode(context);
+        return (R) new FlowContextNode(context, executorMode != null ? ExecutorFactory.Mode.valueOf(executorMode) : null,
+                executorParallelism != null ? executorParallelism : 0);
     }
 
     @Override
@@ -81,12 +101,14 @@ public class SpecificationContextBuilder extends ConfigurationBuilder {
         SpecificationContextBuilder that = (SpecificationContextBuilder) o;
         return Objects.equals(headers, that.headers) &&
                 Objects.equals(variables, that.variables) &&
-                Objects.equals(globalState, that.globalState);
+                Objects.equals(globalState, that.globalState) &&
+                Objects.equals(executorMode, that.executorMode) &&
+                Objects.equals(executorParallelism, that.executorParallelism);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), headers, variables, globalState);
+        return Objects.hash(super.hashCode(), headers, variables, globalState, executorMode, executorParallelism);
     }
 
     @Override
@@ -95,15 +117,21 @@ public class SpecificationContextBuilder extends ConfigurationBuilder {
                 "headers=" + headers +
                 ", variables=" + variables +
                 ", globalState=" + globalState +
+                ", executorMode='" + executorMode + '\'' +
+                ", executorParallelism=" + executorParallelism +
                 '}';
     }
 
     static class FlowContextNode extends LeafNode implements FlowContext {
 
         private final ExecutionContext context;
+        private final ExecutorFactory.Mode executorMode;
+        private final int executorParallelism;
 
-        FlowContextNode(ExecutionContext context) {
+        FlowContextNode(ExecutionContext context, ExecutorFactory.Mode executorMode, int executorParallelism) {
             this.context = context;
+            this.executorMode = executorMode;
+            this.executorParallelism = executorParallelism;
         }
 
         public String topic() {
@@ -119,23 +147,37 @@ public class SpecificationContextBuilder extends ConfigurationBuilder {
             return context;
         }
 
+        @Override
+        public ExecutorFactory.Mode executorMode() {
+            return executorMode;
+        }
+
+        @Override
+        public int executorParallelism() {
+            return executorParallelism;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             FlowContextNode that = (FlowContextNode) o;
-            return Objects.equals(context, that.context);
+            return executorParallelism == that.executorParallelism &&
+                    Objects.equals(context, that.context) &&
+                    executorMode == that.executorMode;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(context);
+            return Objects.hash(context, executorMode, executorParallelism);
         }
 
         @Override
         public String toString() {
             return "FlowContextNode{" +
                     "context=" + context +
+                    ", executorMode=" + executorMode +
+                    ", executorParallelism=" + executorParallelism +
                     '}';
         }
     }
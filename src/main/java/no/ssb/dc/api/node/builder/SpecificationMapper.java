@@ -0,0 +1,112 @@
+package no.ssb.dc.api.node.builder;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import no.ssb.dc.api.util.JsonParser;
+import org.yaml.snakeyaml.LoaderOptions;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Readers and writers for specifications and node builders.
+ * <p>
+ * The mappers are private to this class and configured once, so the readers and writers handed out are immutable and
+ * safe to share between threads. The shared parsers returned by {@link JsonParser} are left untouched.
+ */
+public final class SpecificationMapper {
+
+    /*
+     * The SnakeYAML default of 3 MB rejects generated specifications with thousands of functions. The limit is only
+     * raised for specifications, and not for the shared yaml parser.
+     */
+    static final int YAML_CODE_POINT_LIMIT = 256 * 1024 * 1024;
+
+    private static final ObjectMapper YAML_MAPPER = configure(new ObjectMapper(yamlFactory()));
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private static final ObjectWriter YAML_WRITER = YAML_MAPPER.writerWithDefaultPrettyPrinter();
+    private static final ObjectWriter JSON_WRITER = JSON_MAPPER.writerWithDefaultPrettyPrinter();
+
+    private static final Map<Class<?>, ObjectReader> READER_BY_BUILDER_CLASS = new ConcurrentHashMap<>();
+    private static final ObjectReader SPECIFICATION_READER = reader(SpecificationBuilder.class);
+
+    static {
+        warmUp();
+    }
+
+    private SpecificationMapper() {
+    }
+
+    static YAMLFactory yamlFactory() {
+        LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setCodePointLimit(YAML_CODE_POINT_LIMIT);
+        return YAMLFactory.builder().loaderOptions(loaderOptions).build();
+    }
+
+    static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(AbstractBuilder.class, new NodeBuilderDeserializer());
+        mapper.registerModule(module);
+        return mapper;
+    }
+
+    /**
+     * The reader accepts both yaml and json sources.
+     */
+    public static ObjectReader reader(Class<? extends AbstractBuilder> builderClass) {
+        if (builderClass == SpecificationBuilder.class && SPECIFICATION_READER != null) {
+            return SPECIFICATION_READER;
+        }
+        return READER_BY_BUILDER_CLASS.computeIfAbsent(builderClass, YAML_MAPPER::readerFor);
+    }
+
+    public static ObjectWriter yamlWriter() {
+        return YAML_WRITER;
+    }
+
+    public static ObjectWriter jsonWriter() {
+        return JSON_WRITER;
+    }
+
+    public static <R extends AbstractBuilder> R deserialize(String source, Class<R> builderClass) {
+        try {
+            return reader(builderClass).readValue(source);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static String serializeAsJson(AbstractBuilder builder) {
+        return write(JSON_WRITER, builder);
+    }
+
+    public static String serializeAsYaml(AbstractBuilder builder) {
+        return write(YAML_WRITER, builder);
+    }
+
+    private static String write(ObjectWriter writer, AbstractBuilder builder) {
+        try {
+            return writer.writeValueAsString(builder);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     * Resolve and cache the builder serializers and deserializers up front, instead of on the first specification read
+     */
+    private static void warmUp() {
+        SpecificationBuilder specificationBuilder = new SpecificationBuilder("warm-up", "warm-up", "get")
+                .function(new GetBuilder("get").url("http://localhost"));
+        deserialize(serializeAsYaml(specificationBuilder), SpecificationBuilder.class);
+        deserialize(serializeAsJson(specificationBuilder), SpecificationBuilder.class);
+    }
+}
@@ -2,6 +2,7 @@ package no.ssb.dc.api.node.builder;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import no.ssb.dc.api.el.ELTemplate;
 import no.ssb.dc.api.node.Base;
 import no.ssb.dc.api.node.StringBodyPublisherProducer;
 
@@ -23,14 +24,21 @@ public class StringBodyPublisherProducerBuilder extends BodyPublisherProducerBui
     public class StringBodyPublisherProducerNode extends LeafNode implements StringBodyPublisherProducer {
 
         private final String text;
+        private final ELTemplate template;
 
         public StringBodyPublisherProducerNode(String text) {
             this.text = text;
+            this.template = ELTemplate.parse(text);
         }
 
         @Override
         public String text() {
             return text;
         }
+
+        @Override
+        public ELTemplate template() {
+            return template;
+        }
     }
 }
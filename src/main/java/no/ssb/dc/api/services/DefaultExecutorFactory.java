@@ -0,0 +1,102 @@
+package no.ssb.dc.api.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DefaultExecutorFactory implements ExecutorFactory {
+
+    static final DefaultExecutorFactory INSTANCE = new DefaultExecutorFactory();
+
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultExecutorFactory.class);
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() is resolved reflectively, so the api compiles and runs on Java 17
+     */
+    static final MethodHandle VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookupVirtualThreadPerTaskExecutor();
+
+    private static MethodHandle lookupVirtualThreadPerTaskExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Class.forName("java.util.concurrent.Executors"),
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public ExecutorService newExecutor(Mode mode, int parallelism, String name) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        switch (mode) {
+            case VIRTUAL:
+                if (VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+                    return newVirtualThreadPerTaskExecutor();
+                }
+                LOG.warn("Virtual threads are not supported by Java {}. Using a platform thread pool for: {}", Runtime.version(), name);
+                return newPlatformThreadPool(threads, name);
+
+            case PLATFORM:
+                return newPlatformThreadPool(threads, name);
+
+            case FORK_JOIN:
+                return newForkJoinPool(threads, name);
+
+            default:
+                throw new UnsupportedOperationException("Executor mode is not supported: " + mode);
+        }
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static ExecutorService newPlatformThreadPool(int threads, String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static ExecutorService newForkJoinPool(int threads, String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(name + "-" + threadNumber.incrementAndGet());
+            return thread;
+        };
+        return new ForkJoinPool(threads, threadFactory, null, true);
+    }
+
+    static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
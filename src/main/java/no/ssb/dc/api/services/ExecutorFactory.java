@@ -0,0 +1,56 @@
+package no.ssb.dc.api.services;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates the executors that run parallel entries and async http operations. A worker resolves the factory from
+ * {@link Services} and the mode from the specification context, see
+ * {@link no.ssb.dc.api.node.builder.SpecificationContextBuilder#executor(Mode, int)}.
+ */
+public interface ExecutorFactory {
+
+    enum Mode {
+        /**
+         * A new virtual thread per task. Blocking calls park the virtual thread instead of holding a platform thread.
+         * Requires Java 21, and falls back to {@link #PLATFORM} on older runtimes.
+         */
+        VIRTUAL,
+        /**
+         * A bounded pool of platform threads
+         */
+        PLATFORM,
+        /**
+         * A work-stealing pool in async mode, suited for non-blocking completion stages
+         */
+        FORK_JOIN
+    }
+
+    /**
+     * @param mode        execution model
+     * @param parallelism max threads for PLATFORM and FORK_JOIN, ignored by VIRTUAL. Zero or less means available processors.
+     * @param name        thread name prefix
+     */
+    ExecutorService newExecutor(Mode mode, int parallelism, String name);
+
+    default ExecutorService newExecutor(Mode mode, String name) {
+        return newExecutor(mode, 0, name);
+    }
+
+    static ExecutorFactory defaultFactory() {
+        return DefaultExecutorFactory.INSTANCE;
+    }
+
+    /**
+     * @return the factory registered in services, or the default factory
+     */
+    static ExecutorFactory of(Services services) {
+        if (services != null && services.contains(ExecutorFactory.class)) {
+            return services.get(ExecutorFactory.class);
+        }
+        return defaultFactory();
+    }
+
+    static boolean isVirtualThreadSupported() {
+        return DefaultExecutorFactory.VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+}
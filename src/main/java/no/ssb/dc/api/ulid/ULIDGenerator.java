@@ -1,56 +1,86 @@
 package no.ssb.dc.api.ulid;
 
 import de.huxhorn.sulky.ulid.ULID;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Generates globally monotonic ULIDs without locks.
+ * <p>
+ * Every value is claimed with a compare-and-set on the previously generated value, so concurrent callers never
+ * receive duplicate or out of order values. When the clock has not advanced, or has gone backwards, the previous value
+ * is incremented instead of waiting for time to catch up. If the random part of a millisecond is exhausted the value
+ * moves on to the next millisecond.
+ */
 public class ULIDGenerator {
 
-    private static final Logger LOG = LoggerFactory.getLogger(ULIDGenerator.class);
-    static final AtomicReference<ULID> ulid = new AtomicReference<>(new ULID());
-    static final AtomicReference<ULID.Value> prevUlid = new AtomicReference<>(ulid.get().nextValue());
+    static final long TIMESTAMP_MSB_MASK = 0xFFFFFFFFFFFF0000L;
+    static final long MAX_CLOCK_REGRESSION_MILLIS = 30 * 1000;
+
+    static final AtomicReference<ULID.Value> prevUlid = new AtomicReference<>(new ULID().nextValue());
 
     static ULID.Value nextMonotonicUlid() {
-        /*
-         * Will spin until time ticks if next value overflows.
-         * Although theoretically possible, it is extremely unlikely that the loop will ever spin
-         */
+        ULID.Value previousUlid;
         ULID.Value value;
-        ULID.Value previousUlid = prevUlid.get();
         do {
-            long timestamp = System.currentTimeMillis();
-            long diff = timestamp - previousUlid.timestamp();
-            if (diff < 0) {
-                if (diff < -(30 * 1000)) {
-                    throw new IllegalStateException(String.format("Previous timestamp is in the future. Diff %d ms", -diff));
-                }
-                LOG.debug("Previous timestamp is in the future, waiting for time to catch up. Diff {} ms", -diff);
-                try {
-                    Thread.sleep(-diff);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            } else if (diff > 0) {
-                // start at lsb 1, to avoid inclusive/exclusive semantics when searching
-                value = new ULID.Value((timestamp << 16) & 0xFFFFFFFFFFFF0000L, 1L);
-                prevUlid.set(value);
-                return value;
-            }
-            // diff == 0
-            value = ulid.get().nextStrictlyMonotonicValue(previousUlid, timestamp).orElse(null);
-            prevUlid.set(value);
-        } while (value == null);
-        prevUlid.set(value);
+            previousUlid = prevUlid.get();
+            value = next(previousUlid, System.currentTimeMillis());
+        } while (!prevUlid.compareAndSet(previousUlid, value));
         return value;
     }
 
+    static ULID.Value next(ULID.Value previousUlid, long timestamp) {
+        long diff = timestamp - previousUlid.timestamp();
+        if (diff > 0) {
+            // start at lsb 1, to avoid inclusive/exclusive semantics when searching
+            return new ULID.Value((timestamp << 16) & TIMESTAMP_MSB_MASK, 1L);
+        }
+        if (diff < -MAX_CLOCK_REGRESSION_MILLIS) {
+            throw new IllegalStateException(String.format("Previous timestamp is in the future. Diff %d ms", -diff));
+        }
+        return increment(previousUlid);
+    }
+
+    static ULID.Value increment(ULID.Value value) {
+        if (value.getLeastSignificantBits() == -1L && (value.getMostSignificantBits() & ~TIMESTAMP_MSB_MASK) == ~TIMESTAMP_MSB_MASK) {
+            return new ULID.Value(((value.timestamp() + 1) << 16) & TIMESTAMP_MSB_MASK, 1L);
+        }
+        return value.increment();
+    }
+
     public static ULID.Value generate() {
         return nextMonotonicUlid();
     }
 
+    /**
+     * Generate a batch of consecutive values with a single compare-and-set
+     */
+    public static List<ULID.Value> generate(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative: " + n);
+        }
+        if (n == 0) {
+            return Collections.emptyList();
+        }
+        List<ULID.Value> values = new ArrayList<>(n);
+        ULID.Value previousUlid;
+        do {
+            values.clear();
+            previousUlid = prevUlid.get();
+            ULID.Value value = next(previousUlid, System.currentTimeMillis());
+            values.add(value);
+            for (int i = 1; i < n; i++) {
+                value = increment(value);
+                values.add(value);
+            }
+        } while (!prevUlid.compareAndSet(previousUlid, values.get(n - 1)));
+        return values;
+    }
+
     public static UUID toUUID(ULID.Value ulid) {
         return new UUID(ulid.getMostSignificantBits(), ulid.getLeastSignificantBits());
     }
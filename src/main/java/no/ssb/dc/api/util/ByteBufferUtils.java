@@ -0,0 +1,15 @@
+package no.ssb.dc.api.util;
+
+import java.nio.ByteBuffer;
+
+public class ByteBufferUtils {
+
+    /**
+     * Returns a copy of the remaining bytes of the buffer without moving its position
+     */
+    public static byte[] toByteArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -8,16 +8,31 @@ import java.security.NoSuchAlgorithmException;
 public class CryptoUtils {
 
     public static ByteBuffer makeMD5Hash(ByteBuffer buf) {
+        return makeHash("MD5", buf);
+    }
+
+    public static ByteBuffer makeSHA256Hash(ByteBuffer buf) {
+        return makeHash("SHA-256", buf);
+    }
+
+    /**
+     * @return the lowercase hex SHA-256 digest of the UTF-8 encoded text
+     */
+    public static String sha256Hex(String text) {
+        return StandardCharsets.UTF_8.decode(makeSHA256Hash(StandardCharsets.UTF_8.encode(text))).toString();
+    }
+
+    private static ByteBuffer makeHash(String algorithm, ByteBuffer buf) {
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
+            MessageDigest md = MessageDigest.getInstance(algorithm);
             md.update(buf);
             byte[] digest = md.digest();
-            ByteBuffer md5buf = ByteBuffer.allocate(2 * digest.length);
+            ByteBuffer hashBuf = ByteBuffer.allocate(2 * digest.length);
             for (byte bb : digest) {
-                md5buf.put(String.format("%02x", bb).getBytes(StandardCharsets.UTF_8));
+                hashBuf.put(String.format("%02x", bb).getBytes(StandardCharsets.UTF_8));
             }
-            md5buf.flip();
-            return md5buf;
+            hashBuf.flip();
+            return hashBuf;
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
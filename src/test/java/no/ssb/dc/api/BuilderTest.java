@@ -1,14 +1,18 @@
 package no.ssb.dc.api;
 
 import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.http.Client;
 import no.ssb.dc.api.node.FlowContext;
 import no.ssb.dc.api.node.builder.GetBuilder;
 import no.ssb.dc.api.node.builder.NodeBuilder;
 import no.ssb.dc.api.node.builder.PaginateBuilder;
 import no.ssb.dc.api.node.builder.SpecificationBuilder;
+import no.ssb.dc.api.services.ExecutorFactory;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static no.ssb.dc.api.Builders.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -20,11 +24,23 @@ public class BuilderTest {
                     .variable("foo", "bar")
                     .header("accept", "application/xml")
                     .globalState("key", "value")
+                    .executor(ExecutorFactory.Mode.VIRTUAL)
             )
             .configure(security()
                     .sslBundleName("ske-test-certs")
                     .identity(jwt("test-identity", headerClaims().alg("alg").x509CertChain("ske-test-certs"), claims().claim("foo", "bar")))
             )
+            .configure(rateLimit()
+                    .requestsPerSecond(10)
+                    .burst(20)
+                    .maxConcurrency(4)
+            )
+            .configure(connectionPool()
+                    .version(Client.Version.HTTP_2)
+                    .maxConnectionsPerHost(2)
+                    .keepAlive(Duration.ofSeconds(30))
+                    .maxConcurrentStreams(100)
+            )
             .function(get("getstartposition")
                     .url("http://com.company/getstartposition")
                     .pipe(process(A.class).output("next-position"))
@@ -74,6 +90,13 @@ public class BuilderTest {
             )
             .function(get("page")
                     .url("http://com.company/endpoint?seq=${from-position}&pageSize=10")
+                    .retryWhile(statusCode()
+                            .anyOf(429, 503)
+                            .backoff(Duration.ofMillis(500), Duration.ofSeconds(30), 2.0)
+                            .jitter(0.5)
+                            .maxElapsed(Duration.ofMinutes(5))
+                            .tokenBucket(10, 5.0)
+                    )
                     // build expected position list
                     .validate(status().success(200))
                     .pipe(sequence(xpath("/feed/entry"))
@@ -83,6 +106,9 @@ public class BuilderTest {
                     .pipe(nextPage().output("next-position", regex(xpath("/feed/link[@rel=\"next\"]/@href"), "(?<=[?&]position=)[^&]*")))
                     // parallel should take the sequence as input
                     .pipe(parallel(xpath("/feed/entry"))
+                            .maxConcurrency(32)
+                            .unordered()
+                            .collectErrors()
                             .variable("position", xpath("/entry/content/ns2:lagretHendelse/ns2:sekvensnummer"))
                             .pipe(console())
                             .pipe(execute("person-doc")
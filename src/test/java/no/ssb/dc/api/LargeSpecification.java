@@ -0,0 +1,67 @@
+package no.ssb.dc.api;
+
+import no.ssb.dc.api.node.builder.SpecificationBuilder;
+
+import static no.ssb.dc.api.Builders.addContent;
+import static no.ssb.dc.api.Builders.context;
+import static no.ssb.dc.api.Builders.execute;
+import static no.ssb.dc.api.Builders.get;
+import static no.ssb.dc.api.Builders.nextPage;
+import static no.ssb.dc.api.Builders.paginate;
+import static no.ssb.dc.api.Builders.parallel;
+import static no.ssb.dc.api.Builders.publish;
+import static no.ssb.dc.api.Builders.regex;
+import static no.ssb.dc.api.Builders.sequence;
+import static no.ssb.dc.api.Builders.status;
+import static no.ssb.dc.api.Builders.whenVariableIsNull;
+import static no.ssb.dc.api.Builders.xpath;
+
+/**
+ * Generates specifications with a configurable number of page and document functions for benchmarks
+ */
+public class LargeSpecification {
+
+    public static SpecificationBuilder create(int pageFunctionCount) {
+        SpecificationBuilder builder = Specification.start("LARGE", "Large specification", "page-loop")
+                .configure(context()
+                        .topic("topic")
+                        .header("accept", "application/xml")
+                        .variable("fromPosition", "1")
+                        .variable("pageSize", "100")
+                )
+                .function(paginate("page-loop")
+                        .variable("fromPosition", "${nextPosition}")
+                        .addPageContent("fromPosition")
+                        .iterate(execute("page-0"))
+                        .prefetchThreshold(150)
+                        .until(whenVariableIsNull("nextPosition"))
+                );
+        for (int i = 0; i < pageFunctionCount; i++) {
+            builder.function(get("page-" + i)
+                    .url("https://example.com/api/" + i + "/events?position=${fromPosition}&pageSize=${pageSize}")
+                    .header("Accept", "application/xml")
+                    .validate(status().success(200, 299))
+                    .pipe(sequence(xpath("/feed/entry"))
+                            .expected(xpath("/entry/id"))
+                    )
+                    .pipe(nextPage()
+                            .output("nextPosition", regex(xpath("/feed/link[@rel=\"next\"]/@href"), "(?<=[?&]position=)[^&]*"))
+                    )
+                    .pipe(parallel(xpath("/feed/entry"))
+                            .variable("position", xpath("/entry/id"))
+                            .pipe(addContent("${position}", "entry"))
+                            .pipe(execute("document-" + i)
+                                    .inputVariable("documentId", xpath("/entry/document-id"))
+                            )
+                            .pipe(publish("${position}"))
+                    )
+            );
+            builder.function(get("document-" + i)
+                    .url("https://example.com/api/" + i + "/documents/${documentId}")
+                    .validate(status().success(200))
+                    .pipe(addContent("${position}", "document"))
+            );
+        }
+        return builder;
+    }
+}
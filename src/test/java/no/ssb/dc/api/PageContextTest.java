@@ -0,0 +1,179 @@
+package no.ssb.dc.api;
+
+import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.node.Parallel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PageContextTest {
+
+    static ExecutionContext context(int i) {
+        return ExecutionContext.empty().variable("i", i);
+    }
+
+    @Test
+    public void thatMaxConcurrencyBoundsEntriesInFlight() {
+        PageContext pageContext = new PageContext.Builder().maxConcurrency(2).build();
+        List<CompletableFuture<ExecutionContext>> tasks = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<ExecutionContext> task = new CompletableFuture<>();
+            tasks.add(task);
+            pageContext.submit(() -> {
+                started.incrementAndGet();
+                return task;
+            });
+        }
+        assertEquals(2, started.get());
+
+        tasks.get(1).complete(context(1));
+        assertEquals(3, started.get());
+
+        for (CompletableFuture<ExecutionContext> task : tasks) {
+            task.complete(context(0));
+        }
+        assertEquals(5, started.get());
+        assertTrue(pageContext.allOf().isDone());
+    }
+
+    @Test
+    public void thatUnorderedEntriesArePublishedInCompletionOrder() {
+        PageContext ordered = new PageContext.Builder().build();
+        PageContext unordered = new PageContext.Builder().ordered(false).build();
+        for (PageContext pageContext : List.of(ordered, unordered)) {
+            CompletableFuture<ExecutionContext> first = new CompletableFuture<>();
+            CompletableFuture<ExecutionContext> second = new CompletableFuture<>();
+            pageContext.submit(() -> first);
+            pageContext.submit(() -> second);
+            second.complete(context(2));
+            first.complete(context(1));
+        }
+        assertEquals(List.of(1, 2), variables(ordered));
+        assertEquals(List.of(2, 1), variables(unordered));
+    }
+
+    @Test
+    public void thatAddedFuturesArePublishedAndNotCancelledByRecordedFailure() {
+        PageContext pageContext = new PageContext.Builder().ordered(false).build();
+        CompletableFuture<ExecutionContext> first = new CompletableFuture<>();
+        CompletableFuture<ExecutionContext> second = new CompletableFuture<>();
+        pageContext.addFuture(first);
+        pageContext.addFuture(second);
+
+        pageContext.failure(new RuntimeException("recorded"));
+        assertFalse(pageContext.isCancelled());
+        assertTrue(pageContext.isFailure());
+
+        second.complete(context(2));
+        first.complete(context(1));
+        assertTrue(pageContext.allOf().isDone());
+        assertEquals(List.of(2, 1), variables(pageContext));
+    }
+
+    @Test
+    public void thatUnorderedEntriesArePublishedFromAllOfStage() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int n = 0; n < 50; n++) {
+                PageContext pageContext = new PageContext.Builder().ordered(false).build();
+                List<CompletableFuture<ExecutionContext>> tasks = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    CompletableFuture<ExecutionContext> task = new CompletableFuture<>();
+                    tasks.add(task);
+                    if (i % 2 == 0) {
+                        pageContext.submit(() -> task);
+                    } else {
+                        pageContext.addFuture(task);
+                    }
+                }
+                CompletableFuture<List<Object>> published = pageContext.allOf().thenApply(v -> variables(pageContext));
+                for (int i = 0; i < tasks.size(); i++) {
+                    CompletableFuture<ExecutionContext> task = tasks.get(i);
+                    int value = i;
+                    executor.execute(() -> task.complete(context(value)));
+                }
+                assertEquals(8, published.get(5, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static List<Object> variables(PageContext pageContext) {
+        return pageContext.publishOrderedPageEntries().stream().map(entry -> entry.future().join().variable("i")).collect(Collectors.toList());
+    }
+
+    @Test
+    public void thatFailFastCancelsInFlightAndQueuedSiblings() {
+        PageContext pageContext = new PageContext.Builder().maxConcurrency(2).build();
+        CompletableFuture<ExecutionContext> failing = new CompletableFuture<>();
+        CompletableFuture<ExecutionContext> inFlight = new CompletableFuture<>();
+        pageContext.submit(() -> failing);
+        pageContext.submit(() -> inFlight);
+        CompletableFuture<ExecutionContext> queued = pageContext.submit(CompletableFuture::new);
+
+        RuntimeException cause = new RuntimeException("failed");
+        failing.completeExceptionally(cause);
+
+        assertTrue(pageContext.isCancelled());
+        assertTrue(inFlight.isCancelled());
+        assertTrue(queued.isCancelled());
+        assertSame(cause, pageContext.getFailureCause());
+        assertEquals(1, pageContext.failures().size());
+        assertTrue(pageContext.submit(CompletableFuture::new).isCancelled());
+    }
+
+    @Test
+    public void thatCollectErrorsRunsEveryEntry() {
+        PageContext pageContext = new PageContext.Builder().failureMode(Parallel.FailureMode.COLLECT_ERRORS).build();
+        pageContext.submit(() -> CompletableFuture.failedFuture(new RuntimeException("first")));
+        pageContext.submit(() -> CompletableFuture.failedFuture(new RuntimeException("second")));
+        CompletableFuture<ExecutionContext> healthy = pageContext.submit(() -> CompletableFuture.completedFuture(context(3)));
+
+        assertFalse(pageContext.isCancelled());
+        assertEquals(3, healthy.join().variable("i"));
+        assertEquals(2, pageContext.failures().size());
+        assertEquals("first", pageContext.getFailureCause().getMessage());
+    }
+
+    @Test
+    public void thatTerminationCancelsPage() throws Exception {
+        Termination termination = Termination.create();
+        PageContext pageContext = new PageContext.Builder().build().cancelOn(termination);
+        CompletableFuture<ExecutionContext> inFlight = new CompletableFuture<>();
+        CompletableFuture<ExecutionContext> entry = pageContext.submit(() -> inFlight);
+
+        termination.terminate();
+
+        assertTrue(inFlight.isCancelled());
+        assertTrue(entry.isCancelled());
+        pageContext.allOf().get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void thatLongSynchronousQueueDoesNotOverflowStack() {
+        PageContext pageContext = new PageContext.Builder().maxConcurrency(1).build();
+        CompletableFuture<ExecutionContext> blocker = new CompletableFuture<>();
+        pageContext.submit(() -> blocker);
+        for (int i = 0; i < 100_000; i++) {
+            int n = i;
+            pageContext.submit(() -> CompletableFuture.completedFuture(context(n)));
+        }
+        blocker.complete(context(-1));
+        assertTrue(pageContext.allOf().isDone());
+        assertEquals(100_001, pageContext.parallelPageEntries().size());
+    }
+}
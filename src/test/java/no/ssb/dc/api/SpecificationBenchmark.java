@@ -0,0 +1,72 @@
+package no.ssb.dc.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.ssb.dc.api.node.builder.SpecificationBuilder;
+import no.ssb.dc.api.util.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deserialization of generated YAML specifications. Every page function comes with a document function, so
+ * 5000 page functions is a specification of 10k functions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpecificationBenchmark {
+
+    @Param({"10", "500", "5000"})
+    int pageFunctionCount;
+
+    String yaml;
+    String json;
+    ObjectMapper jsonMapper;
+
+    @Setup
+    public void setup() {
+        SpecificationBuilder specification = LargeSpecification.create(pageFunctionCount);
+        yaml = specification.serializeAsYaml();
+        json = specification.serialize();
+        jsonMapper = JsonParser.createJsonParser().mapper();
+    }
+
+    @Benchmark
+    public SpecificationBuilder deserialize() {
+        return Specification.deserialize(yaml);
+    }
+
+    /**
+     * Without YAML scanning, which dominates the yaml benchmark
+     */
+    @Benchmark
+    public SpecificationBuilder deserializeJson() throws IOException {
+        return jsonMapper.readValue(json, SpecificationBuilder.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SpecificationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
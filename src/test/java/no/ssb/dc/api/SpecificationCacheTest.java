@@ -0,0 +1,105 @@
+package no.ssb.dc.api;
+
+import no.ssb.dc.api.context.ExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpecificationCacheTest {
+
+    @Test
+    public void thatSameSourceIsBuiltOnce() throws Exception {
+        String source = LargeSpecification.create(2).serializeAsYaml();
+        SpecificationCache cache = new SpecificationCache(4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Specification>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> cache.get(source), executor));
+            }
+            Specification specification = futures.get(0).get();
+            for (CompletableFuture<Specification> future : futures) {
+                assertSame(specification, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.missCount());
+        assertEquals(31, cache.hitCount());
+    }
+
+    @Test
+    public void thatRunsOfCachedSpecificationDoNotShareGlobalState() {
+        String source = LargeSpecification.create(1).serializeAsYaml();
+        SpecificationCache cache = new SpecificationCache(4);
+
+        ExecutionContext firstRun = ExecutionContext.of(cache.get(source).configurations.flowContext().newRunContext());
+        firstRun.globalState("run", "first");
+        firstRun.variable("fromPosition", "100");
+
+        ExecutionContext secondRun = ExecutionContext.of(cache.get(source).configurations.flowContext().newRunContext());
+        assertNull(secondRun.state("run"));
+        assertEquals("1", secondRun.variable("fromPosition"));
+        secondRun.globalState("run", "second");
+
+        assertEquals("first", firstRun.state("run"));
+        assertNull(cache.get(source).configurations.flowContext().globalContext().state("run"));
+        assertSame(cache.get(source).configurations.flowContext().globalContext(), cache.get(source).configurations.flowContext().globalContext());
+        assertEquals("topic", cache.get(source).configurations.flowContext().topic());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void thatLeastRecentlyUsedIsEvicted() {
+        String first = LargeSpecification.create(1).serializeAsYaml();
+        String second = LargeSpecification.create(2).serializeAsYaml();
+        String third = LargeSpecification.create(3).serializeAsYaml();
+        SpecificationCache cache = new SpecificationCache(2);
+
+        Specification firstSpecification = cache.get(first);
+        cache.get(second);
+        assertSame(firstSpecification, cache.get(first));
+        cache.get(third);
+
+        assertEquals(2, cache.size());
+        assertSame(firstSpecification, cache.get(first));
+        assertEquals(3, cache.missCount());
+        cache.get(second);
+        assertEquals(4, cache.missCount());
+    }
+
+    @Test
+    public void thatStoredSpecificationIsReadAfterRestart(@TempDir Path directory) throws Exception {
+        String source = LargeSpecification.create(3).serializeAsYaml();
+        Specification specification = new SpecificationCache(4, directory).get(source);
+
+        Path file = directory.resolve(SpecificationCache.key(source) + ".v" + SpecificationCache.FORMAT_VERSION + ".smile");
+        assertTrue(Files.exists(file));
+
+        SpecificationCache restarted = new SpecificationCache(4, directory);
+        Specification restored = restarted.get(source);
+        assertNotSame(specification, restored);
+        assertEquals(1, restarted.diskHitCount());
+        assertEquals(specification.id(), restored.id());
+        assertEquals(specification.startFunction(), restored.startFunction());
+
+        Files.write(file, new byte[]{1, 2, 3});
+        SpecificationCache corrupted = new SpecificationCache(4, directory);
+        assertEquals(specification.startFunction(), corrupted.get(source).startFunction());
+        assertEquals(0, corrupted.diskHitCount());
+    }
+}
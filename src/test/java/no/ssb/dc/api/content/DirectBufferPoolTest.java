@@ -0,0 +1,141 @@
+package no.ssb.dc.api.content;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DirectBufferPoolTest {
+
+    @Test
+    public void thatPayloadsAreHeldInChunksAndSpilledWhenPoolIsExhausted(@TempDir Path spillDirectory) throws Exception {
+        try (DirectBufferPool pool = new DirectBufferPool(16, 64, 64, spillDirectory)) {
+            byte[] small = "small".getBytes(StandardCharsets.UTF_8);
+            byte[] large = new byte[40];
+            Arrays.fill(large, (byte) 'x');
+
+            PooledPayload smallPayload = pool.allocate(small);
+            PooledPayload largePayload = pool.allocate(ByteBuffer.wrap(large));
+            assertFalse(smallPayload.isSpilled());
+            assertFalse(largePayload.isSpilled());
+            assertEquals(64, pool.directBytesInUse());
+
+            PooledPayload spilledPayload = pool.allocate(large);
+            assertTrue(spilledPayload.isSpilled());
+            assertEquals(40, pool.spilledBytes());
+
+            assertArrayEquals(small, smallPayload.toByteArray());
+            assertEquals(ByteBuffer.wrap(large), largePayload.asReadOnlyByteBuffer());
+            assertArrayEquals(large, spilledPayload.toByteArray());
+            ByteBuffer[] views = largePayload.asReadOnlyByteBuffers();
+            assertEquals(1, views.length);
+            assertTrue(views[0].isDirect());
+            assertEquals(40, views[0].remaining());
+            assertEquals(ByteBuffer.wrap(large), spilledPayload.asReadOnlyByteBuffer());
+
+            largePayload.release();
+            largePayload.release();
+            assertEquals(16, pool.directBytesInUse());
+            assertFalse(pool.allocate(large).isSpilled());
+        }
+    }
+
+    @Test
+    public void thatPayloadsSpanningChunksAreViewedWithoutCopying(@TempDir Path spillDirectory) throws Exception {
+        try (DirectBufferPool pool = new DirectBufferPool(16, 64, 256, spillDirectory)) {
+            PooledPayload first = pool.allocate(new byte[16]);
+            PooledPayload second = pool.allocate(new byte[16]);
+            first.release();
+            // the free chunk before second is too short for a run of three chunks
+            byte[] spanning = new byte[40];
+            Arrays.fill(spanning, (byte) 's');
+            PooledPayload spanningPayload = pool.allocate(spanning);
+            assertEquals(128, pool.allocatedDirectBytes());
+
+            byte[] dedicated = new byte[100];
+            Arrays.fill(dedicated, (byte) 'd');
+            PooledPayload dedicatedPayload = pool.allocate(dedicated);
+            assertFalse(dedicatedPayload.isSpilled());
+            assertEquals(240, pool.allocatedDirectBytes());
+
+            PooledContentStreamBuffer buffer = new PooledContentStreamBuffer.Builder(pool)
+                    .position("1")
+                    .put("page", ByteBuffer.wrap(spanning))
+                    .build();
+            for (ByteBuffer view : new ByteBuffer[]{spanningPayload.asReadOnlyByteBuffer(), dedicatedPayload.asReadOnlyByteBuffer(), buffer.getByteBuffer("page")}) {
+                assertTrue(view.isDirect());
+                assertTrue(view.isReadOnly());
+            }
+            assertEquals(ByteBuffer.wrap(spanning), buffer.getByteBuffer("page"));
+            assertEquals(ByteBuffer.wrap(dedicated), dedicatedPayload.asReadOnlyByteBuffer());
+
+            dedicatedPayload.release();
+            assertEquals(128, pool.allocatedDirectBytes());
+            second.release();
+            spanningPayload.release();
+            buffer.release();
+            assertEquals(0, pool.directBytesInUse());
+        }
+    }
+
+    @Test
+    public void thatSpilledSpaceIsReusedAndSpillFileIsDeletedWhenReleased(@TempDir Path spillDirectory) throws Exception {
+        try (DirectBufferPool pool = new DirectBufferPool(16, 16, 0, spillDirectory)) {
+            byte[] content = new byte[40];
+            Arrays.fill(content, (byte) 'x');
+            PooledPayload first = pool.allocate(content);
+            PooledPayload second = pool.allocate(content);
+            assertTrue(first.isSpilled());
+            assertEquals(80, pool.spillFileBytes());
+
+            first.release();
+            assertEquals(40, pool.spilledBytes());
+            PooledPayload third = pool.allocate(new byte[30]);
+            PooledPayload fourth = pool.allocate(new byte[10]);
+            assertEquals(80, pool.spillFileBytes());
+            assertEquals(ByteBuffer.wrap(content), second.asReadOnlyByteBuffer());
+
+            second.release();
+            third.release();
+            assertEquals(10, pool.spilledBytes());
+            fourth.release();
+            assertEquals(0, pool.spilledBytes());
+            assertEquals(0, pool.spillFileBytes());
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertEquals(0, files.count());
+            }
+
+            PooledPayload fifth = pool.allocate(content);
+            assertArrayEquals(content, fifth.toByteArray());
+            assertEquals(40, pool.spillFileBytes());
+        }
+    }
+
+    @Test
+    public void thatBuilderBuffersContentInPool() {
+        try (DirectBufferPool pool = new DirectBufferPool()) {
+            PooledContentStreamBuffer buffer = new PooledContentStreamBuffer.Builder(pool)
+                    .position("1")
+                    .buffer("entry", ByteBuffer.wrap("content".getBytes(StandardCharsets.UTF_8)), null)
+                    .build();
+            assertEquals("1", buffer.position());
+            assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), buffer.get("entry"));
+            ByteBuffer view = buffer.getByteBuffer("entry");
+            assertTrue(view.isDirect());
+            assertTrue(view.isReadOnly());
+            assertEquals(ByteBuffer.wrap("content".getBytes(StandardCharsets.UTF_8)), view);
+            buffer.release();
+            assertEquals(0, pool.directBytesInUse());
+        }
+    }
+}
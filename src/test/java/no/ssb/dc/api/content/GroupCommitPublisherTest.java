@@ -0,0 +1,60 @@
+package no.ssb.dc.api.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GroupCommitPublisherTest {
+
+    @Test
+    public void thatPositionsAreCoalescedInPublishOrder() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        HealthContentStreamMonitor monitor = new HealthContentStreamMonitor(() -> false, () -> 0, () -> 0);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        try (GroupCommitPublisher<String> publisher = new GroupCommitPublisher<>("test", batches::add, 10, Duration.ofMillis(50), monitor)) {
+            for (int i = 0; i < 25; i++) {
+                futures.add(publisher.publishAsync(String.valueOf(i)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+
+        List<String> published = new ArrayList<>();
+        batches.forEach(published::addAll);
+        for (int i = 0; i < 25; i++) {
+            assertEquals(String.valueOf(i), published.get(i));
+            assertEquals(String.valueOf(i), futures.get(i).get());
+        }
+        assertTrue(batches.size() < 25);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(batches.size(), monitor.build().publishBatchCount);
+    }
+
+    @Test
+    public void thatFailedWriteFailsEveryPositionInBatch() throws Exception {
+        try (GroupCommitPublisher<String> publisher = new GroupCommitPublisher<>("test", batch -> {
+            throw new IllegalStateException("backend unavailable");
+        }, null)) {
+            CompletableFuture<Void> future = publisher.publishAsync("1", "2", "3");
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void thatPublishAfterCloseFails() throws Exception {
+        GroupCommitPublisher<String> publisher = new GroupCommitPublisher<>("test", batch -> {
+        }, null);
+        publisher.close();
+        assertTrue(publisher.publishAsync("1").isCompletedExceptionally());
+    }
+}
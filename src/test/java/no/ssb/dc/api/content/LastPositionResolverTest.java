@@ -0,0 +1,92 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.dc.api.services.Services;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class LastPositionResolverTest {
+
+    @Test
+    public void thatLastPositionIsMemoizedUntilPublish() {
+        HealthContentStreamMonitor monitor = new HealthContentStreamMonitor(() -> false, () -> 0, () -> 0);
+        AtomicInteger lookupCount = new AtomicInteger();
+        ContentStore contentStore = (ContentStore) Proxy.newProxyInstance(ContentStore.class.getClassLoader(), new Class[]{ContentStore.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "lastPosition":
+                    lookupCount.incrementAndGet();
+                    return "topic-pages".equals(args[0]) ? null : String.valueOf(lookupCount.get());
+                case "monitor":
+                    return monitor;
+                case "onPublish":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        Services services = Services.create();
+        LastPositionResolver resolver = LastPositionResolver.of(services, contentStore);
+        assertSame(resolver, LastPositionResolver.of(services, contentStore));
+
+        AtomicInteger resolvedCount = new AtomicInteger();
+        assertEquals("1", resolver.lastPosition("topic", position -> resolvedCount.incrementAndGet()));
+        assertEquals("1", resolver.lastPosition("topic", position -> resolvedCount.incrementAndGet()));
+        assertNull(resolver.lastPosition("topic-pages", position -> resolvedCount.incrementAndGet()));
+        assertNull(resolver.lastPosition("topic-pages", position -> resolvedCount.incrementAndGet()));
+        assertEquals(2, lookupCount.get());
+        assertEquals(2, resolvedCount.get());
+
+        monitor.updateLastPublishedPositionWriteDuration(1);
+        assertEquals("3", resolver.lastPosition("topic", position -> resolvedCount.incrementAndGet()));
+        assertEquals(3, lookupCount.get());
+    }
+
+    @Test
+    public void thatPublishThroughCheckpointedStoreInvalidatesPositionWithoutMonitor(@TempDir Path directory) {
+        AtomicInteger lookupCount = new AtomicInteger();
+        ContentStore delegate = (ContentStore) Proxy.newProxyInstance(ContentStore.class.getClassLoader(), new Class[]{ContentStore.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "lastPosition":
+                    return String.valueOf(lookupCount.incrementAndGet());
+                case "publish":
+                case "monitor":
+                case "onPublish":
+                    return null;
+                case "publishAsync":
+                    return CompletableFuture.completedFuture(null);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        LastPositionResolver unmemoized = new LastPositionResolver(delegate);
+        assertEquals("1", unmemoized.lastPosition("topic", position -> {
+        }));
+        assertEquals("2", unmemoized.lastPosition("topic", position -> {
+        }));
+
+        CheckpointedContentStore contentStore = new CheckpointedContentStore(delegate, new PositionCheckpointIndex(directory));
+        LastPositionResolver resolver = new LastPositionResolver(contentStore);
+        assertEquals("3", resolver.lastPosition("topic", position -> {
+        }));
+        assertEquals("3", resolver.lastPosition("topic", position -> {
+        }));
+
+        contentStore.publish("topic", "10");
+        assertEquals("10", resolver.lastPosition("topic", position -> {
+        }));
+        contentStore.publishAsync("topic", "11").join();
+        assertEquals("11", resolver.lastPosition("topic", position -> {
+        }));
+        assertEquals(3, lookupCount.get());
+    }
+}
@@ -0,0 +1,63 @@
+package no.ssb.dc.api.content;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding a manifest of 100 entries with each manifest codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ManifestCodecBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    String codecName;
+
+    ManifestCodec codec;
+    List<MetadataContent> manifest;
+    byte[] encoded;
+
+    @Setup
+    public void setup() {
+        codec = ManifestCodec.of(codecName);
+        manifest = ManifestCodecTest.manifest(100);
+        encoded = codec.encode(manifest);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(manifest);
+    }
+
+    @Benchmark
+    public List<MetadataContent> decode() {
+        return codec.decode(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ManifestCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,66 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.dc.api.ConfigurationMap;
+import no.ssb.dc.api.http.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ManifestCodecTest {
+
+    static List<MetadataContent> manifest(int size) {
+        Headers responseHeaders = new Headers();
+        responseHeaders.put("Content-Type", "application/xml; charset=utf-8");
+        responseHeaders.put("Cache-Control", "no-cache");
+        List<MetadataContent> manifest = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            manifest.add(new MetadataContent.Builder()
+                    .resourceType(MetadataContent.ResourceType.ENTRY)
+                    .topic("topic")
+                    .position(String.valueOf(i))
+                    .contentKey("entry")
+                    .contentType("application/xml")
+                    .contentLength(1000 + i)
+                    .requestDurationNanoTime(1_000_000L * i)
+                    .url("https://example.com/api/events?position=" + i)
+                    .statusCode(200)
+                    .requestHeaders(new Headers())
+                    .responseHeaders(responseHeaders)
+                    .state(Map.of("fromPosition", String.valueOf(i), "page", i))
+                    .build());
+        }
+        return manifest;
+    }
+
+    @Test
+    public void thatManifestRoundTripsThroughEveryCodec() {
+        List<MetadataContent> manifest = manifest(10);
+        for (ManifestCodec codec : List.of(ManifestCodec.json(), ManifestCodec.smile(), ManifestCodec.cbor())) {
+            List<MetadataContent> decoded = codec.decode(codec.encode(manifest));
+            assertEquals(manifest.size(), decoded.size(), codec.name());
+            for (int i = 0; i < manifest.size(); i++) {
+                assertEquals(manifest.get(i).toJSON(), decoded.get(i).toJSON(), codec.name());
+            }
+        }
+    }
+
+    @Test
+    public void thatSmileIsSmallerThanJson() {
+        List<MetadataContent> manifest = manifest(100);
+        int jsonSize = ManifestCodec.json().encode(manifest).length;
+        int smileSize = ManifestCodec.smile().encode(manifest).length;
+        assertTrue(smileSize < jsonSize / 2, "smile: " + smileSize + ", json: " + jsonSize);
+    }
+
+    @Test
+    public void thatCodecIsSelectedByConfiguration() {
+        assertSame(ManifestCodec.json(), ManifestCodec.of((ConfigurationMap) null));
+        assertSame(ManifestCodec.cbor(), ManifestCodec.of(new ConfigurationMap(Map.of(ManifestCodec.MANIFEST_CODEC_KEY, "CBOR"))));
+    }
+}
@@ -0,0 +1,105 @@
+package no.ssb.dc.api.content;
+
+import no.ssb.dc.api.CorrelationIds;
+import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.http.Headers;
+import no.ssb.dc.api.util.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a manifest entry and serializing it to JSON, as done for every buffered document, streamed and
+ * through the ObjectNode tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetadataContentBenchmark {
+
+    CorrelationIds correlationIds;
+    Headers requestHeaders;
+    Headers responseHeaders;
+    Map<String, Object> state;
+
+    @Setup
+    public void setup() {
+        correlationIds = CorrelationIds.create(ExecutionContext.empty());
+        requestHeaders = new Headers();
+        requestHeaders.put("Accept", "application/xml");
+        requestHeaders.put("User-Agent", "data-collector");
+        responseHeaders = new Headers();
+        responseHeaders.put("Content-Type", "application/xml; charset=utf-8");
+        responseHeaders.put("Content-Length", "52341");
+        responseHeaders.put("Date", "Mon, 05 Oct 2020 00:00:00 GMT");
+        state = new LinkedHashMap<>();
+        state.put("stateString", "value");
+        state.put("stateInt", 10);
+    }
+
+    MetadataContent.Builder builder() {
+        return new MetadataContent.Builder()
+                .resourceType(MetadataContent.ResourceType.ENTRY)
+                .correlationId(correlationIds)
+                .url("https://example.com/api/events?position=1000&pageSize=100")
+                .topic("topic")
+                .position("1000")
+                .contentKey("entry")
+                .contentType("application/xml")
+                .contentLength(52341)
+                .requestDurationNanoTime(1_000_000L)
+                .statusCode(200)
+                .requestHeaders(requestHeaders)
+                .responseHeaders(responseHeaders)
+                .state(state);
+    }
+
+    @Benchmark
+    public MetadataContent build() {
+        return builder().build();
+    }
+
+    @Benchmark
+    public String buildAndToJSON() {
+        return builder().build().toJSON();
+    }
+
+    @Benchmark
+    public byte[] buildAndToJSONBytes() {
+        return builder().build().toJSONBytes();
+    }
+
+    /**
+     * The former path: materialize the manifest as an ObjectNode tree and serialize the tree
+     */
+    @Benchmark
+    public String buildTreeAndToJSON() {
+        return JsonParser.createJsonParser().toJSON(builder().build().getElementNode());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MetadataContentBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,104 @@
+package no.ssb.dc.api.content;
+
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import no.ssb.dc.api.CorrelationIds;
+import no.ssb.dc.api.context.ExecutionContext;
+import no.ssb.dc.api.http.Headers;
+import no.ssb.dc.api.util.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MetadataContentTest {
+
+    @Test
+    public void thatStreamedManifestIsByteIdenticalToTree() {
+        CorrelationIds correlationIds = CorrelationIds.create(ExecutionContext.empty());
+        correlationIds.add();
+        Headers requestHeaders = new Headers();
+        requestHeaders.put("Accept", "application/xml");
+        requestHeaders.put("Accept", "application/json");
+        Headers responseHeaders = new Headers();
+        responseHeaders.put("Content-Type", "text/plain; charset=\"æøå\"\n\t\u0001");
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("stateString", "value");
+        state.put("stateInt", 10);
+        state.put("stateBoolean", true);
+
+        MetadataContent.Builder builder = new MetadataContent.Builder()
+                .resourceType(MetadataContent.ResourceType.DOCUMENT)
+                .correlationId(correlationIds)
+                .url("https://example.com/api?a=1&b=\"2\"")
+                .topic("topic")
+                .position(null)
+                .contentKey("entry")
+                .contentType("application/xml")
+                .contentLength(52341)
+                .requestDurationNanoTime(Long.MAX_VALUE)
+                .position("1000")
+                .statusCode(200)
+                .requestHeaders(requestHeaders)
+                .responseHeaders(responseHeaders)
+                .state(state);
+        ObjectNode legacy = legacyTree(correlationIds, requestHeaders, responseHeaders, state);
+
+        byte[] expected = JsonParser.createJsonParser().toJSON(legacy).getBytes(StandardCharsets.UTF_8);
+        MetadataContent metadataContent = builder.build();
+        assertArrayEquals(expected, metadataContent.toJSONBytes());
+        assertEquals(legacy, metadataContent.getElementNode());
+        assertArrayEquals(expected, metadataContent.toJSONBytes());
+    }
+
+    @Test
+    public void thatEmptyManifestIsByteIdenticalToTree() {
+        JsonParser jsonParser = JsonParser.createJsonParser();
+        ObjectNode legacy = jsonParser.createObjectNode();
+        legacy.putObject("metadata").putNull("correlation-id");
+        ObjectNode httpInfo = legacy.putObject("http-info");
+        httpInfo.putObject("request-headers");
+        httpInfo.putObject("response-headers");
+
+        MetadataContent metadataContent = new MetadataContent.Builder().correlationId(null).state(null).build();
+        assertEquals(jsonParser.toJSON(legacy), metadataContent.toJSON());
+    }
+
+    static ObjectNode legacyTree(CorrelationIds correlationIds, Headers requestHeaders, Headers responseHeaders, Map<String, Object> state) {
+        JsonParser jsonParser = JsonParser.createJsonParser();
+        ObjectNode metadataNode = jsonParser.createObjectNode();
+        metadataNode.put("resource-type", "document");
+        metadataNode.put("correlation-id", correlationIds.get().stream().map(UUID::toString).collect(Collectors.joining(",")));
+        metadataNode.put("url", "https://example.com/api?a=1&b=\"2\"");
+        metadataNode.put("topic", "topic");
+        metadataNode.put("position", (String) null);
+        metadataNode.put("content-key", "entry");
+        metadataNode.put("content-type", "application/xml");
+        metadataNode.put("content-length", 52341);
+        metadataNode.put("request-duration-nano-time", Long.MAX_VALUE);
+        metadataNode.put("position", "1000");
+        ObjectNode httpInfoNode = jsonParser.createObjectNode();
+        httpInfoNode.put("statusCode", 200);
+        ObjectNode requestHeaderNode = httpInfoNode.putObject("request-headers");
+        requestHeaders.asMap().forEach((key, value) -> requestHeaderNode.put(key, String.join(",", value)));
+        ObjectNode responseHeaderNode = httpInfoNode.putObject("response-headers");
+        responseHeaders.asMap().forEach((key, value) -> responseHeaderNode.put(key, String.join(",", value)));
+        ObjectNode stateNode = jsonParser.createObjectNode();
+        stateNode.set("stateString", new TextNode((String) state.get("stateString")));
+        stateNode.set("stateInt", new IntNode((Integer) state.get("stateInt")));
+        stateNode.set("stateBoolean", BooleanNode.valueOf((Boolean) state.get("stateBoolean")));
+        ObjectNode elementNode = jsonParser.createObjectNode();
+        elementNode.set("metadata", metadataNode);
+        elementNode.set("http-info", httpInfoNode);
+        elementNode.set("state", stateNode);
+        return elementNode;
+    }
+}
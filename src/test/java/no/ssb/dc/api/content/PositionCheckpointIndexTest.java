@@ -0,0 +1,68 @@
+package no.ssb.dc.api.content;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PositionCheckpointIndexTest {
+
+    @Test
+    public void thatCommittedPositionSurvivesRestartAndPendingFallsBackToScan(@TempDir Path directory) {
+        AtomicInteger scanCount = new AtomicInteger();
+
+        PositionCheckpointIndex index = new PositionCheckpointIndex(directory);
+        assertEquals("10", index.lastPosition("topic/a", topic -> {
+            scanCount.incrementAndGet();
+            return "10";
+        }));
+        index.prepare("topic/a", "20");
+        index.commit("topic/a", "20");
+
+        PositionCheckpointIndex restarted = new PositionCheckpointIndex(directory);
+        assertEquals(Optional.of("20"), restarted.lastPosition("topic/a"));
+        assertEquals("20", restarted.lastPosition("topic/a", topic -> {
+            scanCount.incrementAndGet();
+            return "scanned";
+        }));
+        assertEquals(1, scanCount.get());
+
+        restarted.prepare("topic/a", "30");
+        PositionCheckpointIndex crashed = new PositionCheckpointIndex(directory);
+        assertEquals(Optional.empty(), crashed.lastPosition("topic/a"));
+        assertEquals("30", crashed.lastPosition("topic/a", topic -> "30"));
+        assertEquals(Optional.of("30"), new PositionCheckpointIndex(directory).lastPosition("topic/a"));
+        assertEquals(Optional.empty(), crashed.lastPosition("topic-pages"));
+    }
+
+    @Test
+    public void thatLateCommitOfEarlierPositionDoesNotCommitPendingPosition(@TempDir Path directory) {
+        PositionCheckpointIndex index = new PositionCheckpointIndex(directory);
+
+        index.prepare("topic", "1");
+        index.prepare("topic", "2");
+        index.commit("topic", "1");
+        assertEquals(Optional.empty(), index.lastPosition("topic"));
+        // the worker stops before 2 is committed
+        assertEquals(Optional.empty(), new PositionCheckpointIndex(directory).lastPosition("topic"));
+
+        index.commit("topic", "2");
+        assertEquals(Optional.of("2"), index.lastPosition("topic"));
+
+        // commits that complete out of order are committed with the last prepared position
+        index.prepare("topic", "3");
+        index.prepare("topic", "4");
+        index.commit("topic", "4");
+        assertEquals(Optional.empty(), new PositionCheckpointIndex(directory).lastPosition("topic"));
+        index.commit("topic", "3");
+        assertEquals(Optional.of("4"), new PositionCheckpointIndex(directory).lastPosition("topic"));
+
+        index.invalidate("topic");
+        assertEquals(Optional.empty(), index.lastPosition("topic"));
+        assertEquals(Optional.empty(), new PositionCheckpointIndex(directory).lastPosition("topic"));
+    }
+}
@@ -0,0 +1,89 @@
+package no.ssb.dc.api.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WatermarkCapacityTest {
+
+    @Test
+    public void thatBytesAddedConcurrentlyWithReleaseAreNotLeaked() throws InterruptedException {
+        WatermarkCapacity capacity = WatermarkCapacity.builder()
+                .highWatermarkPositions(4)
+                .highWatermarkBytes(1024 * 1024)
+                .build();
+        for (int n = 0; n < 200; n++) {
+            ContentStoreCapacity.Permit permit = capacity.acquire();
+            CountDownLatch started = new CountDownLatch(1);
+            Thread writer = new Thread(() -> {
+                started.countDown();
+                try {
+                    while (true) {
+                        permit.addBytes(1);
+                    }
+                } catch (IllegalStateException e) {
+                    // released
+                }
+            });
+            writer.start();
+            started.await();
+            permit.release();
+            writer.join();
+            assertEquals(0, capacity.bytes());
+            assertEquals(0, capacity.positions());
+        }
+        assertFalse(capacity.isPaused());
+    }
+
+    @Test
+    public void thatPositionsAreHeldBackBetweenHighAndLowWatermark() throws InterruptedException {
+        WatermarkCapacity capacity = WatermarkCapacity.builder()
+                .highWatermarkPositions(4)
+                .lowWatermarkPositions(1)
+                .build();
+
+        List<ContentStoreCapacity.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(capacity.acquire());
+        }
+        assertTrue(capacity.isPaused());
+        assertEquals(0, capacity.prefetchThreshold(10));
+        assertTrue(capacity.tryAcquire().isEmpty());
+
+        CompletableFuture<ContentStoreCapacity.Permit> waiter = capacity.acquireAsync();
+        permits.get(0).release();
+        permits.get(1).release();
+        assertFalse(waiter.isDone());
+
+        permits.get(2).release();
+        assertTrue(waiter.isDone());
+        assertFalse(capacity.isPaused());
+        assertEquals(2, capacity.positions());
+        assertEquals(2, capacity.prefetchThreshold(10));
+    }
+
+    @Test
+    public void thatBufferedBytesPauseAndResume() throws InterruptedException {
+        WatermarkCapacity capacity = WatermarkCapacity.builder()
+                .highWatermarkBytes(1000)
+                .lowWatermarkBytes(100)
+                .build();
+
+        ContentStoreCapacity.Permit permit = capacity.acquire();
+        permit.addBytes(1200);
+        assertTrue(capacity.isPaused());
+
+        permit.release();
+        permit.release();
+        assertFalse(capacity.isPaused());
+        assertEquals(0, capacity.bytes());
+        assertEquals(0, capacity.positions());
+    }
+}
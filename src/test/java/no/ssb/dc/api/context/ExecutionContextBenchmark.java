@@ -0,0 +1,67 @@
+package no.ssb.dc.api.context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures forking a page context for a parallel entry and joining the entry context back, with a page context of
+ * varying size and a few entry local variables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutionContextBenchmark {
+
+    @Param({"10", "1000"})
+    int variableCount;
+
+    ExecutionContext pageContext;
+
+    @Setup
+    public void setup() {
+        pageContext = ExecutionContext.empty();
+        for (int i = 0; i < variableCount; i++) {
+            pageContext.variable("variable-" + i, "value-" + i);
+            pageContext.state("state-" + i, i);
+        }
+    }
+
+    @Benchmark
+    public ExecutionContext of() {
+        return ExecutionContext.of(pageContext);
+    }
+
+    @Benchmark
+    public ExecutionContext ofAndJoin() {
+        ExecutionContext entryContext = ExecutionContext.of(pageContext);
+        entryContext.variable("position", "1000");
+        entryContext.variable("documentId", "42");
+        return ExecutionContext.of(pageContext).join(entryContext);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExecutionContextBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,80 @@
+package no.ssb.dc.api.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExecutionContextTest {
+
+    @Test
+    public void thatForkedContextDoesNotLeakWritesToParent() {
+        ExecutionContext parent = ExecutionContext.empty();
+        parent.variable("a", "1").variable("b", "2").state("s", "state");
+
+        ExecutionContext child = ExecutionContext.of(parent);
+        child.variable("a", "11").variable("c", "3");
+        child.variables().remove("b");
+        parent.variable("d", "4");
+
+        assertEquals(Map.of("a", "1", "b", "2", "d", "4"), parent.variables());
+        assertEquals(Map.of("a", "11", "c", "3"), child.variables());
+        assertEquals(List.of("a", "c"), List.copyOf(child.variables().keySet()));
+        assertEquals("state", child.state("s"));
+        assertFalse(child.variables().containsKey("b"));
+    }
+
+    @Test
+    public void thatJoinKeepsOwnValuesAndAddsAbsentKeys() {
+        ExecutionContext parent = ExecutionContext.empty();
+        parent.variable("a", "1").variable("b", "2");
+
+        ExecutionContext left = ExecutionContext.of(parent);
+        ExecutionContext right = ExecutionContext.of(parent);
+        left.variable("a", "left");
+        left.variables().remove("b");
+        right.variable("a", "right").variable("c", null);
+
+        left.join(right);
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("a", "left");
+        expected.put("b", "2");
+        expected.put("c", null);
+        assertEquals(expected, left.variables());
+        assertTrue(left.variables().containsKey("c"));
+        assertEquals("right", right.variable("a"));
+        assertEquals("2", right.variable("b"));
+    }
+
+    @Test
+    public void thatJoinOfUnrelatedContextsMatchesMapSemantics() {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("a", "1");
+        ExecutionContext context = new ExecutionContext.Builder().variables(variables).build();
+        ExecutionContext another = ExecutionContext.empty().variable("a", "2").variable("b", "3");
+
+        context.join(another);
+
+        assertEquals(Map.of("a", "1", "b", "3"), context.variables());
+        assertEquals(Map.of("a", "2", "b", "3"), another.variables());
+    }
+
+    @Test
+    public void thatDeepForkChainsAreFlattened() {
+        ExecutionContext context = ExecutionContext.empty();
+        for (int i = 0; i < ScopedMap.MAX_DEPTH * 4; i++) {
+            context = ExecutionContext.of(context.variable("key-" + i, i));
+            assertTrue(((ScopedMap<String, Object>) context.variables()).depth() <= ScopedMap.MAX_DEPTH);
+        }
+        assertEquals(ScopedMap.MAX_DEPTH * 4, context.variables().size());
+        assertEquals(0, context.variable("key-0"));
+        assertNull(context.variable("key-" + ScopedMap.MAX_DEPTH * 4));
+    }
+}
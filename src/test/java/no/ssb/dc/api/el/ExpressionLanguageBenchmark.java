@@ -0,0 +1,117 @@
+package no.ssb.dc.api.el;
+
+import no.ssb.dc.api.ConfigurationMap;
+import no.ssb.dc.api.context.ExecutionContext;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlExpression;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Compares compiled and cached expression evaluation against the previous evaluate path, which re-matched,
+ * re-created the expression and rebuilt the Jexl context on every call, and pre-parsed templates against re-matching
+ * a url with embedded expressions on every render.
+ * <p>
+ * Run with the gc profiler to observe allocation rate: {@code -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionLanguageBenchmark {
+
+    static final String EXPRESSION = "${cast.toLong(fromPosition) + 1}";
+    static final String URL = "https://example.com/api/events?position=${fromPosition}&pageSize=${pageSize}";
+
+    private static final JexlEngine LEGACY_ENGINE = new JexlBuilder().cache(512).strict(true).silent(false).create();
+
+    ExpressionLanguage el;
+    ELTemplate urlTemplate;
+    Map<String, Object> variables;
+    Map<String, Object> legacyVariables;
+    ConfigurationMap configuration;
+
+    @Setup
+    public void setup() {
+        variables = new LinkedHashMap<>();
+        variables.put("fromPosition", "1000");
+        variables.put("pageSize", 100);
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("data.collector.worker.threads", "20");
+        config.put("data.collector.rawdata.topic", "topic");
+        configuration = new ConfigurationMap(config);
+        ExecutionContext context = new ExecutionContext.Builder().variables(variables).build();
+        context.services().register(ConfigurationMap.class, configuration);
+        el = new ExpressionLanguage(context);
+        legacyVariables = new LinkedHashMap<>(variables);
+        urlTemplate = ELTemplate.parse(URL);
+    }
+
+    @Benchmark
+    public Object compiledExpression() {
+        return el.evaluateExpression(EXPRESSION);
+    }
+
+    @Benchmark
+    public Object legacyExpression() {
+        String expression = el.isExpression(EXPRESSION) ? el.getExpression(EXPRESSION) : EXPRESSION;
+        JexlExpression e = LEGACY_ENGINE.createExpression(expression);
+        JexlContext jexlContext = new MapContext(legacyVariables);
+        jexlContext.set("ENV", new MapContext(new LinkedHashMap<>(configuration.asMap())));
+        jexlContext.set("cast", new ELCast());
+        jexlContext.set("convert", new ELConvert());
+        jexlContext.set("base64", new ELBase64());
+        jexlContext.set("gsm", new Gsm());
+        jexlContext.set("secret", new Secret());
+        return e.evaluate(jexlContext);
+    }
+
+    @Benchmark
+    public String templateExpressions() {
+        return el.evaluateExpressions(urlTemplate);
+    }
+
+    @Benchmark
+    public String legacyExpressions() {
+        Matcher m = ExpressionLanguage.MULTI_EXPRESSION_REGEX.matcher(URL);
+        StringBuffer buf = new StringBuffer();
+        int last = 0;
+        while (m.find()) {
+            buf.append(URL, last, m.start());
+            buf.append(el.evaluateExpression(m.group()));
+            last = m.end();
+        }
+        buf.append(URL.substring(last));
+        return buf.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExpressionLanguageBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
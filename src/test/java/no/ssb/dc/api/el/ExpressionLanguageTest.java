@@ -13,6 +13,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ExpressionLanguageTest {
 
@@ -67,6 +68,41 @@ public class ExpressionLanguageTest {
         ExpressionLanguage el = new ExpressionLanguage(new ExecutionContext.Builder().variables(variables).build());
         assertEquals("bGFuZ3VhZ2U6dGVzdGluZw==", el.evaluateExpression(expr));
     }
+
+    @Test
+    public void thatCompiledExpressionIsReusedAcrossVariableScopes() {
+        String expr = "${cast.toLong(position) + 1}";
+
+        Map<String, Object> firstVariables = new LinkedHashMap<>();
+        firstVariables.put("position", "1");
+        ExpressionLanguage first = new ExpressionLanguage(new ExecutionContext.Builder().variables(firstVariables).build());
+
+        Map<String, Object> secondVariables = new LinkedHashMap<>();
+        secondVariables.put("position", "41");
+        ExpressionLanguage second = new ExpressionLanguage(new ExecutionContext.Builder().variables(secondVariables).build());
+
+        assertEquals(2L, first.evaluateExpression(expr));
+        assertEquals(42L, second.evaluateExpression(expr));
+        assertEquals(2L, first.evaluateExpression(expr));
+    }
+
+    @Test
+    public void thatTemplateSegmentsAreEvaluated() {
+        ELTemplate template = ELTemplate.parse("/ns/events?position=${fromPosition}&pageSize=${pageSize}}&next=${missing}");
+        assertEquals(3, template.expressionCount());
+        assertTrue(ELTemplate.parse("/ns/events?position=1").isLiteral());
+
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("fromPosition", "1");
+        variables.put("pageSize", 10);
+        variables.put("missing", null);
+        ExpressionLanguage el = new ExpressionLanguage(new ExecutionContext.Builder().variables(variables).build());
+
+        assertEquals("/ns/events?position=1&pageSize=10&next=null", el.evaluateExpressions(template));
+        assertEquals(el.evaluateExpressions(template.source()), el.evaluateExpressions(template));
+        assertEquals("no expressions", el.evaluateExpressions("no expressions"));
+    }
+
     @Disabled
     @Test
     public void testGoogleSecretManger() {
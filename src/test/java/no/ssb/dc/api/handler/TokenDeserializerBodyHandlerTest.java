@@ -0,0 +1,110 @@
+package no.ssb.dc.api.handler;
+
+import no.ssb.dc.api.http.BodyHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenDeserializerBodyHandlerTest {
+
+    static List<ByteBuffer> chunk(String content) {
+        return List.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void thatEntriesArePassedOnWhileBodyIsReceived() throws Exception {
+        BlockingQueue<Object> entries = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>()) {
+            TokenDeserializerBodyHandler bodyHandler = new TokenDeserializerBodyHandler(new LineParser(), entries::add, executor);
+            publisher.subscribe(bodyHandler);
+
+            publisher.submit(chunk("entry-1\nentry-"));
+            assertEquals("entry-1", entries.poll(5, TimeUnit.SECONDS));
+            publisher.submit(chunk("2\n"));
+            assertEquals("entry-2", entries.poll(5, TimeUnit.SECONDS));
+            assertFalse(bodyHandler.body().isDone());
+
+            publisher.submit(chunk("entry-3\n"));
+            publisher.close();
+            bodyHandler.body().get(5, TimeUnit.SECONDS);
+            assertEquals("entry-3", entries.poll());
+            assertTrue(entries.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void thatParseFailureCancelsSubscription() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>()) {
+            BodyHandler<CompletableFuture<Void>> healthy = new LineParser().tokenDeserializer(entry -> {
+            }, executor);
+            publisher.subscribe(healthy);
+            TokenDeserializerBodyHandler failing = new TokenDeserializerBodyHandler(new LineParser(), entry -> {
+                throw new IllegalStateException("Rejected: " + entry);
+            }, executor);
+            publisher.subscribe(failing);
+            publisher.submit(chunk("entry-1\n"));
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failing.body().get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (publisher.getNumberOfSubscribers() > 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, publisher.getNumberOfSubscribers());
+            assertFalse(healthy.body().isDone());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static class LineParser implements DocumentParserFeature {
+
+        @Override
+        public byte[] serialize(Object document) {
+            return String.valueOf(document).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object deserialize(byte[] source) {
+            return new String(source, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void tokenDeserializer(InputStream source, Consumer<Object> entryCallback) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    entryCallback.accept(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
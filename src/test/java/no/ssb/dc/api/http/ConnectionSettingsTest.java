@@ -0,0 +1,63 @@
+package no.ssb.dc.api.http;
+
+import no.ssb.dc.api.node.ConnectionPool;
+import no.ssb.dc.api.node.builder.BuildContext;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static no.ssb.dc.api.Builders.connectionPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ConnectionSettingsTest {
+
+    static Map<String, Object> applied(ConnectionSettings settings) {
+        Map<String, Object> calls = new LinkedHashMap<>();
+        Client.Builder clientBuilder = (Client.Builder) Proxy.newProxyInstance(Client.Builder.class.getClassLoader(), new Class[]{Client.Builder.class},
+                (proxy, method, args) -> {
+                    calls.put(method.getName(), args == null ? null : args[0]);
+                    return proxy;
+                });
+        settings.applyTo(clientBuilder);
+        return calls;
+    }
+
+    @Test
+    public void thatOnlySetValuesAreAppliedToClientBuilder() {
+        ConnectionSettings settings = ConnectionSettings.builder()
+                .version(Client.Version.HTTP_2)
+                .maxConcurrentStreams(100)
+                .build();
+
+        Map<String, Object> calls = applied(settings);
+        assertEquals(Map.of("version", Client.Version.HTTP_2, "maxConcurrentStreams", 100), calls);
+        assertEquals(Map.of(), applied(ConnectionSettings.defaults()));
+    }
+
+    @Test
+    public void thatConnectionPoolConfigurationBuildsSettings() {
+        ConnectionPool connectionPool = connectionPool()
+                .version(Client.Version.HTTP_1_1)
+                .maxConnectionsPerHost(8)
+                .keepAlive(Duration.ofSeconds(30))
+                .pipelining(true)
+                .build(BuildContext.empty());
+
+        ConnectionSettings settings = connectionPool.settings();
+        assertEquals(Client.Version.HTTP_1_1, settings.version());
+        assertEquals(8, settings.maxConnectionsPerHost());
+        assertEquals(Duration.ofSeconds(30), settings.keepAlive());
+        assertEquals(true, settings.pipelining());
+        assertNull(settings.maxConcurrentStreams());
+    }
+
+    @Test
+    public void thatUnavailableMetricsReportUnknownValues() {
+        assertEquals(-1, ConnectionMetrics.UNAVAILABLE.openConnections());
+        assertEquals(5, ConnectionMetrics.UNAVAILABLE.asMap().size());
+    }
+}
@@ -0,0 +1,53 @@
+package no.ssb.dc.api.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpStatusTest {
+
+    @Test
+    public void thatStatusIsLookedUpByCode() {
+        for (HttpStatus status : HttpStatus.values()) {
+            assertSame(status, HttpStatus.valueOf(status.code()));
+        }
+        assertThrows(IllegalStateException.class, () -> HttpStatus.valueOf(299));
+        assertThrows(IllegalStateException.class, () -> HttpStatus.valueOf(-1));
+        assertThrows(IllegalStateException.class, () -> HttpStatus.valueOf(600));
+    }
+
+    @Test
+    public void thatStatusIsClassified() {
+        assertTrue(HttpStatus.isOk(200));
+        assertFalse(HttpStatus.isOk(299));
+        assertTrue(HttpStatus.isRedirection(301));
+        assertTrue(HttpStatus.isClientError(404));
+        assertTrue(HttpStatus.isServerError(503));
+        assertFalse(HttpStatus.isServerError(1000));
+        assertEquals(HttpStatus.HTTP_OK, HttpStatus.okCodes().get(0));
+        assertEquals(HttpStatus.HTTP_MULT_CHOICE, HttpStatus.redirectionCodes().get(0));
+        assertEquals(HttpStatus.HTTP_VERSION, HttpStatus.serverErrorCodes().get(HttpStatus.serverErrorCodes().size() - 1));
+        assertEquals(400, HttpStatus.clientErrorCodes()[0]);
+        assertEquals(List.of(HttpStatus.HTTP_NOT_FOUND, HttpStatus.HTTP_BAD_METHOD), HttpStatus.range(404, 405));
+    }
+
+    @Test
+    public void thatStatusSetHoldsCodes() {
+        HttpStatusSet set = HttpStatusSet.range(429, 431).union(HttpStatusSet.of(503, 0, 599));
+        assertTrue(set.contains(430));
+        assertTrue(set.contains(HttpStatus.HTTP_UNAVAILABLE));
+        assertFalse(set.contains(404));
+        assertFalse(set.contains(600));
+        assertArrayEquals(new int[]{0, 429, 430, 431, 503, 599}, set.codes());
+        assertEquals(List.of(HttpStatus.HTTP_UNAVAILABLE), set.statuses());
+        assertEquals(HttpStatusSet.of(List.of(HttpStatus.HTTP_OK, 201)), HttpStatusSet.of(200, 201));
+        assertThrows(IllegalArgumentException.class, () -> HttpStatusSet.of(600));
+    }
+}
@@ -0,0 +1,52 @@
+package no.ssb.dc.api.http;
+
+import no.ssb.dc.api.Builders;
+import no.ssb.dc.api.Specification;
+import no.ssb.dc.api.node.Get;
+import no.ssb.dc.api.node.RateLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static no.ssb.dc.api.Builders.get;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    @Test
+    public void thatConcurrencyAndRateAreLimited() throws InterruptedException {
+        RateLimiter rateLimiter = RateLimiter.of(1, 2, 2);
+        RateLimiter.Permit first = rateLimiter.acquire();
+        Optional<RateLimiter.Permit> second = rateLimiter.tryAcquire();
+        assertTrue(second.isPresent());
+        assertEquals(2, rateLimiter.inFlight());
+        assertFalse(rateLimiter.tryAcquire().isPresent());
+
+        first.close();
+        first.close();
+        second.get().close();
+        assertEquals(0, rateLimiter.inFlight());
+        assertFalse(rateLimiter.tryAcquire().isPresent(), "burst of two is spent");
+    }
+
+    @Test
+    public void thatSpecificationSharesRateLimiterAcrossOperations() {
+        Specification specification = Specification.start("test", "rate limit", "a")
+                .configure(Builders.rateLimit().requestsPerSecond(5).maxConcurrency(2))
+                .function(get("a").url("http://example.com/a"))
+                .function(get("b").url("http://example.com/b"))
+                .end();
+        Get a = (Get) specification.startFunction();
+        RateLimit rateLimit = a.configurations().rateLimit();
+        assertEquals(5, rateLimit.burst());
+        assertSame(rateLimit.rateLimiter(), a.rateLimiter());
+
+        Specification unlimited = Specification.start("test", "no rate limit", "a")
+                .function(get("a").url("http://example.com/a"))
+                .end();
+        assertTrue(((Get) unlimited.startFunction()).rateLimiter().isUnlimited());
+    }
+}
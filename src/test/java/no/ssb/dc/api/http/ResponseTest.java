@@ -0,0 +1,59 @@
+package no.ssb.dc.api.http;
+
+import no.ssb.dc.api.util.ByteBufferUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseTest {
+
+    @Test
+    public void thatBodyIsViewedReadOnlyAndCopiedToByteArrays() {
+        byte[] body = "body".getBytes(StandardCharsets.UTF_8);
+        Response response = new Response() {
+            @Override
+            public String url() {
+                return "http://example.com";
+            }
+
+            @Override
+            public Headers headers() {
+                return null;
+            }
+
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public byte[] body() {
+                return body;
+            }
+
+            @Override
+            public <R> Optional<BodyHandler<R>> bodyHandler() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Response> previousResponse() {
+                return Optional.empty();
+            }
+        };
+
+        ByteBuffer view = response.bodyAsByteBuffer();
+        assertTrue(view.isReadOnly());
+
+        byte[] bytes = ByteBufferUtils.toByteArray(view);
+        assertArrayEquals(body, bytes);
+        assertNotSame(body, bytes);
+        assertNotSame(body, ByteBufferUtils.toByteArray(ByteBuffer.wrap(body)));
+    }
+}
@@ -0,0 +1,99 @@
+package no.ssb.dc.api.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void thatDelayGrowsExponentiallyWithJitterUpToMaxDelay() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialDelay(Duration.ofMillis(100))
+                .maxDelay(Duration.ofMillis(500))
+                .jitter(0.5)
+                .random(() -> 1.0)
+                .build();
+        assertEquals(50, policy.backoffMillis(1));
+        assertEquals(100, policy.backoffMillis(2));
+        assertEquals(200, policy.backoffMillis(3));
+        assertEquals(250, policy.backoffMillis(4));
+        assertEquals(250, policy.backoffMillis(20));
+    }
+
+    @Test
+    public void thatRetryAfterRaisesDelay() {
+        RetryPolicy policy = RetryPolicy.builder().initialDelay(Duration.ofMillis(100)).jitter(0).build();
+        Headers headers = new Headers();
+        headers.put("retry-after", "3");
+        assertEquals(Optional.of(Duration.ofSeconds(3)), policy.nextDelay(1, Duration.ZERO, "host", headers));
+
+        Headers dateHeaders = new Headers();
+        dateHeaders.put("Retry-After", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60)));
+        long millis = RetryPolicy.retryAfterMillis(dateHeaders).orElseThrow();
+        assertTrue(millis > 55_000 && millis <= 60_000, "millis: " + millis);
+
+        Headers invalid = new Headers();
+        invalid.put("Retry-After", "soon");
+        assertFalse(RetryPolicy.retryAfterMillis(invalid).isPresent());
+        assertFalse(RetryPolicy.fixed(Duration.ofSeconds(1)).respectRetryAfter());
+    }
+
+    @Test
+    public void thatRetryIsGivenUpWhenBudgetIsSpent() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialDelay(Duration.ofSeconds(1))
+                .jitter(0)
+                .maxAttempts(3)
+                .maxElapsed(Duration.ofSeconds(10))
+                .build();
+        assertTrue(policy.nextDelay(3, Duration.ZERO, "host", null).isPresent());
+        assertFalse(policy.nextDelay(4, Duration.ZERO, "host", null).isPresent());
+        assertFalse(policy.nextDelay(1, Duration.ofMillis(9500), "host", null).isPresent());
+    }
+
+    @Test
+    public void thatTokenBucketSpreadsOutConcurrentRetries() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 10, now::get);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve());
+        assertFalse(bucket.tryAcquire());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        RetryPolicy policy = RetryPolicy.builder().initialDelay(Duration.ofMillis(10)).jitter(0).tokenBucket(1, 1).build();
+        assertEquals(Optional.of(Duration.ofMillis(10)), policy.nextDelay(1, Duration.ZERO, "a.example.com", null));
+        assertTrue(policy.nextDelay(1, Duration.ZERO, "a.example.com", null).orElseThrow().compareTo(Duration.ofMillis(900)) > 0);
+        assertEquals(Optional.of(Duration.ofMillis(10)), policy.nextDelay(1, Duration.ZERO, "b.example.com", null));
+    }
+
+    @Test
+    public void thatReservedTokenIsRefundedWhenRetryIsGivenUp() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialDelay(Duration.ofMillis(10))
+                .jitter(0)
+                .maxElapsed(Duration.ofMillis(500))
+                .tokenBucket(1, 1)
+                .build();
+        assertEquals(Optional.of(Duration.ofMillis(10)), policy.nextDelay(1, Duration.ZERO, "a.example.com", null));
+        assertFalse(policy.nextDelay(1, Duration.ZERO, "a.example.com", null).isPresent());
+        assertFalse(policy.nextDelay(1, Duration.ZERO, "a.example.com", null).isPresent());
+        // only the token of the retry that was made is borrowed
+        assertTrue(policy.tokenBucket("a.example.com").availableTokens() > -0.5);
+    }
+}
@@ -0,0 +1,163 @@
+package no.ssb.dc.api.node;
+
+import no.ssb.dc.api.LargeSpecification;
+import no.ssb.dc.api.Specification;
+import no.ssb.dc.api.node.builder.SpecificationBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static no.ssb.dc.api.Builders.execute;
+import static no.ssb.dc.api.Builders.get;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NodeIndexTest {
+
+    @Test
+    public void thatVisitorTraversalMatchesLegacyTraversal() {
+        Node startFunction = LargeSpecification.create(3).end().startFunction();
+
+        List<Node> legacyNodes = new ArrayList<>();
+        List<Integer> legacyDepths = new ArrayList<>();
+        startFunction.traverse(0, new LinkedHashSet<>(), new ArrayList<>(), (ancestors, node) -> {
+            legacyNodes.add(node);
+            legacyDepths.add(ancestors.size());
+        });
+
+        List<Node> nodes = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        startFunction.traverse((nodeId, node, depth, ancestorIds) -> {
+            assertEquals(nodes.size(), nodeId);
+            if (depth > 0) {
+                Node parent = startFunction.nodeIndex().node(ancestorIds[depth - 1]);
+                boolean isChild = false;
+                for (Iterator<? extends Node> it = parent.iterator(); it.hasNext(); ) {
+                    isChild |= it.next() == node;
+                }
+                assertTrue(isChild);
+            }
+            nodes.add(node);
+            depths.add(depth);
+            return true;
+        });
+
+        assertEquals(legacyNodes, nodes);
+        assertEquals(legacyDepths, depths);
+        assertSame(startFunction.nodeIndex(), startFunction.nodeIndex());
+        assertEquals(nodes, startFunction.nodeIndex().nodes());
+    }
+
+    @Test
+    public void thatExecuteChainIsTraversedWithoutRecursion() {
+        int functions = 1000;
+        SpecificationBuilder builder = Specification.start("CHAIN", "chain", "f0");
+        for (int i = 0; i < functions - 1; i++) {
+            builder.function(get("f" + i).url("http://com.company/" + i).pipe(execute("f" + (i + 1))));
+        }
+        builder.function(get("f" + (functions - 1)).url("http://com.company/last"));
+        Specification specification = builder.end();
+
+        // every function but the last is followed by its execute node
+        NodeIndex nodeIndex = specification.startFunction().nodeIndex();
+        assertEquals(2 * functions - 1, nodeIndex.size());
+
+        List<Integer> legacyDepths = new ArrayList<>();
+        specification.startFunction().traverse(0, new LinkedHashSet<>(), new ArrayList<>(), (ancestors, node) -> legacyDepths.add(ancestors.size()));
+        assertEquals(2 * functions - 2, legacyDepths.get(legacyDepths.size() - 1));
+        assertEquals(new ExecutionPlan.RequestEstimate(functions, 0, false), specification.executionPlan().requestEstimate(specification.startFunction()));
+    }
+
+    @Test
+    public void thatDeepAndWideGraphsAreIndexedWithoutStackOverflow() {
+        int depth = 200_000;
+        TestNode root = new TestNode();
+        TestNode current = root;
+        for (int i = 0; i < depth; i++) {
+            TestNode child = new TestNode();
+            current.children.add(child);
+            current.children.add(root);
+            current = child;
+        }
+        TestNode wide = new TestNode();
+        for (int i = 0; i < depth; i++) {
+            wide.children.add(new TestNode());
+        }
+        current.children.add(wide);
+
+        NodeIndex nodeIndex = root.nodeIndex();
+        assertEquals(2 * depth + 2, nodeIndex.size());
+        assertSame(wide, nodeIndex.node(depth + 1));
+        assertArrayEquals(new int[]{1, 0}, nodeIndex.children(0));
+
+        int[] visited = new int[2];
+        nodeIndex.traverse((nodeId, node, nodeDepth, ancestorIds) -> {
+            visited[0]++;
+            visited[1] = Math.max(visited[1], nodeDepth);
+            return true;
+        });
+        assertEquals(nodeIndex.size(), visited[0]);
+        assertEquals(depth + 2, visited[1]);
+
+        int[] pruned = new int[1];
+        nodeIndex.traverse((nodeId, node, nodeDepth, ancestorIds) -> {
+            pruned[0]++;
+            return node != wide;
+        });
+        assertEquals(depth + 2, pruned[0]);
+    }
+
+    static class TestNode implements Node {
+
+        final List<Node> children = new ArrayList<>();
+
+        @Override
+        public Configurations configurations() {
+            return null;
+        }
+
+        @Override
+        public Iterator<? extends Node> iterator() {
+            return children.iterator();
+        }
+
+        @Override
+        public void traverse(int depth, Set<Node> visitedNodeIds, List<Node> ancestors, BiConsumer<List<Node>, Node> visit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toPrintableExecutionPlan() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean instanceOf(Class<? extends Base> nodeClass) {
+            return nodeClass.isInstance(this);
+        }
+
+        @Override
+        public <R extends Base> R cast(Class<R> nodeClass) {
+            return nodeClass.cast(this);
+        }
+
+        @Override
+        public <R extends Base> void given(Class<R> isInstanceOfNodeClass, Consumer<R> then) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <R extends Base> void given(Class<R> isInstanceOfNodeClass, AtomicBoolean andIfNotHandled, Consumer<R> then) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
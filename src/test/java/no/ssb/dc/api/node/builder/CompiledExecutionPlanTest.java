@@ -0,0 +1,104 @@
+package no.ssb.dc.api.node.builder;
+
+import no.ssb.dc.api.LargeSpecification;
+import no.ssb.dc.api.Specification;
+import no.ssb.dc.api.node.ExecutionPlan;
+import no.ssb.dc.api.node.Get;
+import no.ssb.dc.api.node.Node;
+import no.ssb.dc.api.node.Paginate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static no.ssb.dc.api.Builders.context;
+import static no.ssb.dc.api.Builders.execute;
+import static no.ssb.dc.api.Builders.get;
+import static no.ssb.dc.api.Builders.parallel;
+import static no.ssb.dc.api.Builders.xpath;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompiledExecutionPlanTest {
+
+    @Test
+    public void thatPlanHoldsReachableNodesAndEstimatesRequestsPerPage() {
+        Specification specification = LargeSpecification.create(2).end();
+        ExecutionPlan plan = specification.executionPlan();
+
+        assertFalse(plan.hasErrors());
+        assertSame(specification.startFunction(), plan.startFunction());
+        assertSame(specification.startFunction(), plan.nodes().get(0));
+        assertEquals(0, plan.indexOf(specification.startFunction()));
+
+        Paginate paginate = (Paginate) specification.startFunction();
+        ExecutionPlan.RequestEstimate estimate = plan.requestEstimate(paginate);
+        assertEquals(1, estimate.requests());
+        assertEquals(1, estimate.requestsPerEntry());
+        assertFalse(estimate.isNestedFanOut());
+        assertEquals(101, estimate.requests(100));
+
+        Node documentFunction = plan.nodes().stream()
+                .filter(node -> node instanceof Get && "document-0".equals(((Get) node).id()))
+                .findFirst().orElseThrow();
+        assertTrue(plan.variablesInScope(documentFunction).containsAll(Set.of("fromPosition", "pageSize", "nextPosition", "position", "documentId")));
+
+        // page-1 and document-1 are not reachable from the start function
+        assertTrue(plan.nodes().stream().noneMatch(node -> node instanceof Get && "page-1".equals(((Get) node).id())));
+
+        List<ExecutionPlan.Diagnostic> warnings = plan.diagnostics(ExecutionPlan.Severity.WARNING);
+        assertEquals(1, warnings.size(), warnings.toString());
+        assertTrue(warnings.get(0).message().startsWith("unbounded fan-out"), warnings.get(0).message());
+        assertEquals("/Paginate[page-loop]/Execute[page-0]/Get[page-0]/Parallel", warnings.get(0).path());
+    }
+
+    @Test
+    public void thatUnsatisfiedRequiredInputIsReported() {
+        ExecutionPlan plan = Specification.start("SPEC", "spec", "events")
+                .configure(context().variable("baseURL", "http://com.company"))
+                .function(get("events")
+                        .url("${baseURL}/events")
+                        .pipe(parallel(xpath("/feed/entry"))
+                                .maxConcurrency(8)
+                                .variable("position", xpath("/entry/id"))
+                                .pipe(execute("event-doc")
+                                        .requiredInput("baseURL")
+                                        .requiredInput("position")
+                                        .requiredInput("event-id")
+                                        .requiredInput("person-id")
+                                        .inputVariable("event-id", xpath("/entry/event-id"))
+                                )
+                        )
+                )
+                .function(get("event-doc")
+                        .url("${baseURL}/events/${event-id}")
+                )
+                .end()
+                .executionPlan();
+
+        List<ExecutionPlan.Diagnostic> warnings = plan.diagnostics(ExecutionPlan.Severity.WARNING);
+        assertEquals(1, warnings.size(), warnings.toString());
+        assertEquals("required input 'person-id' is not bound or produced before execute(event-doc)", warnings.get(0).message());
+        assertEquals(2, plan.requestEstimate(plan.startFunction()).requests(1));
+        assertTrue(plan.toPrintableExecutionPlan().contains(warnings.get(0).toString()));
+    }
+
+    @Test
+    public void thatPlanErrorsFailTheBuild() {
+        RuntimeException undefinedStartFunction = assertThrows(RuntimeException.class, () -> Specification.start("SPEC", "spec", "undefined")
+                .function(get("events").url("http://com.company/events"))
+                .end());
+        assertTrue(undefinedStartFunction.getMessage().contains("start function 'undefined' is not defined"), undefinedStartFunction.getMessage());
+
+        RuntimeException negativeMaxConcurrency = assertThrows(RuntimeException.class, () -> Specification.start("SPEC", "spec", "events")
+                .function(get("events")
+                        .url("http://com.company/events")
+                        .pipe(parallel(xpath("/feed/entry")).maxConcurrency(-1))
+                )
+                .end());
+        assertTrue(negativeMaxConcurrency.getMessage().contains("/Get[events]/Parallel: maxConcurrency must be zero or positive: -1"), negativeMaxConcurrency.getMessage());
+    }
+}
@@ -0,0 +1,52 @@
+package no.ssb.dc.api.node.builder;
+
+import no.ssb.dc.api.LargeSpecification;
+import no.ssb.dc.api.Specification;
+import org.junit.jupiter.api.Test;
+
+import static no.ssb.dc.api.Builders.get;
+import static no.ssb.dc.api.Builders.status;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NodeBuilderDeserializerTest {
+
+    @Test
+    public void thatFieldsBeforeTypeAreBuffered() {
+        String yaml = "url: http://com.company/events\n" +
+                "responseValidators:\n" +
+                "- success:\n" +
+                "    '200': []\n" +
+                "  type: HttpStatusValidation\n" +
+                "id: events\n" +
+                "type: Get\n";
+
+        GetBuilder expected = get("events").url("http://com.company/events").validate(status().success(200));
+        assertEquals(expected, Specification.deserialize(yaml, GetBuilder.class));
+    }
+
+    @Test
+    public void thatErrorReportsNodePath() {
+        String yaml = "type: Specification\n" +
+                "id: SPEC\n" +
+                "name: spec\n" +
+                "startFunctionId: events\n" +
+                "functions:\n" +
+                "  events:\n" +
+                "    type: Get\n" +
+                "    id: events\n" +
+                "    pipes:\n" +
+                "    - type: Unknown\n";
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> Specification.deserialize(yaml));
+        assertTrue(e.getMessage().contains("NodeBuilder type 'Unknown' NOT supported: /Specification[SPEC]/Get[events]"), e.getMessage());
+    }
+
+    @Test
+    public void thatLargeSpecificationIsSerializedThenDeserialized() {
+        SpecificationBuilder expected = LargeSpecification.create(500);
+        assertEquals(expected, Specification.deserialize(expected.serializeAsYaml()));
+        assertEquals(expected, Specification.deserialize(expected.serialize()));
+    }
+}
@@ -0,0 +1,107 @@
+package no.ssb.dc.api.node.builder;
+
+import no.ssb.dc.api.LargeSpecification;
+import no.ssb.dc.api.Specification;
+import no.ssb.dc.api.util.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpecificationMapperTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpecificationMapperTest.class);
+
+    static final int THREADS = 16;
+    static final int ITERATIONS = 20;
+
+    @Test
+    public void thatReadersAreCachedAndSharedMappersAreLeftUntouched() {
+        Set<Object> yamlModuleIds = Set.copyOf(JsonParser.createYamlParser().mapper().getRegisteredModuleIds());
+        Set<Object> jsonModuleIds = Set.copyOf(JsonParser.createJsonParser().mapper().getRegisteredModuleIds());
+
+        SpecificationBuilder expected = LargeSpecification.create(2);
+        assertEquals(expected, Specification.deserialize(expected.serializeAsYaml()));
+        assertEquals(expected, Specification.deserialize(expected.serialize()));
+
+        assertSame(SpecificationMapper.reader(SpecificationBuilder.class), SpecificationMapper.reader(SpecificationBuilder.class));
+        assertSame(SpecificationMapper.reader(GetBuilder.class), SpecificationMapper.reader(GetBuilder.class));
+        assertEquals(yamlModuleIds, JsonParser.createYamlParser().mapper().getRegisteredModuleIds());
+        assertEquals(jsonModuleIds, JsonParser.createJsonParser().mapper().getRegisteredModuleIds());
+    }
+
+    @Test
+    public void thatCodePointLimitIsOnlyRaisedForSpecifications() {
+        SpecificationBuilder expected = LargeSpecification.create(2500);
+        String yaml = expected.serializeAsYaml();
+        assertTrue(yaml.length() > 3 * 1024 * 1024);
+
+        assertEquals(expected, Specification.deserialize(yaml));
+        assertThrows(RuntimeException.class, () -> JsonParser.createYamlParser().fromJson(yaml, Map.class));
+    }
+
+    @Test
+    public void thatSpecificationsAreDeserializedConcurrently() throws Exception {
+        List<SpecificationBuilder> expected = new ArrayList<>();
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            SpecificationBuilder builder = LargeSpecification.create(10 + i);
+            expected.add(builder);
+            sources.add(i % 2 == 0 ? builder.serializeAsYaml() : builder.serialize());
+        }
+
+        long serialStart = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            for (int n = 0; n < ITERATIONS; n++) {
+                Specification.deserialize(sources.get(i));
+            }
+        }
+        long serialNanos = System.nanoTime() - serialStart;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch startGate = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    int matches = 0;
+                    for (int n = 0; n < ITERATIONS; n++) {
+                        SpecificationBuilder actual = Specification.deserialize(sources.get(index));
+                        if (expected.get(index).equals(actual) && expected.get(index).serialize().equals(actual.serialize())) {
+                            matches++;
+                        }
+                    }
+                    return matches;
+                }));
+            }
+            long parallelStart = System.nanoTime();
+            startGate.countDown();
+            for (Future<Integer> future : futures) {
+                assertEquals(ITERATIONS, future.get(60, TimeUnit.SECONDS));
+            }
+            long parallelNanos = System.nanoTime() - parallelStart;
+            LOG.info("Deserialized {} specifications in {} ms serially and {} ms on {} threads ({} processors)",
+                    THREADS * ITERATIONS, TimeUnit.NANOSECONDS.toMillis(serialNanos), TimeUnit.NANOSECONDS.toMillis(parallelNanos),
+                    THREADS, Runtime.getRuntime().availableProcessors());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package no.ssb.dc.api.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExecutorFactoryTest {
+
+    @Test
+    public void thatRegisteredFactoryIsResolvedFromServices() {
+        ExecutorFactory factory = (mode, parallelism, name) -> ForkJoinPool.commonPool();
+        assertSame(factory, ExecutorFactory.of(Services.create().register(ExecutorFactory.class, factory)));
+        assertSame(ExecutorFactory.defaultFactory(), ExecutorFactory.of(Services.create()));
+    }
+
+    @Test
+    public void thatEveryModeRunsBlockingTasksConcurrently() throws Exception {
+        for (ExecutorFactory.Mode mode : ExecutorFactory.Mode.values()) {
+            ExecutorService executor = ExecutorFactory.defaultFactory().newExecutor(mode, 4, "test-" + mode);
+            try {
+                CountDownLatch latch = new CountDownLatch(4);
+                List<CompletableFuture<String>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    futures.add(CompletableFuture.supplyAsync(() -> {
+                        latch.countDown();
+                        try {
+                            assertTrue(latch.await(5, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        return Thread.currentThread().getName();
+                    }, executor));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+                if (mode != ExecutorFactory.Mode.VIRTUAL) {
+                    assertTrue(futures.get(0).join().startsWith("test-" + mode), mode.name());
+                }
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(Runtime.version().feature() >= 21, ExecutorFactory.isVirtualThreadSupported());
+    }
+}
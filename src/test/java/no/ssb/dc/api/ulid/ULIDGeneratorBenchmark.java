@@ -0,0 +1,55 @@
+package no.ssb.dc.api.ulid;
+
+import de.huxhorn.sulky.ulid.ULID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures monotonic ULID generation from a single thread and under contention from 32 threads, one value or a
+ * batch of 16 values per compare-and-set.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ULIDGeneratorBenchmark {
+
+    @Benchmark
+    @Threads(1)
+    public ULID.Value generateSingleThread() {
+        return ULIDGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public ULID.Value generateContended() {
+        return ULIDGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public List<ULID.Value> generateBatchContended() {
+        return ULIDGenerator.generate(16);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ULIDGeneratorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,75 @@
+package no.ssb.dc.api.ulid;
+
+import de.huxhorn.sulky.ulid.ULID;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ULIDGeneratorTest {
+
+    static final int THREADS = 32;
+    static final int VALUES_PER_THREAD = 20_000;
+
+    @Test
+    public void thatConcurrentGenerationIsUniqueAndMonotonic() throws Exception {
+        Set<ULID.Value> values = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean batch = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ULID.Value previous = null;
+                    for (int i = 0; i < VALUES_PER_THREAD; ) {
+                        List<ULID.Value> generated = batch ? ULIDGenerator.generate(10) : List.of(ULIDGenerator.generate());
+                        for (ULID.Value value : generated) {
+                            assertTrue(previous == null || previous.compareTo(value) < 0, "Values must be strictly increasing per thread");
+                            assertTrue(values.add(value), "Duplicate value");
+                            previous = value;
+                        }
+                        i += generated.size();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * VALUES_PER_THREAD, values.size());
+    }
+
+    @Test
+    public void thatClockRegressionIncrementsWithoutWaiting() {
+        ULID.Value previous = ULIDGenerator.generate();
+        ULID.Value next = ULIDGenerator.next(previous, previous.timestamp() - 1000);
+        assertTrue(previous.compareTo(next) < 0);
+        assertEquals(previous.timestamp(), next.timestamp());
+        assertThrows(IllegalStateException.class, () -> ULIDGenerator.next(previous, previous.timestamp() - ULIDGenerator.MAX_CLOCK_REGRESSION_MILLIS - 1));
+    }
+
+    @Test
+    public void thatExhaustedMillisecondMovesToNextMillisecond() {
+        long timestamp = System.currentTimeMillis();
+        ULID.Value exhausted = new ULID.Value((timestamp << 16) | 0xFFFFL, -1L);
+        ULID.Value next = ULIDGenerator.increment(exhausted);
+        assertEquals(timestamp + 1, next.timestamp());
+        assertTrue(exhausted.toString().compareTo(next.toString()) < 0);
+    }
+}
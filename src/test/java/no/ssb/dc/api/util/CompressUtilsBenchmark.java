@@ -0,0 +1,67 @@
+package no.ssb.dc.api.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures gzip and gunzip of XML payloads of typical page and document sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressUtilsBenchmark {
+
+    @Param({"4096", "1048576"})
+    int payloadSize;
+
+    byte[] payload;
+    byte[] compressed;
+
+    @Setup
+    public void setup() {
+        StringBuilder xml = new StringBuilder(payloadSize + 128).append("<feed>");
+        for (int i = 0; xml.length() < payloadSize; i++) {
+            xml.append("<entry><id>").append(i).append("</id><content>event-").append(i * 31).append("</content></entry>");
+        }
+        payload = xml.append("</feed>").toString().getBytes(StandardCharsets.UTF_8);
+        compressed = CompressUtils.gzip(payload, new ByteArrayOutputStream()).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] gzip() {
+        return CompressUtils.gzip(payload, new ByteArrayOutputStream(payload.length / 4)).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] gunzip() {
+        return CompressUtils.gunzip(compressed, new ByteArrayOutputStream(payload.length)).toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CompressUtilsBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}